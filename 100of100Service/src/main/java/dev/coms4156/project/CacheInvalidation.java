@@ -0,0 +1,129 @@
+package dev.coms4156.project;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A message telling other service nodes that cached data of an organization has changed.
+ * Every node numbers the invalidations it publishes for an organization consecutively,
+ * so receivers can detect lost messages.
+ */
+public final class CacheInvalidation {
+
+  /**
+   * The kind of entity that has changed.
+   */
+  public enum Kind {
+    ORGANIZATION,
+    DEPARTMENT,
+    EMPLOYEE
+  }
+
+  private static final String SEPARATOR = "|";
+
+  private final String nodeId;
+  private final int organizationId;
+  private final long version;
+  private final Kind kind;
+  private final int entityId;
+
+  /**
+   * Constructs a cache invalidation message.
+   *
+   * @param nodeId the ID of the node that made the change
+   * @param organizationId the organization ID
+   * @param version the sequence number of the change on the publishing node
+   * @param kind the kind of entity that has changed
+   * @param entityId the external ID of the entity that has changed
+   */
+  public CacheInvalidation(String nodeId, int organizationId, long version, Kind kind,
+                           int entityId) {
+    this.nodeId = nodeId;
+    this.organizationId = organizationId;
+    this.version = version;
+    this.kind = kind;
+    this.entityId = entityId;
+  }
+
+  /**
+   * Returns the ID of the node that made the change.
+   *
+   * @return the ID of the node that made the change
+   */
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  /**
+   * Returns the ID of the organization.
+   *
+   * @return the ID of the organization
+   */
+  public int getOrganizationId() {
+    return organizationId;
+  }
+
+  /**
+   * Returns the sequence number of the change on the publishing node.
+   *
+   * @return the sequence number of the change on the publishing node
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns the kind of entity that has changed.
+   *
+   * @return the kind of entity that has changed
+   */
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * Returns the external ID of the entity that has changed.
+   *
+   * @return the external ID of the entity that has changed
+   */
+  public int getEntityId() {
+    return entityId;
+  }
+
+  /**
+   * Encodes the message for the wire.
+   *
+   * @return the encoded message
+   */
+  public byte[] encode() {
+    String text = String.join(SEPARATOR, nodeId, String.valueOf(organizationId),
+        String.valueOf(version), kind.name(), String.valueOf(entityId));
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Decodes a message received from the wire.
+   *
+   * @param data the buffer holding the encoded message
+   * @param length the length of the encoded message
+   * @return the decoded message
+   * @throws IllegalArgumentException if the message is malformed
+   */
+  public static CacheInvalidation decode(byte[] data, int length) {
+    String[] fields = new String(data, 0, length, StandardCharsets.UTF_8).split("\\|");
+    if (fields.length != 5) {
+      throw new IllegalArgumentException("Malformed cache invalidation message");
+    }
+    try {
+      return new CacheInvalidation(fields[0], Integer.parseInt(fields[1]),
+          Long.parseLong(fields[2]), Kind.valueOf(fields[3]), Integer.parseInt(fields[4]));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Malformed cache invalidation message", e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return kind + " " + entityId + " of organization " + organizationId
+        + " (node " + nodeId + ", version " + version + ")";
+  }
+}
@@ -0,0 +1,193 @@
+package dev.coms4156.project;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Preloads the caches of the most active organizations when the service starts, so that the
+ * first requests after a deploy do not all pay the full load cost.
+ * The service reports itself as not ready until the warm-up completes or its deadline passes.
+ */
+public final class CacheWarmer {
+  private static final Logger logger = LoggerFactory.getLogger(CacheWarmer.class);
+  private static volatile boolean ready = true;
+
+  private final List<Integer> organizationIds;
+  private final int parallelism;
+  private final long deadlineMillis;
+
+  /**
+   * Constructs a cache warmer.
+   *
+   * @param organizationIds the organizations to preload, most active first
+   * @param parallelism the maximum number of organizations loaded at the same time
+   * @param deadlineMillis the time after which the service is reported ready regardless
+   */
+  public CacheWarmer(List<Integer> organizationIds, int parallelism, long deadlineMillis) {
+    this.organizationIds = List.copyOf(organizationIds);
+    this.parallelism = Math.max(1, parallelism);
+    this.deadlineMillis = deadlineMillis;
+  }
+
+  /**
+   * Creates a cache warmer from the system properties.
+   * The organizations are taken from cache.warmup.organizations (comma-separated IDs), or
+   * else from the access statistics saved in cache.warmup.statsFile by the last run.
+   * At most cache.warmup.count organizations are preloaded.
+   *
+   * @return the cache warmer, or null if there is nothing to preload
+   */
+  public static CacheWarmer fromSystemProperties() {
+    int count = Integer.getInteger("cache.warmup.count", 100);
+    List<Integer> organizationIds =
+        parseOrganizationIds(System.getProperty("cache.warmup.organizations", ""));
+    String statsFile = System.getProperty("cache.warmup.statsFile");
+    if (organizationIds.isEmpty() && statsFile != null) {
+      organizationIds = readStatistics(Path.of(statsFile));
+    }
+    if (organizationIds.isEmpty() || count <= 0) {
+      return null;
+    }
+    if (organizationIds.size() > count) {
+      organizationIds = organizationIds.subList(0, count);
+    }
+    return new CacheWarmer(organizationIds,
+        Integer.getInteger("cache.warmup.parallelism", 4),
+        Long.getLong("cache.warmup.deadlineMs", 60000L));
+  }
+
+  /**
+   * Returns true if the service is ready to serve traffic.
+   *
+   * @return false while a warm-up is running and its deadline has not passed, true otherwise
+   */
+  public static boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Starts the warm-up in the background and marks the service as not ready until it ends.
+   *
+   * @return the thread running the warm-up
+   */
+  public Thread start() {
+    ready = false;
+    Thread thread = new Thread(() -> {
+      try {
+        warmUp();
+      } finally {
+        ready = true;
+      }
+    }, "hr-cache-startup-warmup");
+    thread.setDaemon(true);
+    thread.start();
+    return thread;
+  }
+
+  /**
+   * Preloads the organizations and waits until they are loaded or the deadline passes.
+   * Organizations that fail to load are logged and skipped.
+   *
+   * @return true if every organization was loaded before the deadline, false otherwise
+   */
+  public boolean warmUp() {
+    long startTime = System.currentTimeMillis();
+    ExecutorService pool = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+      Thread thread = new Thread(runnable, "hr-cache-startup-warmup-worker");
+      thread.setDaemon(true);
+      return thread;
+    });
+    for (int organizationId : this.organizationIds) {
+      pool.execute(() -> {
+        try {
+          // Waits for the background load as well when lazy loading is enabled
+          HrDatabaseFacade.preload(organizationId);
+        } catch (RuntimeException e) {
+          logger.warn("Failed to preload organization {}", organizationId, e);
+        }
+      });
+    }
+    pool.shutdown();
+
+    boolean completed;
+    try {
+      completed = pool.awaitTermination(this.deadlineMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      completed = false;
+    }
+    if (completed) {
+      logger.info("Preloaded {} organizations in {} ms", this.organizationIds.size(),
+          System.currentTimeMillis() - startTime);
+    } else {
+      // The remaining loads keep running, but the service no longer waits for them
+      logger.warn("Cache warm-up did not complete within {} ms", this.deadlineMillis);
+    }
+    return completed;
+  }
+
+  /**
+   * Saves the IDs of the most accessed organizations, so that the next run preloads them.
+   *
+   * @param file the file to write
+   * @param limit the maximum number of organizations to save
+   */
+  public static void saveStatistics(Path file, int limit) {
+    List<String> lines = new ArrayList<>();
+    for (int organizationId : HrDatabaseFacade.getMostActiveOrganizations(limit)) {
+      lines.add(String.valueOf(organizationId));
+    }
+    try {
+      Files.write(file, lines, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      logger.warn("Failed to save the access statistics to {}", file, e);
+    }
+  }
+
+  /**
+   * Reads the organization IDs saved by {@link #saveStatistics(Path, int)}.
+   *
+   * @param file the file to read
+   * @return the organization IDs, or an empty list if the file cannot be read
+   */
+  static List<Integer> readStatistics(Path file) {
+    if (!Files.isReadable(file)) {
+      return List.of();
+    }
+    try {
+      return parseOrganizationIds(String.join(",", Files.readAllLines(file)));
+    } catch (IOException | IllegalArgumentException e) {
+      logger.warn("Failed to read the access statistics from {}", file, e);
+      return List.of();
+    }
+  }
+
+  /**
+   * Parses a comma-separated list of organization IDs, dropping duplicates.
+   *
+   * @param value the list to parse
+   * @return the organization IDs in their original order
+   * @throws IllegalArgumentException if an ID is not a number
+   */
+  static List<Integer> parseOrganizationIds(String value) {
+    Set<Integer> organizationIds = new LinkedHashSet<>();
+    for (String id : value.split(",")) {
+      String trimmed = id.trim();
+      if (!trimmed.isEmpty()) {
+        organizationIds.add(Integer.parseInt(trimmed));
+      }
+    }
+    return new ArrayList<>(organizationIds);
+  }
+}
@@ -1,6 +1,7 @@
 package dev.coms4156.project;
 
 import java.util.List;
+import java.util.function.BiConsumer;
 
 /**
  * Interface for interacting with the database.
@@ -23,6 +24,18 @@ public interface DatabaseConnection {
    */
   int addEmployeeToDepartment(int organizationId, int departmentId, Employee employee);
 
+  /**
+   * Adds new employees to departments in the database, all of them or none.
+   * The employees are given a block of consecutive IDs allocated once for all of them.
+   *
+   * @param organizationId the organization id
+   * @param departmentIds the internal department id of every employee
+   * @param employees the employees to add
+   * @return the internal ID of the first employee, the others follow in order, or -1 if failed
+   */
+  int addEmployeesToDepartments(
+      int organizationId, List<Integer> departmentIds, List<Employee> employees);
+
   /**
    * Returns an employee in a given organization by external ID.
    *
@@ -40,6 +53,16 @@ public interface DatabaseConnection {
    */
   List<Employee> getEmployees(int organizationId);
 
+  /**
+   * Passes every employee of an organization with its department to the sink, one at a time.
+   * The employees are not collected in memory, so the export of an organization of any size
+   * holds only a bounded number of employees and the departments.
+   *
+   * @param organizationId the organization id
+   * @param sink receives every employee with its department, or null if it has none
+   */
+  void exportEmployees(int organizationId, BiConsumer<Employee, Department> sink);
+
   /**
    * Updates an employee in the database.
    *
@@ -81,6 +104,19 @@ public interface DatabaseConnection {
    */
   Department getDepartment(int organizationId, int externalDepartmentId);
 
+  /**
+   * Returns a department with one page of its members, ordered by ascending external ID.
+   * Only the members of the page are read, the department is not loaded as a whole.
+   *
+   * @param organizationId the organization id (clientId)
+   * @param externalDepartmentId the external department id
+   * @param afterEmployeeId the external ID of the last member of the previous page, exclusive
+   * @param limit the maximum number of members of the page, 0 for none
+   * @return the page of the department if found, null otherwise
+   */
+  DepartmentPage getDepartmentPage(
+      int organizationId, int externalDepartmentId, int afterEmployeeId, int limit);
+
   /**
    * Returns a list of departments in a given organization.
    *
@@ -1,18 +1,92 @@
 package dev.coms4156.project;
 
-import java.util.ArrayList;
+import dev.coms4156.project.utils.CompensatedSum;
+import dev.coms4156.project.utils.IndexedList;
+import dev.coms4156.project.utils.IntHashMap;
+import dev.coms4156.project.utils.KllSketch;
+import dev.coms4156.project.utils.OrderStatisticTree;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.ListIterator;
 import java.util.Map;
+import java.util.function.IntFunction;
 
 /**
  * This class represents a department in the organization.
  * Designed under the Composite Design Pattern.
  */
 public class Department extends OrganizationComposite {
+  // Bound on the normalized rank error of the approximate quartiles
+  static final double SKETCH_RANK_ERROR =
+      Double.parseDouble(System.getProperty("stats.sketch.rankError", "0.01"));
+  // Half of the error budget goes to the sketches, the other half to removed members whose
+  // values stay in the sketches of their department until it rebuilds them
+  static final int SKETCH_K = KllSketch.accuracyForRankError(SKETCH_RANK_ERROR / 2);
+
+  // Departments outside of a cached tenant share the default position dictionary
+  private static final PositionDictionary DEFAULT_POSITIONS = new PositionDictionary();
+
   private Employee head;
-  private final List<Employee> employees;
+  private PositionDictionary positionDictionary = DEFAULT_POSITIONS;
+  // The members are the children of the department, held once
+  private final IndexedList<Employee> employees;
+  // Running aggregates over the members, kept in sync by every change of the list.
+  // Members are ranked highest first by salary and by performance. Every member joins with
+  // the next sequence number and keeps it when it is replaced, so ties are ranked in list
+  // order, and the entries of a member record the values it was ranked with.
+  private long nextOrder;
+  private final CompensatedSum salaryTotal;
+  private final OrderStatisticTree<Employee> membersBySalary;
+  private final CompensatedSum performanceTotal;
+  private final OrderStatisticTree<Employee> membersByPerformance;
+  private final Map<Employee, ArrayDeque<RankedEntry>> memberEntries = new IdentityHashMap<>();
+  // Quantile sketches of the members, built on first use and updated by every change after
+  private volatile MemberSketches sketches;
+  // Members sorted by ID for keyset pages, built on first use and dropped on every change
+  private volatile Employee[] membersById;
+
+  /**
+   * An entry of a member in the rankings.
+   *
+   * @param order the sequence number of the member, the handle of its entries
+   * @param salary the salary the member was ranked with
+   * @param performance the performance the member was ranked with
+   */
+  private record RankedEntry(long order, double salary, double performance) {
+  }
+
+  /**
+   * Quantile sketches of the salaries and the performance of the members.
+   * New members are added to the sketches as they join. A sketch cannot forget a value, so
+   * removed members are only counted, and the sketches are rebuilt once the removed values
+   * could move a quantile by more than half of {@link #SKETCH_RANK_ERROR}.
+   * Published departments share their sketches with readers, so only the department that
+   * owns the sketches updates them, and copies of the department copy them first.
+   */
+  private static final class MemberSketches {
+    private final KllSketch salaries;
+    private final KllSketch performances;
+    private long removed;
+
+    private MemberSketches(KllSketch salaries, KllSketch performances, long removed) {
+      this.salaries = salaries;
+      this.performances = performances;
+      this.removed = removed;
+    }
+
+    private MemberSketches copy() {
+      return new MemberSketches(this.salaries.copy(), this.performances.copy(), this.removed);
+    }
+
+    private boolean isStale(int members) {
+      return this.removed > SKETCH_RANK_ERROR / 2 * members;
+    }
+  }
 
   /**
    * Constructs a department with the given ID and name.
@@ -23,7 +97,11 @@ public class Department extends OrganizationComposite {
   public Department(int id, String name) {
     super(id, name);
     this.typeName = "Department";
-    this.employees = new ArrayList<>();
+    this.employees = new IndexedList<>();
+    this.salaryTotal = new CompensatedSum();
+    this.membersBySalary = new OrderStatisticTree<>(true);
+    this.performanceTotal = new CompensatedSum();
+    this.membersByPerformance = new OrderStatisticTree<>(true);
     this.head = null;
   }
 
@@ -37,8 +115,16 @@ public class Department extends OrganizationComposite {
   public Department(int id, String name, List<Employee> employees) {
     super(id, name);
     this.typeName = "Department";
-    this.employees = employees;
+    this.employees = new IndexedList<>();
+    this.salaryTotal = new CompensatedSum();
+    this.membersBySalary = new OrderStatisticTree<>(true);
+    this.performanceTotal = new CompensatedSum();
+    this.membersByPerformance = new OrderStatisticTree<>(true);
     this.head = null;
+    for (Employee employee : employees) {
+      this.employees.add(employee);
+      addToAggregates(employee);
+    }
   }
 
   /**
@@ -48,8 +134,9 @@ public class Department extends OrganizationComposite {
    * @return true if the employee is added successfully, false otherwise
    */
   public boolean addEmployee(Employee employee) {
-    this.employees.add(employee); // Add to employee list
-    return this.add(employee);
+    this.employees.add(employee);
+    addToAggregates(employee);
+    return true;
   }
 
   /**
@@ -59,19 +146,233 @@ public class Department extends OrganizationComposite {
    * @return true if the employee is removed successfully, false otherwise
    */
   public boolean removeEmployee(Employee employee) {
-    this.employees.remove(employee); // Remove from employee list
-    return this.remove(employee);
+    if (this.employees.remove(employee)) {
+      removeFromAggregates(employee);
+      return true;
+    }
+    return false;
   }
 
   /**
    * Returns the list of employees in the department.
+   * Members are added and removed through the department so that its aggregates stay in sync.
    *
-   * @return the list of employees
+   * @return an unmodifiable view of the list of employees
    */
   public List<Employee> getEmployees() {
-    // We choose to return the list itself, not a copy, for performance reasons
+    // We choose to return a view of the list, not a copy, for performance reasons
     // caller can make the decision to copy the list if needed
-    return this.employees;
+    return Collections.unmodifiableList(this.employees);
+  }
+
+  /**
+   * Returns a page of the members ordered by ascending ID, starting after the given ID.
+   * The members are sorted once and kept until the department changes, so every page is
+   * found by a binary search over that order.
+   *
+   * @param afterEmployeeId the ID of the last member of the previous page, exclusive
+   * @param limit the maximum number of members to return
+   * @return the members with an ID greater than afterEmployeeId, at most limit of them
+   */
+  public List<Employee> getEmployeePage(int afterEmployeeId, int limit) {
+    Employee[] sorted = this.membersById;
+    if (sorted == null) {
+      sorted = this.employees.toArray(new Employee[0]);
+      Arrays.sort(sorted, Comparator.comparingInt(Employee::getId));
+      this.membersById = sorted;
+    }
+    // Find the first member with an ID greater than afterEmployeeId
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sorted[middle].getId() <= afterEmployeeId) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    int end = (int) Math.min(sorted.length, (long) low + Math.max(limit, 0));
+    return Collections.unmodifiableList(Arrays.asList(sorted).subList(low, end));
+  }
+
+  /**
+   * Returns the members of the department as its children.
+   *
+   * @return an unmodifiable view of the members
+   */
+  @Override
+  public List<OrganizationComponent> getChildren() {
+    return Collections.unmodifiableList(this.employees);
+  }
+
+  /**
+   * Replaces the member with the same ID as the given employee by the given instance.
+   *
+   * @param employee the new instance of an existing member
+   * @return true if a member was replaced, false otherwise
+   */
+  boolean replaceEmployee(Employee employee) {
+    IntHashMap<Employee> replacement = new IntHashMap<>(1);
+    replacement.put(employee.getId(), employee);
+    return shareEmployees(replacement);
+  }
+
+  /**
+   * Replaces a member instance by a new instance of the same employee. The member is found
+   * through the identity index of the members instead of a scan of the department.
+   *
+   * @param previous the member instance to replace
+   * @param employee the new instance of the member
+   * @return true if a member was replaced, false otherwise
+   */
+  boolean replaceEmployee(Employee previous, Employee employee) {
+    int position = this.employees.indexOf(previous);
+    if (position < 0) {
+      return replaceEmployee(employee);
+    }
+    this.employees.set(position, employee);
+    addToAggregates(employee, removeFromAggregates(previous));
+    if (this.head != null && this.head.getId() == employee.getId()) {
+      this.head = employee;
+    }
+    return true;
+  }
+
+  /**
+   * Replaces every member (and the head) by the canonical instance with the same ID,
+   * so that the department shares its Employee objects with the organization-wide list.
+   *
+   * @param canonical the canonical employees keyed by their ID
+   * @return true if any member was replaced, false otherwise
+   */
+  boolean shareEmployees(IntHashMap<Employee> canonical) {
+    return shareEmployees((IntFunction<Employee>) canonical::get);
+  }
+
+  /**
+   * Replaces every member (and the head) by the canonical instance with the same ID.
+   *
+   * @param canonical looks up the canonical employee of an ID, null if there is none
+   * @return true if any member was replaced, false otherwise
+   */
+  boolean shareEmployees(IntFunction<Employee> canonical) {
+    boolean replaced = false;
+    for (ListIterator<Employee> it = this.employees.listIterator(); it.hasNext(); ) {
+      Employee member = it.next();
+      Employee shared = canonical.apply(member.getId());
+      if (shared != null && shared != member) {
+        it.set(shared);
+        addToAggregates(shared, removeFromAggregates(member));
+        replaced = true;
+      }
+    }
+    if (this.head != null) {
+      Employee shared = canonical.apply(this.head.getId());
+      if (shared != null) {
+        this.head = shared;
+      }
+    }
+    return replaced;
+  }
+
+  /**
+   * Adds a new member to the salary and performance aggregates, after the current members.
+   *
+   * @param employee the new member
+   */
+  private void addToAggregates(Employee employee) {
+    addToAggregates(employee, this.nextOrder++);
+  }
+
+  /**
+   * Adds a member to the salary and performance aggregates at the given place among ties.
+   *
+   * @param employee the member
+   * @param order the sequence number of the member
+   */
+  private void addToAggregates(Employee employee, long order) {
+    this.membersById = null;
+    RankedEntry entry = new RankedEntry(order, employee.getSalary(), employee.getPerformance());
+    MemberSketches sketches = this.sketches;
+    if (sketches != null) {
+      sketches.salaries.update(entry.salary());
+      sketches.performances.update(entry.performance());
+    }
+    this.memberEntries.computeIfAbsent(employee, member -> new ArrayDeque<>(1)).add(entry);
+    this.salaryTotal.add(entry.salary());
+    this.membersBySalary.insert(entry.salary(), order, employee);
+    this.performanceTotal.add(entry.performance());
+    this.membersByPerformance.insert(entry.performance(), order, employee);
+  }
+
+  /**
+   * Removes the first occurrence of a member from the salary and performance aggregates.
+   * The entry records the values the member was ranked with, so it is found in O(log n).
+   *
+   * @param employee the removed member
+   * @return the sequence number of the removed occurrence
+   */
+  private long removeFromAggregates(Employee employee) {
+    this.membersById = null;
+    MemberSketches sketches = this.sketches;
+    if (sketches != null) {
+      sketches.removed++;
+    }
+    ArrayDeque<RankedEntry> entries = this.memberEntries.get(employee);
+    RankedEntry entry = entries.poll();
+    if (entries.isEmpty()) {
+      this.memberEntries.remove(employee);
+    }
+    this.membersBySalary.remove(entry.salary(), entry.order());
+    this.membersByPerformance.remove(entry.performance(), entry.order());
+    if (this.employees.isEmpty()) {
+      // Start over from an exact zero
+      this.salaryTotal.clear();
+      this.performanceTotal.clear();
+    } else {
+      this.salaryTotal.add(-entry.salary());
+      this.performanceTotal.add(-entry.performance());
+    }
+    return entry.order();
+  }
+
+  /**
+   * Returns a copy of the department that can be modified without affecting this instance.
+   * The copy has its own member list but shares the Employee objects with this department.
+   *
+   * @return the copy of the department
+   */
+  public Department copy() {
+    return new Department(this);
+  }
+
+  /**
+   * Constructs a copy of a department. The member list, the salary aggregates and the
+   * performance ranking are copied as they are instead of being rebuilt member by member,
+   * and the caches built from the members are shared since the copy has the same members.
+   * The sketches are copied as well, because the copy updates them as its members change.
+   *
+   * @param source the department to copy
+   */
+  private Department(Department source) {
+    super(source.id, source.name);
+    this.typeName = "Department";
+    this.employees = source.employees.copy();
+    this.head = source.head;
+    this.positionDictionary = source.positionDictionary;
+    this.nextOrder = source.nextOrder;
+    this.salaryTotal = source.salaryTotal.copy();
+    this.performanceTotal = source.performanceTotal.copy();
+    // The cloned rankings keep their handles, so the ranked entries stay valid as they are
+    this.membersBySalary = source.membersBySalary.copy();
+    this.membersByPerformance = source.membersByPerformance.copy();
+    for (Map.Entry<Employee, ArrayDeque<RankedEntry>> entry : source.memberEntries.entrySet()) {
+      this.memberEntries.put(entry.getKey(), new ArrayDeque<>(entry.getValue()));
+    }
+    MemberSketches sketches = source.sketches;
+    this.sketches = sketches == null ? null : sketches.copy();
+    this.membersById = source.membersById;
   }
 
   /**
@@ -100,16 +401,42 @@ public class Department extends OrganizationComposite {
    * @return a Map of the statistic that can be easily converted to JSON
    */
   public Map<String, Integer> getEmployeePositionStatisticMap() {
-    Map<String, Integer> result = new HashMap<>();
+    PositionDictionary dictionary = this.positionDictionary;
+    int[] counts = new int[dictionary.size()];
     for (Employee e : this.employees) {
-      String position = e.getPosition();
-      position = (position == null || position.trim().isEmpty())
-          ? "unassigned" : position.trim().toLowerCase(Locale.getDefault());
-      result.put(position, result.getOrDefault(position, 0) + 1);
+      int code = e.getPositionCode(dictionary);
+      if (code >= counts.length) {
+        counts = Arrays.copyOf(counts, dictionary.size());
+      }
+      counts[code]++;
+    }
+    Map<String, Integer> result = new HashMap<>();
+    for (int code = 0; code < counts.length; code++) {
+      if (counts[code] > 0) {
+        result.put(dictionary.positionOf(code), counts[code]);
+      }
     }
     return result;
   }
 
+  /**
+   * Returns the position dictionary the department encodes positions with.
+   *
+   * @return the position dictionary
+   */
+  PositionDictionary getPositionDictionary() {
+    return this.positionDictionary;
+  }
+
+  /**
+   * Sets the position dictionary of the tenant the department belongs to.
+   *
+   * @param positionDictionary the position dictionary
+   */
+  void setPositionDictionary(PositionDictionary positionDictionary) {
+    this.positionDictionary = positionDictionary;
+  }
+
   /**
    * Returns a statistic of the employees' salaries in the department.
    *
@@ -127,28 +454,13 @@ public class Department extends OrganizationComposite {
       return emptyResult;
     }
 
-    double totalSalary = 0.0;
-    double highestSalary = Double.NEGATIVE_INFINITY;
-    double lowestSalary = Double.POSITIVE_INFINITY;
-    Employee highestEmployee = this.employees.get(0);
-    Employee lowestEmployee = this.employees.get(0);
-
-    for (Employee e : this.employees) {
-      double salary = e.getSalary();
-
-      totalSalary += salary;
-
-      if (salary > highestSalary) {
-        highestSalary = salary;
-        highestEmployee = e;
-      }
-
-      if (salary < lowestSalary) {
-        lowestSalary = salary;
-        lowestEmployee = e;
-      }
-    }
-
+    // Read from the running aggregates, ties go to the member that comes first in the list
+    OrderStatisticTree<Employee> ranking = this.membersBySalary;
+    double totalSalary = this.salaryTotal.value();
+    double highestSalary = ranking.keyAt(0);
+    double lowestSalary = ranking.keyAt(ranking.size() - 1);
+    Employee highestEmployee = ranking.get(0);
+    Employee lowestEmployee = ranking.get(ranking.rankOf(lowestSalary));
     double averageSalary = totalSalary / this.employees.size();
 
     Map<String, Object> result = new HashMap<>();
@@ -161,6 +473,18 @@ public class Department extends OrganizationComposite {
     return result;
   }
 
+  /**
+   * Returns a statistic of the employees' salaries in the department, including approximate
+   * quartiles read from a quantile sketch.
+   *
+   * @return a Map of the statistic that can be easily converted to JSON
+   */
+  public Map<String, Object> getApproximateSalaryStatisticMap() {
+    Map<String, Object> result = getEmployeeSalaryStatisticMap();
+    putApproximateQuartiles(result, getSalarySketch());
+    return result;
+  }
+
   /**
    * Returns a statistic of the employees' performance in the department.
    *
@@ -180,28 +504,21 @@ public class Department extends OrganizationComposite {
       return result;
     }
 
-    List<Double> performances = new ArrayList<>();
-    for (Employee e : this.employees) {
-      performances.add(e.getPerformance());
-    }
-    performances.sort(Double::compareTo);
-
-    int size = performances.size();
-    double highest = performances.get(size - 1);
-    double lowest = performances.get(0);
+    // Read from the performance ranking, which lists the highest performance first
+    OrderStatisticTree<Employee> ranking = this.membersByPerformance;
+    int size = ranking.size();
+    double highest = ranking.keyAt(0);
+    double lowest = ranking.keyAt(size - 1);
     double median = size % 2 == 0
-        ? (performances.get(size / 2 - 1) + performances.get(size / 2)) / 2
-        : performances.get(size / 2);
+        ? (ascendingPerformance(size / 2 - 1) + ascendingPerformance(size / 2)) / 2
+        : ascendingPerformance(size / 2);
 
     // Calculate quartiles safely
-    double q1 = size < 4 ? lowest : performances.get(Math.max(0, (size - 1) / 4));
-    double q3 = size < 4 ? highest : performances.get(Math.min(size - 1, (size - 1) * 3 / 4));
+    double q1 = size < 4 ? lowest : ascendingPerformance(Math.max(0, (size - 1) / 4));
+    double q3 = size < 4 ? highest
+        : ascendingPerformance(Math.min(size - 1, (size - 1) * 3 / 4));
 
-    // Calculate average
-    double average = performances.stream()
-        .mapToDouble(Double::doubleValue)
-        .average()
-        .orElse(0.0);
+    double average = this.performanceTotal.value() / size;
 
     result.put("highest", highest);
     result.put("percentile25", q1);
@@ -210,16 +527,119 @@ public class Department extends OrganizationComposite {
     result.put("lowest", lowest);
     result.put("average", average);
 
-    // Sort employees by performance (descending) and get their IDs
-    int[] sortedIds = this.employees.stream()
-        .sorted((e1, e2) -> Double.compare(e2.getPerformance(), e1.getPerformance()))
-        .mapToInt(Employee::getId)
-        .toArray();
+    // Employee IDs by performance (descending), ties in list order
+    int[] sortedIds = new int[size];
+    int[] position = {0};
+    ranking.forEachValue(employee -> sortedIds[position[0]++] = employee.getId());
     result.put("sortedEmployeeIds", sortedIds);
 
     return result;
   }
 
+  /**
+   * Returns a statistic of the employees' performance in the department, with the quartiles
+   * approximated by a quantile sketch instead of the exact ranking.
+   * The extremes are read from the ranking, since the sketch may still hold removed values.
+   * The ranking of the employees is not included.
+   *
+   * @return a Map of the statistic that can be easily converted to JSON
+   */
+  public Map<String, Object> getApproximatePerformanceStatisticMap() {
+    Map<String, Object> result = new HashMap<>();
+    OrderStatisticTree<Employee> ranking = this.membersByPerformance;
+    boolean empty = ranking.size() == 0;
+    result.put("highest", empty ? 0.0 : ranking.keyAt(0));
+    result.put("lowest", empty ? 0.0 : ranking.keyAt(ranking.size() - 1));
+    result.put("average", empty ? 0.0 : this.performanceTotal.value() / ranking.size());
+    putApproximateQuartiles(result, getPerformanceSketch());
+    return result;
+  }
+
+  /**
+   * Adds the approximate quartiles of the sketch and the bound on their rank error to the
+   * statistic.
+   *
+   * @param result the statistic to add to
+   * @param sketch the sketch of the values
+   */
+  static void putApproximateQuartiles(Map<String, Object> result, KllSketch sketch) {
+    boolean empty = sketch.getCount() == 0;
+    result.put("percentile25", empty ? 0.0 : sketch.getQuantile(0.25));
+    result.put("median", empty ? 0.0 : sketch.getQuantile(0.5));
+    result.put("percentile75", empty ? 0.0 : sketch.getQuantile(0.75));
+    result.put("rankError", SKETCH_RANK_ERROR);
+  }
+
+  /**
+   * Returns the members ranked by performance, highest first.
+   * The ranking is shared, callers must not modify it.
+   *
+   * @return the performance ranking
+   */
+  OrderStatisticTree<Employee> getPerformanceRanking() {
+    return this.membersByPerformance;
+  }
+
+  /**
+   * Returns the members ranked by salary, highest first.
+   * The ranking is shared, callers must not modify it.
+   *
+   * @return the salary ranking
+   */
+  OrderStatisticTree<Employee> getSalaryRanking() {
+    return this.membersBySalary;
+  }
+
+  /**
+   * Returns the quantile sketch of the members' performance.
+   * The sketch is shared, callers must merge it into their own sketch instead of updating it.
+   *
+   * @return the performance sketch
+   */
+  KllSketch getPerformanceSketch() {
+    return currentSketches().performances;
+  }
+
+  /**
+   * Returns the quantile sketch of the members' salaries.
+   * The sketch is shared, callers must merge it into their own sketch instead of updating it.
+   *
+   * @return the salary sketch
+   */
+  KllSketch getSalarySketch() {
+    return currentSketches().salaries;
+  }
+
+  /**
+   * Returns the sketches of the members, building them when they are missing or when too
+   * many removed members are left in them.
+   */
+  private MemberSketches currentSketches() {
+    MemberSketches sketches = this.sketches;
+    if (sketches == null || sketches.isStale(this.employees.size())) {
+      KllSketch salaries = new KllSketch(SKETCH_K);
+      KllSketch performances = new KllSketch(SKETCH_K);
+      for (Employee employee : this.employees) {
+        salaries.update(employee.getSalary());
+        performances.update(employee.getPerformance());
+      }
+      sketches = new MemberSketches(salaries, performances, 0);
+      this.sketches = sketches;
+    }
+    return sketches;
+  }
+
+  /**
+   * Returns the performance at the given position of the members sorted by ascending
+   * performance.
+   *
+   * @param index the position in ascending order
+   * @return the performance at the position
+   */
+  private double ascendingPerformance(int index) {
+    return this.membersByPerformance.keyAt(this.membersByPerformance.size() - 1 - index);
+  }
+
   /**
    * Report all the information of the department in a JSON format.
    *
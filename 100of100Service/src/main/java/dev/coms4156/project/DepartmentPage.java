@@ -0,0 +1,74 @@
+package dev.coms4156.project;
+
+import java.util.List;
+
+/**
+ * A department with one page of its members, ordered by ascending employee ID.
+ * Pages are addressed by keyset: the next page starts after the ID of the last member of
+ * this one, so a page costs the same wherever it lies and is not shifted by concurrent
+ * additions or removals.
+ *
+ * @param id the external ID of the department
+ * @param name the name of the department
+ * @param head the head of the department, or null if it has none
+ * @param employeeCount the number of members of the whole department
+ * @param employees the members of the page
+ * @param nextCursor the ID to start the next page after, or null if this is the last page
+ */
+public record DepartmentPage(
+    int id, String name, Employee head, int employeeCount,
+    List<Employee> employees, Integer nextCursor
+) {
+
+  /**
+   * Returns a page of the members of a department.
+   *
+   * @param department the department
+   * @param afterEmployeeId the ID of the last member of the previous page, exclusive
+   * @param limit the maximum number of members of the page, 0 for none
+   * @return the page of the department
+   */
+  public static DepartmentPage of(Department department, int afterEmployeeId, int limit) {
+    if (limit <= 0) {
+      return new DepartmentPage(department.getId(), department.getName(), department.getHead(),
+          department.getEmployees().size(), List.of(), null);
+    }
+    // Read one more member than requested to tell whether another page follows
+    List<Employee> members = department.getEmployeePage(afterEmployeeId, limitPlusOne(limit));
+    return of(department.getId(), department.getName(), department.getHead(),
+        department.getEmployees().size(), members, limit);
+  }
+
+  /**
+   * Returns a page from the members read for it, which hold one extra member if another
+   * page follows.
+   *
+   * @param id the external ID of the department
+   * @param name the name of the department
+   * @param head the head of the department, or null if it has none
+   * @param employeeCount the number of members of the whole department
+   * @param members the members read for the page, at most limit + 1 of them
+   * @param limit the maximum number of members of the page
+   * @return the page of the department
+   */
+  static DepartmentPage of(
+      int id, String name, Employee head, int employeeCount, List<Employee> members, int limit
+  ) {
+    if (members.size() <= limit) {
+      return new DepartmentPage(id, name, head, employeeCount, members, null);
+    }
+    List<Employee> page = members.subList(0, limit);
+    return new DepartmentPage(id, name, head, employeeCount, page,
+        page.get(limit - 1).getId());
+  }
+
+  /**
+   * Returns the number of members to read for a page of the given size.
+   *
+   * @param limit the maximum number of members of the page
+   * @return limit + 1, saturated at Integer.MAX_VALUE
+   */
+  static int limitPlusOne(int limit) {
+    return limit == Integer.MAX_VALUE ? limit : limit + 1;
+  }
+}
@@ -8,15 +8,29 @@ import java.util.Map;
 
 /**
  * This class represents an employee in the organization.
+ * Employees are immutable: a change returns a new instance, so an employee can be shared by
+ * snapshots and read by any thread without copying it first.
  * Designed under the Composite Design Pattern.
  */
-public class Employee implements OrganizationComponent {
+public final class Employee implements OrganizationComponent {
   private final int id;
   private final String name;
   private final Date hireDate;
-  private String position;
-  private double salary;
-  private double performance;
+  private final String position;
+  // The normalized position, and its code in the dictionary it was last encoded with
+  private final String positionKey;
+  private volatile PositionCode positionCode;
+  private final double salary;
+  private final double performance;
+
+  /**
+   * The code of a position in a dictionary.
+   *
+   * @param dictionary the dictionary the code belongs to
+   * @param code the code of the position
+   */
+  private record PositionCode(PositionDictionary dictionary, int code) {
+  }
 
   /**
    * Constructs an employee with the given ID, name, and hire date.
@@ -34,6 +48,7 @@ public class Employee implements OrganizationComponent {
       this.hireDate = new Date(hireDate.getTime());
     }
     this.position = "Other";
+    this.positionKey = PositionDictionary.normalize(this.position);
     this.salary = 0;
     this.performance = 0;
   }
@@ -64,10 +79,47 @@ public class Employee implements OrganizationComponent {
     } else {
       this.position = position;
     }
+    this.positionKey = PositionDictionary.normalize(this.position);
+    this.salary = salary;
+    this.performance = performance;
+  }
+
+  /**
+   * Constructs a changed instance of an employee, sharing its ID, name and hire date.
+   *
+   * @param base the employee to change
+   * @param position the position, kept as it is
+   * @param salary the salary
+   * @param performance the performance
+   */
+  private Employee(Employee base, String position, double salary, double performance) {
+    this.id = base.id;
+    this.name = base.name;
+    this.hireDate = base.hireDate;
+    this.position = position;
+    this.positionKey = PositionDictionary.normalize(position);
     this.salary = salary;
     this.performance = performance;
   }
 
+  /**
+   * Returns an employee as stored by a database connection. Unlike the full constructor the
+   * position is kept as it is, even if it is null or empty.
+   *
+   * @param id the ID of the employee (external ID)
+   * @param name the name of the employee
+   * @param hireDate the hire date of the employee
+   * @param position the stored position of the employee
+   * @param salary the current salary of the employee
+   * @param performance the performance of the employee
+   * @return the employee
+   */
+  static Employee stored(
+      int id, String name, Date hireDate, String position, double salary, double performance
+  ) {
+    return new Employee(new Employee(id, name, hireDate), position, salary, performance);
+  }
+
   /**
    * Returns the ID of the employee.
    *
@@ -127,12 +179,30 @@ public class Employee implements OrganizationComponent {
   }
 
   /**
-   * Sets the position of the employee.
+   * Returns the employee with another position.
    *
-   * @param position the position of the employee
+   * @param position the new position of the employee, kept as it is
+   * @return the changed employee
    */
-  public void setPosition(String position) {
-    this.position = position;
+  public Employee withPosition(String position) {
+    return new Employee(this, position, this.salary, this.performance);
+  }
+
+  /**
+   * Returns the code of the normalized position of the employee in the given dictionary.
+   * The code is looked up once and kept while the dictionary stays the same.
+   *
+   * @param dictionary the position dictionary of the tenant
+   * @return the position code
+   */
+  int getPositionCode(PositionDictionary dictionary) {
+    PositionCode cached = this.positionCode;
+    if (cached != null && cached.dictionary() == dictionary) {
+      return cached.code();
+    }
+    int code = dictionary.codeOf(this.positionKey);
+    this.positionCode = new PositionCode(dictionary, code);
+    return code;
   }
 
   /**
@@ -145,12 +215,13 @@ public class Employee implements OrganizationComponent {
   }
 
   /**
-   * Sets the salary of the employee.
+   * Returns the employee with another salary.
    *
    * @param salary the new salary of the employee
+   * @return the changed employee
    */
-  public void setSalary(double salary) {
-    this.salary = salary;
+  public Employee withSalary(double salary) {
+    return new Employee(this, this.position, salary, this.performance);
   }
 
   /**
@@ -163,12 +234,13 @@ public class Employee implements OrganizationComponent {
   }
 
   /**
-   * Sets the performance of the employee.
+   * Returns the employee with another performance.
    *
    * @param performance the new performance of the employee
+   * @return the changed employee
    */
-  public void setPerformance(double performance) {
-    this.performance = performance;
+  public Employee withPerformance(double performance) {
+    return new Employee(this, this.position, this.salary, performance);
   }
 
   /**
@@ -0,0 +1,260 @@
+package dev.coms4156.project;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.coms4156.project.exception.BadRequestException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * The rows of a bulk employee import, parsed from NDJSON or CSV and validated one by one.
+ * Valid rows are kept to be added in one batch, invalid rows are reported with their line
+ * and the reason they were rejected. The columns are those of {@link OrganizationExport},
+ * columns that do not describe a new employee (such as its ID) are ignored, so an export
+ * can be imported into another organization.
+ */
+public final class EmployeeImport {
+  private static final int MAX_ROWS = Integer.getInteger("import.maxRows", 5000);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final String[] REQUIRED_COLUMNS = {"departmentId", "name", "hireDate"};
+
+  private final List<Integer> departmentIds = new ArrayList<>();
+  private final List<Employee> employees = new ArrayList<>();
+  private final List<Map<String, Object>> errors = new ArrayList<>();
+  private List<Employee> imported = List.of();
+
+  private EmployeeImport() {
+  }
+
+  /**
+   * Parses and validates the rows of an import.
+   *
+   * @param format the format of the body
+   * @param body the rows, one per line, CSV starting with a header line
+   * @param departmentExists tells whether a department ID exists in the organization
+   * @return the valid rows and the errors of the invalid ones
+   * @throws BadRequestException if the body has no rows, too many rows or no CSV header
+   */
+  public static EmployeeImport parse(
+      OrganizationExport.Format format, String body, IntPredicate departmentExists
+  ) {
+    EmployeeImport result = new EmployeeImport();
+    String[] lines = body == null ? new String[0] : body.split("\r?\n");
+    String[] header = null;
+    int rows = 0;
+    for (int i = 0; i < lines.length; i++) {
+      if (lines[i].isBlank()) {
+        continue;
+      }
+      if (format == OrganizationExport.Format.CSV && header == null) {
+        header = splitCsv(lines[i]);
+        for (String column : REQUIRED_COLUMNS) {
+          if (!List.of(header).contains(column)) {
+            throw new BadRequestException("Missing CSV column: " + column);
+          }
+        }
+        continue;
+      }
+      if (++rows > MAX_ROWS) {
+        throw new BadRequestException("Too many rows, at most " + MAX_ROWS + " per import");
+      }
+      int line = i + 1;
+      try {
+        Map<String, String> fields = format == OrganizationExport.Format.CSV
+            ? csvFields(header, lines[i]) : ndjsonFields(lines[i]);
+        result.add(fields, departmentExists);
+      } catch (IllegalArgumentException e) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("line", line);
+        error.put("message", e.getMessage());
+        result.errors.add(error);
+      }
+    }
+    if (rows == 0) {
+      throw new BadRequestException("No employees to import");
+    }
+    return result;
+  }
+
+  /**
+   * Validates a row and keeps it if it is valid.
+   *
+   * @param fields the non-empty fields of the row by column
+   * @param departmentExists tells whether a department ID exists in the organization
+   * @throws IllegalArgumentException if the row is invalid
+   */
+  private void add(Map<String, String> fields, IntPredicate departmentExists) {
+    int departmentId = (int) parseNumber(fields, "departmentId", Double.NaN);
+    if (!departmentExists.test(departmentId)) {
+      throw new IllegalArgumentException("Department [" + departmentId + "] not found");
+    }
+    String name = fields.get("name");
+    if (name == null || name.isBlank()) {
+      throw new IllegalArgumentException("Missing name");
+    }
+    String hireDate = fields.get("hireDate");
+    if (hireDate == null) {
+      throw new IllegalArgumentException("Missing hireDate");
+    }
+    Date parsedHireDate;
+    try {
+      parsedHireDate = Date.from(
+          LocalDate.parse(hireDate).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Invalid date format. Expected yyyy-MM-dd.");
+    }
+    String position = fields.getOrDefault("position", "");
+    double salary = parseNumber(fields, "salary", 0);
+    double performance = parseNumber(fields, "performance", 0);
+
+    this.departmentIds.add(departmentId);
+    this.employees.add(new Employee(-1, name, parsedHireDate, position, salary, performance));
+  }
+
+  private static double parseNumber(Map<String, String> fields, String column, double absent) {
+    String value = fields.get(column);
+    if (value == null) {
+      if (Double.isNaN(absent)) {
+        throw new IllegalArgumentException("Missing " + column);
+      }
+      return absent;
+    }
+    double number;
+    try {
+      number = Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid " + column + ": " + value);
+    }
+    if (!Double.isFinite(number)
+        || ("departmentId".equals(column) && number != Math.rint(number))) {
+      throw new IllegalArgumentException("Invalid " + column + ": " + value);
+    }
+    return number;
+  }
+
+  private static Map<String, String> ndjsonFields(String line) {
+    JsonNode node;
+    try {
+      node = MAPPER.readTree(line);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Malformed JSON");
+    }
+    if (node == null || !node.isObject()) {
+      throw new IllegalArgumentException("Not a JSON object");
+    }
+    Map<String, String> fields = new HashMap<>();
+    node.fields().forEachRemaining(field -> {
+      if (!field.getValue().isNull()) {
+        fields.put(field.getKey(), field.getValue().asText());
+      }
+    });
+    return fields;
+  }
+
+  private static Map<String, String> csvFields(String[] header, String line) {
+    String[] values = splitCsv(line);
+    if (values.length != header.length) {
+      throw new IllegalArgumentException(
+          "Expected " + header.length + " fields but found " + values.length);
+    }
+    Map<String, String> fields = new HashMap<>();
+    for (int i = 0; i < header.length; i++) {
+      if (!values[i].isEmpty()) {
+        fields.put(header[i], values[i]);
+      }
+    }
+    return fields;
+  }
+
+  /**
+   * Splits a CSV line into its fields, unquoting quoted fields (RFC 4180).
+   * Fields cannot span lines.
+   *
+   * @param line the line
+   * @return the fields of the line
+   */
+  static String[] splitCsv(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields.toArray(new String[0]);
+  }
+
+  /**
+   * Returns the department ID of every valid row.
+   *
+   * @return the department IDs, in the order of the rows
+   */
+  public List<Integer> getDepartmentIds() {
+    return this.departmentIds;
+  }
+
+  /**
+   * Returns the employee of every valid row, without an ID.
+   *
+   * @return the employees, in the order of the rows
+   */
+  public List<Employee> getEmployees() {
+    return this.employees;
+  }
+
+  /**
+   * Returns the employees that were added, with their IDs.
+   *
+   * @return the added employees, empty until the import is applied
+   */
+  public List<Employee> getImported() {
+    return this.imported;
+  }
+
+  /**
+   * Records the employees that were added for the valid rows.
+   *
+   * @param imported the added employees, in the order of the rows
+   */
+  public void setImported(List<Employee> imported) {
+    this.imported = imported;
+  }
+
+  /**
+   * Report the result of the import in a JSON format.
+   *
+   * @return a Map of the IDs of the added employees and of the errors of the rejected rows
+   */
+  public Map<String, Object> toJson() {
+    Map<String, Object> result = new HashMap<>();
+    result.put("imported", this.imported.size());
+    result.put("employeeIds", this.imported.stream().map(Employee::getId).toList());
+    result.put("errors", this.errors);
+    return result;
+  }
+}
@@ -0,0 +1,440 @@
+package dev.coms4156.project;
+
+import dev.coms4156.project.utils.PersistentIntMap;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A columnar table of the employees of an organization.
+ * Every attribute is held in its own primitive array, so statistics scan contiguous memory
+ * in tight loops instead of following a pointer per employee. Positions are stored as codes
+ * of the position dictionary of the organization, hire dates as days since 1970-01-01 UTC,
+ * and departments by ID.
+ * The rows are split into chunks of {@link #CHUNK_SIZE}. A table is never modified: a
+ * {@link Builder} copies only the chunks that a change touches, and the new table shares the
+ * other chunks with the previous one, so a cache keeps the table in sync with every write
+ * instead of building it again. Rows are dense; removing a row moves the last row into it.
+ * Each chunk keeps the statistic rollup of its rows once computed, so the statistics of a
+ * new table only scan the chunks that changed.
+ * This class is immutable and thread-safe.
+ */
+public final class EmployeeTable {
+  // Marks an employee without a department in the department column
+  public static final int NO_DEPARTMENT = -1;
+  // Number of rows in a chunk, the unit that is copied by a change
+  static final int CHUNK_SIZE = 1 << 10;
+  private static final int CHUNK_SHIFT = 10;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final long MILLIS_PER_DAY = 86_400_000L;
+
+  private final Chunk[] chunks;
+  private final int size;
+  // Row of every employee by ID
+  private final PersistentIntMap<Integer> rows;
+  private final PositionDictionary positions;
+  // Statistic rollup of the whole table, computed on first use
+  private volatile StatisticRollup statisticRollup;
+
+  /**
+   * A run of consecutive rows. The columns grow up to CHUNK_SIZE rows as rows are appended.
+   * A chunk is modified in place only by the builder that owns it, before it is published.
+   */
+  private static final class Chunk {
+    final Object owner;
+    int[] ids;
+    double[] salaries;
+    double[] performances;
+    int[] hireDays;
+    int[] positionCodes;
+    int[] departmentIds;
+    int size;
+    volatile StatisticRollup statisticRollup;
+
+    Chunk(Object owner, int capacity) {
+      this.owner = owner;
+      this.ids = new int[capacity];
+      this.salaries = new double[capacity];
+      this.performances = new double[capacity];
+      this.hireDays = new int[capacity];
+      this.positionCodes = new int[capacity];
+      this.departmentIds = new int[capacity];
+    }
+
+    Chunk copy(Object owner, int capacity) {
+      Chunk copy = new Chunk(owner, 0);
+      copy.ids = Arrays.copyOf(this.ids, capacity);
+      copy.salaries = Arrays.copyOf(this.salaries, capacity);
+      copy.performances = Arrays.copyOf(this.performances, capacity);
+      copy.hireDays = Arrays.copyOf(this.hireDays, capacity);
+      copy.positionCodes = Arrays.copyOf(this.positionCodes, capacity);
+      copy.departmentIds = Arrays.copyOf(this.departmentIds, capacity);
+      copy.size = this.size;
+      return copy;
+    }
+  }
+
+  private EmployeeTable(
+      Chunk[] chunks, int size, PersistentIntMap<Integer> rows, PositionDictionary positions
+  ) {
+    this.chunks = chunks;
+    this.size = size;
+    this.rows = rows;
+    this.positions = positions;
+  }
+
+  /**
+   * Returns the empty table.
+   *
+   * @param positions the position dictionary that encodes the positions of the table
+   * @return the empty table
+   */
+  public static EmployeeTable empty(PositionDictionary positions) {
+    return new EmployeeTable(new Chunk[0], 0, PersistentIntMap.empty(), positions);
+  }
+
+  /**
+   * Builds the table of the members of the departments, one row per member.
+   *
+   * @param departments the departments
+   * @param positions the position dictionary that encodes the positions of the table
+   * @return the table of the members
+   */
+  public static EmployeeTable of(List<Department> departments, PositionDictionary positions) {
+    Builder builder = new Builder(positions);
+    for (Department department : departments) {
+      for (Employee member : department.getEmployees()) {
+        builder.put(member, department.getId());
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns a builder that starts from the rows of this table. The table is not modified.
+   *
+   * @return a new builder
+   */
+  public Builder builder() {
+    return new Builder(this);
+  }
+
+  /**
+   * Returns the number of rows in the table.
+   *
+   * @return the number of employees
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the row of an employee.
+   *
+   * @param employeeId the employee ID
+   * @return the row, or -1 if the employee is not in the table
+   */
+  public int rowOf(int employeeId) {
+    Integer row = this.rows.get(employeeId);
+    return row == null ? -1 : row;
+  }
+
+  /**
+   * Returns the ID of the employee in the given row.
+   *
+   * @param row the row
+   * @return the employee ID
+   */
+  public int getId(int row) {
+    return chunkOf(row).ids[row & CHUNK_MASK];
+  }
+
+  /**
+   * Returns the salary of the employee in the given row.
+   *
+   * @param row the row
+   * @return the salary
+   */
+  public double getSalary(int row) {
+    return chunkOf(row).salaries[row & CHUNK_MASK];
+  }
+
+  /**
+   * Returns the performance of the employee in the given row.
+   *
+   * @param row the row
+   * @return the performance
+   */
+  public double getPerformance(int row) {
+    return chunkOf(row).performances[row & CHUNK_MASK];
+  }
+
+  /**
+   * Returns the hire date of the employee in the given row as days since 1970-01-01 UTC.
+   *
+   * @param row the row
+   * @return the hire date in epoch days
+   */
+  public int getHireDay(int row) {
+    return chunkOf(row).hireDays[row & CHUNK_MASK];
+  }
+
+  /**
+   * Returns the normalized position of the employee in the given row.
+   *
+   * @param row the row
+   * @return the normalized position
+   */
+  public String getPosition(int row) {
+    return this.positions.positionOf(chunkOf(row).positionCodes[row & CHUNK_MASK]);
+  }
+
+  /**
+   * Returns the ID of the department of the employee in the given row.
+   *
+   * @param row the row
+   * @return the department ID, or {@link #NO_DEPARTMENT} if the employee has no department
+   */
+  public int getDepartmentId(int row) {
+    return chunkOf(row).departmentIds[row & CHUNK_MASK];
+  }
+
+  /**
+   * Returns the number of employees hired within the given range of days.
+   *
+   * @param fromDay the first day of the range in epoch days, inclusive
+   * @param toDay the last day of the range in epoch days, inclusive
+   * @return the number of employees hired in the range
+   */
+  public int countHiredBetween(int fromDay, int toDay) {
+    int count = 0;
+    for (Chunk chunk : this.chunks) {
+      int[] days = chunk.hireDays;
+      for (int row = 0; row < chunk.size; row++) {
+        count += (days[row] >= fromDay && days[row] <= toDay) ? 1 : 0;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the statistic rollup of the employees that are in a department.
+   * The rollup is shared, callers must add it to their own rollup instead of updating it.
+   *
+   * @return the statistic rollup
+   */
+  StatisticRollup getStatisticRollup() {
+    StatisticRollup rollup = this.statisticRollup;
+    if (rollup == null) {
+      rollup = StatisticRollup.of(this);
+      this.statisticRollup = rollup;
+    }
+    return rollup;
+  }
+
+  /**
+   * Returns the position dictionary that encodes the positions of the table.
+   *
+   * @return the position dictionary
+   */
+  PositionDictionary getPositionDictionary() {
+    return this.positions;
+  }
+
+  /**
+   * Returns the number of chunks of the table.
+   *
+   * @return the number of chunks
+   */
+  int chunkCount() {
+    return this.chunks.length;
+  }
+
+  /**
+   * Returns the statistic rollup of the rows of a chunk, computed once per chunk.
+   * The rollup is shared, callers must add it to their own rollup instead of updating it.
+   *
+   * @param index the index of the chunk
+   * @return the statistic rollup of the chunk
+   */
+  StatisticRollup chunkRollup(int index) {
+    Chunk chunk = this.chunks[index];
+    StatisticRollup rollup = chunk.statisticRollup;
+    if (rollup == null) {
+      rollup = StatisticRollup.ofRows(this.positions, chunk.size, chunk.ids, chunk.salaries,
+          chunk.performances, chunk.positionCodes, chunk.departmentIds);
+      chunk.statisticRollup = rollup;
+    }
+    return rollup;
+  }
+
+  private Chunk chunkOf(int row) {
+    if (row < 0 || row >= this.size) {
+      throw new IndexOutOfBoundsException("Row " + row + " out of " + this.size);
+    }
+    return this.chunks[row >>> CHUNK_SHIFT];
+  }
+
+  /**
+   * Applies changes to a copy of a table. Chunks are copied the first time a change reaches
+   * them and modified in place after that, until {@link #build()} publishes them.
+   * A builder is not thread-safe.
+   */
+  public static final class Builder {
+    private Object owner = new Object();
+    private Chunk[] chunks;
+    private int size;
+    private final PersistentIntMap.Builder<Integer> rows;
+    private final PositionDictionary positions;
+
+    /**
+     * Constructs a builder that starts from the empty table.
+     *
+     * @param positions the position dictionary that encodes the positions of the table
+     */
+    public Builder(PositionDictionary positions) {
+      this.chunks = new Chunk[0];
+      this.rows = new PersistentIntMap.Builder<>();
+      this.positions = positions;
+    }
+
+    private Builder(EmployeeTable table) {
+      this.chunks = table.chunks.clone();
+      this.size = table.size;
+      this.rows = table.rows.builder();
+      this.positions = table.positions;
+    }
+
+    /**
+     * Puts an employee into the table. A new employee is added without a department, an
+     * employee already in the table keeps its department.
+     *
+     * @param employee the employee
+     */
+    public void put(Employee employee) {
+      Integer row = this.rows.get(employee.getId());
+      if (row == null) {
+        append(employee, NO_DEPARTMENT);
+      } else {
+        Chunk chunk = editable(row >>> CHUNK_SHIFT);
+        write(chunk, row & CHUNK_MASK, employee, chunk.departmentIds[row & CHUNK_MASK]);
+      }
+    }
+
+    /**
+     * Puts an employee into the table as a member of a department.
+     *
+     * @param employee the employee
+     * @param departmentId the department ID
+     */
+    public void put(Employee employee, int departmentId) {
+      Integer row = this.rows.get(employee.getId());
+      if (row == null) {
+        append(employee, departmentId);
+      } else {
+        write(editable(row >>> CHUNK_SHIFT), row & CHUNK_MASK, employee, departmentId);
+      }
+    }
+
+    /**
+     * Sets the department of an employee in the table.
+     *
+     * @param employeeId the employee ID
+     * @param departmentId the department ID, or {@link #NO_DEPARTMENT}
+     * @return true if the employee is in the table, false otherwise
+     */
+    public boolean setDepartment(int employeeId, int departmentId) {
+      Integer row = this.rows.get(employeeId);
+      if (row == null) {
+        return false;
+      }
+      Chunk chunk = this.chunks[row >>> CHUNK_SHIFT];
+      if (chunk.departmentIds[row & CHUNK_MASK] != departmentId) {
+        editable(row >>> CHUNK_SHIFT).departmentIds[row & CHUNK_MASK] = departmentId;
+      }
+      return true;
+    }
+
+    /**
+     * Removes an employee from the table. The last row is moved into the removed row.
+     *
+     * @param employeeId the employee ID
+     * @return true if the employee was in the table, false otherwise
+     */
+    public boolean remove(int employeeId) {
+      Integer removed = this.rows.remove(employeeId);
+      if (removed == null) {
+        return false;
+      }
+      int row = removed;
+      int last = this.size - 1;
+      Chunk tail = editable(last >>> CHUNK_SHIFT);
+      if (row != last) {
+        Chunk target = editable(row >>> CHUNK_SHIFT);
+        int from = last & CHUNK_MASK;
+        int to = row & CHUNK_MASK;
+        target.ids[to] = tail.ids[from];
+        target.salaries[to] = tail.salaries[from];
+        target.performances[to] = tail.performances[from];
+        target.hireDays[to] = tail.hireDays[from];
+        target.positionCodes[to] = tail.positionCodes[from];
+        target.departmentIds[to] = tail.departmentIds[from];
+        this.rows.put(target.ids[to], row);
+      }
+      tail.size--;
+      if (tail.size == 0) {
+        this.chunks = Arrays.copyOf(this.chunks, this.chunks.length - 1);
+      }
+      this.size = last;
+      return true;
+    }
+
+    /**
+     * Returns the table with the changes applied so far. Later changes copy the chunks
+     * again, so the returned table never changes.
+     *
+     * @return the new table
+     */
+    public EmployeeTable build() {
+      this.owner = new Object();
+      return new EmployeeTable(this.chunks.clone(), this.size, this.rows.build(),
+          this.positions);
+    }
+
+    private void append(Employee employee, int departmentId) {
+      int index = this.size >>> CHUNK_SHIFT;
+      if (index == this.chunks.length) {
+        this.chunks = Arrays.copyOf(this.chunks, index + 1);
+        this.chunks[index] = new Chunk(this.owner, 16);
+      }
+      Chunk chunk = editable(index);
+      if (chunk.size == chunk.ids.length) {
+        // Grow the last chunk by doubling until it is full
+        chunk = chunk.copy(this.owner, Math.min(CHUNK_SIZE, chunk.size * 2));
+        this.chunks[index] = chunk;
+      }
+      write(chunk, chunk.size, employee, departmentId);
+      chunk.size++;
+      this.rows.put(employee.getId(), this.size);
+      this.size++;
+    }
+
+    private void write(Chunk chunk, int offset, Employee employee, int departmentId) {
+      chunk.ids[offset] = employee.getId();
+      chunk.salaries[offset] = employee.getSalary();
+      chunk.performances[offset] = employee.getPerformance();
+      long hireMillis = employee.getHireDate().getTime();
+      chunk.hireDays[offset] = (int) Math.floorDiv(hireMillis, MILLIS_PER_DAY);
+      chunk.positionCodes[offset] = employee.getPositionCode(this.positions);
+      chunk.departmentIds[offset] = departmentId;
+    }
+
+    private Chunk editable(int index) {
+      Chunk chunk = this.chunks[index];
+      if (chunk.owner != this.owner) {
+        chunk = chunk.copy(this.owner, chunk.ids.length);
+        this.chunks[index] = chunk;
+      }
+      return chunk;
+    }
+  }
+}
@@ -1,9 +1,33 @@
 package dev.coms4156.project;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import dev.coms4156.project.exception.InternalServerErrorException;
 import dev.coms4156.project.exception.NotFoundException;
-import java.util.HashMap;
+import dev.coms4156.project.utils.IntHashMap;
+import dev.coms4156.project.utils.PersistentIntMap;
+import dev.coms4156.project.utils.StripedLock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,13 +38,62 @@ import org.slf4j.LoggerFactory;
  */
 public final class HrDatabaseFacade {
   private static final Logger logger = LoggerFactory.getLogger(HrDatabaseFacade.class);
-  private static final Map<Integer, HrDatabaseFacade> instances = new HashMap<>();
-  private static DatabaseConnection dbConnection = null;
+  // Rough heap footprint of the cached objects, used to weigh organizations against the budget
+  static final long ORGANIZATION_BYTES = 1024;
+  static final long DEPARTMENT_BYTES = 256;
+  static final long EMPLOYEE_BYTES = 512;
+  private static final long DEFAULT_CACHE_MAX_BYTES = 256L * 1024 * 1024;
+  private static final long NEGATIVE_TTL_MS = Long.getLong("cache.negativeTtlMs", 60000L);
+  private static final int MAX_MISSING_IDS = 4096;
+  private static final int LOCK_STRIPES = 16;
+
+  private static final Map<Integer, HrDatabaseFacade> instances =
+      newCache(Long.getLong("cache.maxBytes", DEFAULT_CACHE_MAX_BYTES)).asMap();
+  private static final Map<Integer, CompletableFuture<HrDatabaseFacade>> loading =
+      new ConcurrentHashMap<>();
+  private static volatile DatabaseConnection dbConnection = null;
+  private static ScheduledExecutorService reconciler = null;
+  private static volatile InvalidationChannel invalidationChannel = null;
+  private static volatile boolean lazyLoading = false;
+  private static final ExecutorService warmupExecutor = Executors.newFixedThreadPool(
+      Integer.getInteger("cache.warmupThreads", 4), runnable -> {
+        Thread thread = new Thread(runnable, "hr-cache-warmup");
+        thread.setDaemon(true);
+        return thread;
+      });
+  private static final ExecutorService refreshExecutor = Executors.newFixedThreadPool(
+      Integer.getInteger("cache.refreshThreads", 2), runnable -> {
+        Thread thread = new Thread(runnable, "hr-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+      });
+  // Identifies this node in the invalidations it publishes
+  static final String NODE_ID = UUID.randomUUID().toString();
+  private static final Map<Integer, AtomicLong> publishedVersions = new ConcurrentHashMap<>();
+  private static final Map<String, Long> receivedVersions = new ConcurrentHashMap<>();
+  private static final Map<Integer, LongAdder> accessCounts = new ConcurrentHashMap<>();
+  // Versions of published states are unique across organizations and reloads
+  private static final AtomicLong versionSequence = new AtomicLong();
 
   private final int organizationId;
-  List<Employee> employees;
-  List<Department> departments;
-  private Organization organization;
+  // The cached state is immutable, every change publishes a new one built by a Draft that
+  // shares the entries and departments it did not change with the previous state. States
+  // are swapped by compare-and-set, so writes to different departments never wait for
+  // each other and readers never wait at all
+  private final AtomicReference<State> state = new AtomicReference<>();
+  private final CompletableFuture<Void> warmup;
+  // Refreshes received from other nodes, applied in order once the organization is warm
+  private final Object refreshLock = new Object();
+  private CompletableFuture<Void> refreshes;
+  // Normalized positions of the tenant, shared by its cached departments and employee table
+  private final PositionDictionary positionDictionary = new PositionDictionary();
+
+  // IDs recently found not to exist in the database, mapped to the expiry time of the entry
+  private final IntHashMap<Long> missingEmployees = new IntHashMap<>();
+  private final IntHashMap<Long> missingDepartments = new IntHashMap<>();
+
+  // Serializes writes per department, structural changes take the lock of every department
+  private final StripedLock locks = new StripedLock(LOCK_STRIPES);
 
   /**
    * Constructs an HR database facade instance for a specific organization.
@@ -32,140 +105,471 @@ public final class HrDatabaseFacade {
       throw new IllegalStateException("Database connection is not initialized");
     }
     this.organizationId = organizationId;
-    // Initialize the in-memory cache
-    this.organization = dbConnection.getOrganization(organizationId);
-    if (this.organization == null) {
-      logger.warn("Organization not found: {}", organizationId);
+    if (!lazyLoading) {
+      // Initialize the in-memory cache
+      load();
+      this.warmup = CompletableFuture.completedFuture(null);
+      this.refreshes = this.warmup;
+      return;
+    }
+
+    // Serve from the organization summary and load the rest in the background
+    Organization summary = dbConnection.getOrganization(this.organizationId);
+    if (summary == null) {
+      logger.warn("Organization not found: {}", this.organizationId);
       throw new NotFoundException("Organization not found");
     }
-    this.departments = dbConnection.getDepartments(organizationId);
-    this.organization.setDepartments(this.departments);
-    this.employees = dbConnection.getEmployees(organizationId);
-    this.organization.setEmployees(this.employees);
+    this.state.set(new Draft(summary.getName(), List.of(), List.of()).build());
+    this.warmup = CompletableFuture.runAsync(this::load, warmupExecutor);
+    this.refreshes = this.warmup;
+    this.warmup.whenComplete((ignored, e) -> {
+      if (e != null) {
+        logger.warn("Failed to warm up organization {}", this.organizationId, e);
+        instances.remove(this.organizationId, this);
+      } else {
+        reweigh();
+      }
+    });
+  }
+
+  /**
+   * Enables or disables lazy loading of organizations.
+   * In lazy mode a new facade only reads the organization row before serving requests.
+   * Employees and departments are faulted in by ID while a background task loads the whole
+   * organization, and everything that needs the whole organization waits for that task.
+   *
+   * @param lazy true to load organizations lazily, false to load them eagerly
+   */
+  public static void setLazyLoading(boolean lazy) {
+    lazyLoading = lazy;
+  }
+
+  /**
+   * Returns true once the whole organization is cached.
+   *
+   * @return true if the organization is fully loaded, false otherwise
+   */
+  public boolean isWarm() {
+    return this.state.get().warm();
+  }
+
+  /**
+   * Waits until the whole organization is cached.
+   */
+  private void awaitWarmup() {
+    if (this.state.get().warm()) {
+      return;
+    }
+    try {
+      this.warmup.join();
+    } catch (CompletionException e) {
+      // The warmup callback may not have run yet, callers must not get this facade again
+      instances.remove(this.organizationId, this);
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Creates the cache of organization facades.
+   * Organizations are weighed by their estimated heap footprint and evicted by a
+   * frequency and recency aware policy (W-TinyLFU) once the total exceeds the budget.
+   * Evicted organizations are loaded again on their next access.
+   *
+   * @param maxBytes the memory budget of the cache in estimated bytes
+   * @return the cache of organization facades
+   */
+  static Cache<Integer, HrDatabaseFacade> newCache(long maxBytes) {
+    return Caffeine.newBuilder()
+        .maximumWeight(maxBytes)
+        .weigher((Integer organizationId, HrDatabaseFacade facade) ->
+            (int) Math.min(Integer.MAX_VALUE, facade.estimatedBytes()))
+        .removalListener((Integer organizationId, HrDatabaseFacade facade, RemovalCause cause) -> {
+          if (cause == RemovalCause.SIZE) {
+            logger.info("Evicted cache of organization {}", organizationId);
+          }
+        })
+        .build();
+  }
+
+  /**
+   * Returns the estimated heap footprint of the cached organization.
+   *
+   * @return the estimated size in bytes
+   */
+  long estimatedBytes() {
+    State current = this.state.get();
+    if (current == null) {
+      return ORGANIZATION_BYTES;
+    }
+    return ORGANIZATION_BYTES
+        + DEPARTMENT_BYTES * current.departments().size()
+        + EMPLOYEE_BYTES * current.employees().size();
+  }
+
+  /**
+   * Updates the weight of this organization in the cache after its size has changed.
+   */
+  private void reweigh() {
+    instances.replace(this.organizationId, this, this);
+  }
+
+  /**
+   * Loads the whole organization from the database and swaps it into the in-memory cache.
+   * Writes are held off from the first read to the publish, so a write that commits while
+   * the organization is read cannot be overwritten by the older state the load has read.
+   */
+  private void load() {
+    try (StripedLock.Handle ignored = this.locks.lockAll()) {
+      Organization loaded = dbConnection.getOrganization(this.organizationId);
+      if (loaded == null) {
+        logger.warn("Organization not found: {}", this.organizationId);
+        throw new NotFoundException("Organization not found");
+      }
+      List<Department> loadedDepartments = dbConnection.getDepartments(this.organizationId);
+      List<Employee> loadedEmployees = dbConnection.getEmployees(this.organizationId);
+      Draft draft = new Draft(loaded.getName(), loadedEmployees, loadedDepartments);
+      draft.warm = true;
+      this.state.set(draft.build());
+      synchronized (this.missingEmployees) {
+        this.missingEmployees.clear();
+      }
+      synchronized (this.missingDepartments) {
+        this.missingDepartments.clear();
+      }
+    }
+  }
+
+  /**
+   * Reloads the whole organization from the database.
+   * Writes keep the cache up to date incrementally, so this is only needed to catch drift
+   * caused by changes that did not go through this facade.
+   * Must not be called while holding the lock of a department.
+   */
+  public void reconcile() {
+    load();
+    reweigh();
+    logger.info("Reconciled cache of organization {}", this.organizationId);
+  }
+
+  /**
+   * Returns the cached employees of the organization.
+   *
+   * @return an unmodifiable snapshot of the employees, ordered by ID
+   */
+  public List<Employee> getEmployees() {
+    awaitWarmup();
+    return this.state.get().employees().values();
+  }
+
+  /**
+   * Returns the cached departments of the organization.
+   *
+   * @return an unmodifiable snapshot of the departments, ordered by ID
+   */
+  public List<Department> getDepartments() {
+    awaitWarmup();
+    return this.state.get().departments().values();
   }
 
   /**
    * Returns the employee with the specified ID.
+   * A cache miss is checked with a point query, and IDs that do not exist are remembered
+   * for a while so that repeated lookups of them are answered from memory. An employee that
+   * exists is cached on its own, it joins its department once the department is refreshed.
+   * The returned employee is immutable and shared with other readers.
    *
    * @param employeeId the employee ID
    * @return the employee
    */
   public Employee getEmployee(int employeeId) {
     // Check the in-memory cache
-    Employee employee = employees
-        .stream()
-        .filter(e -> e.getId() == employeeId)
-        .findFirst()
-        .orElse(null);
-
-    if (employee == null) {
-      // If not found in cache, query the database
-      List<Employee> updatedEmployees = dbConnection.getEmployees(this.organizationId);
-      employee = updatedEmployees
-          .stream()
-          .filter(e -> e.getId() == employeeId)
-          .findFirst()
-          .orElse(null);
-
-      if (employee != null) {
-        // Update the cache
-        this.employees = updatedEmployees;
-      }
+    State stamp = this.state.get();
+    Employee employee = stamp.employees().get(employeeId);
+    if (employee != null || isKnownMissing(this.missingEmployees, employeeId)) {
+      return employee;
     }
 
-    return employee;
+    // If not found in cache, query the database for this employee only
+    Employee fetched = dbConnection.getEmployee(this.organizationId, employeeId);
+    if (fetched == null) {
+      recordMissing(this.missingEmployees, employeeId);
+      return null;
+    }
+    Draft draft = cacheMiss(stamp, miss -> {
+      if (!miss.employees.containsKey(employeeId)) {
+        miss.putEmployee(fetched);
+      }
+    });
+    return draft == null ? fetched : draft.employees.get(employeeId);
   }
 
   /**
    * Returns the department with the specified ID.
+   * A cache miss is checked with a point query, and IDs that do not exist are remembered
+   * for a while so that repeated lookups of them are answered from memory. A department that
+   * exists is cached with its members.
+   * The returned department is shared with other readers, callers must not modify it.
    *
    * @param departmentId the department ID
    * @return the department
    */
   public Department getDepartment(int departmentId) {
     // Check the in-memory cache
-    Department department = departments
-        .stream()
-        .filter(d -> d.getId() == departmentId)
-        .findFirst()
-        .orElse(null);
+    State stamp = this.state.get();
+    Department department = stamp.departments().get(departmentId);
+    if (department != null || isKnownMissing(this.missingDepartments, departmentId)) {
+      return department;
+    }
+
+    // If not found in cache, query the database for this department only
+    Department fetched = dbConnection.getDepartment(this.organizationId, departmentId);
+    if (fetched == null) {
+      recordMissing(this.missingDepartments, departmentId);
+      return null;
+    }
+    Draft draft = cacheMiss(stamp, miss -> {
+      if (!miss.departments.containsKey(departmentId)) {
+        miss.putFreshDepartment(fetched);
+      }
+    });
+    return draft == null ? fetched : draft.departments.get(departmentId);
+  }
+
+  /**
+   * Caches a row read on a cache miss.
+   * Before the organization is loaded only other misses publish, so the row is added to
+   * whatever they have cached since. Once it is loaded the row is only cached if nothing
+   * was published since the read began, since a write in between may have changed or
+   * removed it; the caller then returns the row uncached.
+   *
+   * @param stamp the state that was published before the row was read
+   * @param change caches the row in a draft
+   * @return the published draft, or null if the row was not cached
+   */
+  private Draft cacheMiss(State stamp, Consumer<Draft> change) {
+    State base = stamp;
+    while (true) {
+      Draft draft = new Draft(base);
+      change.accept(draft);
+      if (this.state.compareAndSet(base, draft.build())) {
+        return draft;
+      }
+      base = this.state.get();
+      if (base.warm()) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Returns a department with one page of its members, ordered by ascending ID.
+   * A cached department is paged in memory. Otherwise only the requested page is read from
+   * the database and it is not cached, so paging through a large department that is not
+   * cached never loads the department as a whole.
+   *
+   * @param departmentId the department ID
+   * @param afterEmployeeId the ID of the last member of the previous page, exclusive
+   * @param limit the maximum number of members of the page, 0 for none
+   * @return the page of the department, or null if it does not exist
+   */
+  public DepartmentPage getDepartmentPage(int departmentId, int afterEmployeeId, int limit) {
+    Department department = this.state.get().departments().get(departmentId);
     if (department != null) {
-      System.out.println(department.toJson());
+      return DepartmentPage.of(department, afterEmployeeId, limit);
+    }
+    if (isKnownMissing(this.missingDepartments, departmentId)) {
+      return null;
+    }
+    DepartmentPage page =
+        dbConnection.getDepartmentPage(this.organizationId, departmentId, afterEmployeeId, limit);
+    if (page == null) {
+      recordMissing(this.missingDepartments, departmentId);
     }
+    return page;
+  }
 
-    if (department == null) {
-      // If not found in cache, query the database
-      List<Department> updatedDepartments = dbConnection.getDepartments(this.organizationId);
-      department = updatedDepartments
-          .stream()
-          .filter(d -> d.getId() == departmentId)
-          .findFirst()
-          .orElse(null);
+  /**
+   * Returns true if the ID was recently found not to exist in the database.
+   * The negative caches have their own locks, so lookups never wait for writers.
+   *
+   * @param missing the negative cache to check
+   * @param id the entity ID
+   * @return true if the ID is known not to exist, false otherwise
+   */
+  private static boolean isKnownMissing(IntHashMap<Long> missing, int id) {
+    synchronized (missing) {
+      Long expiresAt = missing.get(id);
+      if (expiresAt == null) {
+        return false;
+      }
+      if (expiresAt < System.currentTimeMillis()) {
+        missing.remove(id);
+        return false;
+      }
+      return true;
+    }
+  }
 
-      if (department != null) {
-        // Update the cache
-        this.departments = updatedDepartments;
+  /**
+   * Remembers that the ID does not exist in the database.
+   *
+   * @param missing the negative cache to update
+   * @param id the entity ID
+   */
+  private static void recordMissing(IntHashMap<Long> missing, int id) {
+    if (NEGATIVE_TTL_MS <= 0) {
+      return;
+    }
+    synchronized (missing) {
+      if (missing.size() >= MAX_MISSING_IDS) {
+        // Bound the memory spent on probes of random IDs
+        missing.clear();
       }
+      missing.put(id, System.currentTimeMillis() + NEGATIVE_TTL_MS);
     }
+  }
 
-    return department;
+  /**
+   * Forgets that an ID did not exist, after it has been cached.
+   *
+   * @param missing the negative cache to update
+   * @param id the entity ID
+   */
+  private static void forgetMissing(IntHashMap<Long> missing, int id) {
+    synchronized (missing) {
+      missing.remove(id);
+    }
+  }
+
+  /**
+   * Returns the department that the specified employee belongs to.
+   *
+   * @param employeeId the employee ID
+   * @return the owning department, or null if the employee is not in any cached department
+   */
+  public Department getEmployeeDepartment(int employeeId) {
+    awaitWarmup();
+    State current = this.state.get();
+    Integer departmentId = current.memberships().get(employeeId);
+    return departmentId == null ? null : current.departments().get(departmentId);
   }
 
   /**
    * Returns the organization of the client.
+   * The returned organization is shared with other readers, callers must not modify it.
    *
    * @return the organization
    */
   public Organization getOrganization() {
-    // Check the in-memory cache (this.organization was initialized in constructor)
-    return organization;
+    awaitWarmup();
+    return this.state.get().organization();
+  }
+
+  /**
+   * Returns the version of the cached state of the client, which changes with every write.
+   * Read the version before the data it describes: data read afterwards is at least as
+   * recent as the version, so anything derived from it may be reused while the version holds.
+   *
+   * @return the version of the cached state
+   */
+  public long getVersion() {
+    return this.state.get().version();
+  }
+
+  /**
+   * Returns the columnar table of the employees of the client, for scans and statistics over
+   * the whole organization. The table is kept in sync with every write, so it is read from
+   * the published state in constant time.
+   *
+   * @return the employee table
+   */
+  public EmployeeTable getEmployeeTable() {
+    awaitWarmup();
+    return this.state.get().table();
+  }
+
+  /**
+   * Locks the department against concurrent writes until the returned handle is closed.
+   * Writes to other departments proceed in parallel and readers are never blocked, they keep
+   * reading the snapshot published before the write. Use it to read, modify and write back
+   * an entity of the department without losing concurrent updates.
+   * Waits for the organization to be fully cached first: the load takes every stripe, so a
+   * stripe holder that waited for it inside the lock would never be released.
+   *
+   * @param departmentId the department ID
+   * @return the handle that releases the lock
+   */
+  public StripedLock.Handle lockDepartment(int departmentId) {
+    awaitWarmup();
+    return this.locks.lock(departmentId);
+  }
+
+  /**
+   * Locks the department of the employee against concurrent writes until the returned handle
+   * is closed, see {@link #lockDepartment(int)}.
+   *
+   * @param employeeId the employee ID
+   * @return the handle that releases the lock
+   */
+  public StripedLock.Handle lockEmployee(int employeeId) {
+    Department department = getEmployeeDepartment(employeeId);
+    // Employees outside of any cached department are spread over the stripes by their ID
+    return this.locks.lock(department != null ? department.getId() : employeeId);
+  }
+
+  /**
+   * Returns how many times a write had to wait for the lock of each department stripe.
+   *
+   * @return the contention counters indexed by stripe
+   */
+  public long[] getLockContention() {
+    return this.locks.getContention();
   }
 
   /**
    * Updates the employee information.
+   * Only the cached entries of this employee are replaced, the rest of the cache is kept.
+   * Employees are immutable, so the instance passed in is cached as it is.
    *
    * @param employee the updated employee object
    * @return true if the employee is updated successfully, false otherwise
    */
   public boolean updateEmployee(Employee employee) {
-    boolean success = dbConnection.updateEmployee(this.organizationId, employee);
-    if (success) {
-      // Update organization-level employee cache
-      this.employees = dbConnection.getEmployees(this.organizationId);
-
-      // Update department-level employee cache
-      for (Department department : this.departments) {
-        List<Employee> deptEmployees = department.getEmployees();
-        for (int i = 0; i < deptEmployees.size(); i++) {
-          Employee deptEmployee = deptEmployees.get(i);
-          if (deptEmployee.getId() == employee.getId()) {
-            // replace the employee in the department cache
-            deptEmployees.set(i, employee);
-            break;
-          }
-        }
+    // The cache is patched incrementally, which needs the whole organization
+    awaitWarmup();
+    try (StripedLock.Handle ignored = lockEmployee(employee.getId())) {
+      boolean success = dbConnection.updateEmployee(this.organizationId, employee);
+      if (success) {
+        update(draft -> draft.putEmployee(employee));
+        publish(CacheInvalidation.Kind.EMPLOYEE, employee.getId());
       }
+      return success;
     }
-    return success;
   }
 
   /**
    * Updates the department information.
+   * Only the cached entries of this department are replaced, the rest of the cache is kept.
+   * Callers should pass a modified copy of the cached department, see
+   * {@link Department#copy()}.
    *
    * @param department the updated department object
    * @return true if the department is updated successfully, false otherwise
    */
   public boolean updateDepartment(Department department) {
-    boolean success = dbConnection.updateDepartment(this.organizationId, department);
-    if (success) {
-      List<Department> updatedDepartments = dbConnection.getDepartments(this.organizationId);
-      for (Department dept : updatedDepartments) {
-        System.out.println(dept.toJson());
+    awaitWarmup();
+    try (StripedLock.Handle ignored = lockDepartment(department.getId())) {
+      boolean success = dbConnection.updateDepartment(this.organizationId, department);
+      if (success) {
+        // Cache a copy, the caller and the connection may keep the instance they hold
+        update(draft -> draft.putDepartment(department.copy()));
+        publish(CacheInvalidation.Kind.DEPARTMENT, department.getId());
       }
-      this.organization.setDepartments(updatedDepartments);
-      this.departments = updatedDepartments;
+      return success;
     }
-    return success;
   }
 
   /**
@@ -175,12 +579,16 @@ public final class HrDatabaseFacade {
    * @return true if the organization is updated successfully, false otherwise
    */
   public boolean updateOrganization(Organization organization) {
-    boolean success = dbConnection.updateOrganization(organization);
-    if (success) {
-      // Update the in-memory cache
-      this.organization = organization;
+    awaitWarmup();
+    try (StripedLock.Handle ignored = this.locks.lockAll()) {
+      boolean success = dbConnection.updateOrganization(organization);
+      if (success) {
+        // Update the in-memory cache, keeping the cached departments and employees
+        update(draft -> draft.organizationName = organization.getName());
+        publish(CacheInvalidation.Kind.ORGANIZATION, this.organizationId);
+      }
+      return success;
     }
-    return success;
   }
 
   /**
@@ -191,35 +599,93 @@ public final class HrDatabaseFacade {
    * @return the added employee with assigned ID, or null if failed
    */
   public Employee addEmployeeToDepartment(int departmentId, Employee employee) {
-    int internalDeptId = this.organizationId * 10000 + departmentId;
-    int internalEmpId = dbConnection
-        .addEmployeeToDepartment(this.organizationId, internalDeptId, employee);
-
-    if (internalEmpId != -1) {
-      int externalEmpId = internalEmpId % 10000;
-
-      Employee newEmployee = new Employee(
-          externalEmpId,
-          employee.getName(),
-          employee.getHireDate(),
-          employee.getPosition(),
-          employee.getSalary(),
-          employee.getPerformance()
-      );
-      System.out.println(newEmployee.toJson());
-
-      // Update the in-memory cache
-      this.employees = dbConnection.getEmployees(this.organizationId);
-      // This is added for update department-level cache
-      for (Department department : this.departments) {
-        if (department.getId() == departmentId) {
-          department.addEmployee(newEmployee);
-          break;
+    awaitWarmup();
+    try (StripedLock.Handle ignored = lockDepartment(departmentId)) {
+      int internalDeptId = this.organizationId * 10000 + departmentId;
+      int internalEmpId = dbConnection
+          .addEmployeeToDepartment(this.organizationId, internalDeptId, employee);
+
+      if (internalEmpId != -1) {
+        int externalEmpId = internalEmpId % 10000;
+
+        Employee newEmployee = new Employee(
+            externalEmpId,
+            employee.getName(),
+            employee.getHireDate(),
+            employee.getPosition(),
+            employee.getSalary(),
+            employee.getPerformance()
+        );
+
+        // Update the in-memory cache and its indexes
+        update(draft -> {
+          draft.putEmployee(newEmployee);
+          draft.addMember(departmentId, newEmployee);
+        });
+        reweigh();
+        publish(CacheInvalidation.Kind.DEPARTMENT, departmentId);
+        return newEmployee;
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Adds new employees to departments in the database and caches them.
+   * The employees are inserted together with one block of IDs, and the cache is changed in
+   * a single publish once all of them are stored, so readers see all of them or none.
+   *
+   * @param departmentIds the department ID of every employee
+   * @param employees the employees to add
+   * @return the added employees with their IDs in the same order, or null if none was added
+   */
+  public List<Employee> addEmployeesToDepartments(
+      List<Integer> departmentIds, List<Employee> employees
+  ) {
+    awaitWarmup();
+    try (StripedLock.Handle ignored = this.locks.lockAll()) {
+      List<Integer> internalDeptIds = new ArrayList<>(departmentIds.size());
+      for (int departmentId : departmentIds) {
+        internalDeptIds.add(this.organizationId * 10000 + departmentId);
+      }
+      int firstEmpId = dbConnection
+          .addEmployeesToDepartments(this.organizationId, internalDeptIds, employees);
+      if (firstEmpId == -1) {
+        return null;
+      }
+      // The connection must allocate the whole block in the ID range of the organization
+      if (firstEmpId / 10000 != this.organizationId
+          || (firstEmpId + employees.size() - 1) / 10000 != this.organizationId) {
+        throw new InternalServerErrorException("Employee IDs [" + firstEmpId + "..] are outside"
+            + " of organization [" + this.organizationId + "]");
+      }
+
+      List<Employee> added = new ArrayList<>(employees.size());
+      for (int i = 0; i < employees.size(); i++) {
+        Employee employee = employees.get(i);
+        added.add(new Employee(
+            (firstEmpId + i) % 10000,
+            employee.getName(),
+            employee.getHireDate(),
+            employee.getPosition(),
+            employee.getSalary(),
+            employee.getPerformance()
+        ));
+      }
+
+      // Update the in-memory cache and its indexes in one step
+      update(draft -> {
+        for (int i = 0; i < added.size(); i++) {
+          draft.putEmployee(added.get(i));
+          draft.addMember(departmentIds.get(i), added.get(i));
         }
+      });
+      reweigh();
+      for (int departmentId : new LinkedHashSet<>(departmentIds)) {
+        publish(CacheInvalidation.Kind.DEPARTMENT, departmentId);
       }
-      return newEmployee;
+      return added;
     }
-    return null;
   }
 
 
@@ -230,12 +696,17 @@ public final class HrDatabaseFacade {
    * @return the real department object with the ID assigned
    */
   public Department insertDepartment(Department department) {
-    Department newDepartment = dbConnection.insertDepartment(this.organizationId, department);
-    if (newDepartment != null) {
-      // Update the in-memory cache
-      this.departments.add(newDepartment);
+    awaitWarmup();
+    try (StripedLock.Handle ignored = this.locks.lockAll()) {
+      Department newDepartment = dbConnection.insertDepartment(this.organizationId, department);
+      if (newDepartment != null) {
+        // Update the in-memory cache
+        update(draft -> draft.putDepartment(newDepartment));
+        reweigh();
+        publish(CacheInvalidation.Kind.DEPARTMENT, newDepartment.getId());
+      }
+      return newDepartment;
     }
-    return newDepartment;
   }
 
   /**
@@ -246,50 +717,418 @@ public final class HrDatabaseFacade {
    * @return true if the employee is removed successfully, false otherwise
    */
   public boolean removeEmployeeFromDepartment(int departmentId, int employeeId) {
-    int internalDeptId = this.organizationId * 10000 + departmentId;
-    int internalEmpId = this.organizationId * 10000 + employeeId;
+    awaitWarmup();
+    try (StripedLock.Handle ignored = lockDepartment(departmentId)) {
+      int internalDeptId = this.organizationId * 10000 + departmentId;
+      int internalEmpId = this.organizationId * 10000 + employeeId;
 
-    boolean success = dbConnection.removeEmployeeFromDepartment(
-        this.organizationId,
-        internalDeptId,
-        internalEmpId
-    );
+      boolean success = dbConnection.removeEmployeeFromDepartment(
+          this.organizationId,
+          internalDeptId,
+          internalEmpId
+      );
 
-    if (success) {
-      // Update the in-memory cache
-      this.employees = dbConnection.getEmployees(this.organizationId);
-      for (Department department : this.departments) {
-        if (department.getId() == departmentId) {
-          Employee employeeToRemove = this.employees
-              .stream()
-              .filter(emp -> emp.getId() == employeeId)
-              .findFirst()
-              .orElse(null);
-
-          if (employeeToRemove != null) {
-            department.removeEmployee(employeeToRemove);
+      if (success) {
+        // Update the in-memory cache, the employee row is deleted from the organization
+        update(draft -> {
+          draft.removeEmployee(employeeId);
+          Department department = draft.departments.get(departmentId);
+          if (department != null && department.getHead() != null
+              && department.getHead().getId() == employeeId) {
+            draft.edit(department).setHead(null);
           }
-          break;
-        }
+        });
+        reweigh();
+        publish(CacheInvalidation.Kind.DEPARTMENT, departmentId);
       }
-    }
 
-    return success;
+      return success;
+    }
   }
 
   /**
    * Removes a department from the database.
+   * The members of the department are removed with it.
    *
    * @param departmentId the department ID
    * @return true if the department is removed successfully, false otherwise
    */
   public boolean removeDepartment(int departmentId) {
-    boolean success = dbConnection.removeDepartment(this.organizationId, departmentId);
-    if (success) {
-      // Update the in-memory cache
-      this.departments.removeIf(dept -> dept.getId() == departmentId);
+    awaitWarmup();
+    try (StripedLock.Handle ignored = this.locks.lockAll()) {
+      boolean success = dbConnection.removeDepartment(this.organizationId, departmentId);
+      if (success) {
+        // Update the in-memory cache
+        update(draft -> draft.removeDepartment(departmentId));
+        reweigh();
+        publish(CacheInvalidation.Kind.DEPARTMENT, departmentId);
+      }
+      return success;
+    }
+  }
+
+  /**
+   * Schedules a refresh of an entity that another node has changed.
+   * Refreshes run on a background thread once the organization is warm, in the order they
+   * were scheduled, so a cold organization does not hold up the invalidations of the others.
+   * The organization is evicted if a refresh fails.
+   *
+   * @param kind the kind of entity that has changed
+   * @param entityId the external ID of the entity that has changed
+   */
+  void scheduleRefresh(CacheInvalidation.Kind kind, int entityId) {
+    synchronized (this.refreshLock) {
+      this.refreshes = this.refreshes.thenRunAsync(() -> {
+        try {
+          refresh(kind, entityId);
+        } catch (RuntimeException e) {
+          logger.warn("Failed to refresh {} {} of organization {}, evicting it",
+              kind, entityId, this.organizationId, e);
+          instances.remove(this.organizationId, this);
+        }
+      }, refreshExecutor);
+    }
+  }
+
+  /**
+   * Returns the completion of the refreshes scheduled so far.
+   *
+   * @return a future completed once every scheduled refresh has been applied
+   */
+  CompletableFuture<Void> pendingRefreshes() {
+    synchronized (this.refreshLock) {
+      return this.refreshes;
+    }
+  }
+
+  /**
+   * Refreshes the cached copy of an entity that another node has changed.
+   * Only the affected entity is read from the database, entities that are not cached are
+   * left to the regular miss handling. The read and the publish hold the lock of the entity,
+   * so a write made through this node in between cannot be overwritten by an older read.
+   *
+   * @param kind the kind of entity that has changed
+   * @param entityId the external ID of the entity that has changed
+   */
+  void refresh(CacheInvalidation.Kind kind, int entityId) {
+    awaitWarmup();
+    switch (kind) {
+      case ORGANIZATION -> {
+        try (StripedLock.Handle ignored = this.locks.lockAll()) {
+          Organization fresh = dbConnection.getOrganization(this.organizationId);
+          if (fresh == null) {
+            throw new NotFoundException("Organization not found");
+          }
+          update(draft -> draft.organizationName = fresh.getName());
+        }
+      }
+      case EMPLOYEE -> {
+        try (StripedLock.Handle ignored = lockEmployee(entityId)) {
+          Employee fresh = dbConnection.getEmployee(this.organizationId, entityId);
+          update(draft -> {
+            if (fresh == null) {
+              draft.removeEmployee(entityId);
+            } else if (draft.employees.containsKey(entityId)) {
+              draft.putEmployee(fresh);
+            } else {
+              forgetMissing(this.missingEmployees, entityId);
+            }
+          });
+        }
+      }
+      case DEPARTMENT -> {
+        try (StripedLock.Handle ignored = this.locks.lockAll()) {
+          Department fresh = dbConnection.getDepartment(this.organizationId, entityId);
+          update(draft -> {
+            if (fresh == null) {
+              draft.removeDepartment(entityId);
+            } else {
+              draft.putFreshDepartment(fresh);
+            }
+          });
+        }
+      }
+      default -> throw new IllegalArgumentException("Unknown invalidation kind: " + kind);
+    }
+    reweigh();
+  }
+
+  /**
+   * Applies a change to the cached state and publishes it.
+   * The change is applied to a draft of the current state and published by compare-and-set.
+   * If another department was changed in the meantime, the change is applied again to the
+   * newer state, so concurrent writers only ever redo their own in-memory change.
+   * The change must only modify the draft, it may run more than once.
+   *
+   * @param change applies the change to a draft
+   */
+  private void update(Consumer<Draft> change) {
+    while (true) {
+      State base = this.state.get();
+      Draft draft = new Draft(base);
+      change.accept(draft);
+      if (this.state.compareAndSet(base, draft.build())) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * A published state of the cache. A state is never modified, it shares the entries and
+   * departments that a change did not touch with the states published before and after it.
+   *
+   * @param organization the organization, which lists the departments and employees
+   * @param employees the employees by ID
+   * @param departments the departments by ID
+   * @param memberships the department ID of every employee that is in a cached department
+   * @param table the columnar table of the employees and their departments
+   * @param warm true once the whole organization is cached, before that lookups are faulted
+   *     in by ID
+   * @param version the version of the state, unique across organizations and reloads
+   */
+  private record State(
+      Organization organization,
+      PersistentIntMap<Employee> employees,
+      PersistentIntMap<Department> departments,
+      PersistentIntMap<Integer> memberships,
+      EmployeeTable table,
+      boolean warm,
+      long version
+  ) {
+  }
+
+  /**
+   * A private working copy of the cached state that one change is applied to before it is
+   * published. The maps and the employee table of the state are updated by path copying, so
+   * a change copies the few trie nodes, table chunks and departments it touches instead of
+   * the whole organization.
+   * Published departments are copied before they are modified, so readers of the previous
+   * state never see a half-applied change.
+   * A draft is only published if the state it started from is still current, see
+   * {@link #update(Consumer)}.
+   */
+  private final class Draft {
+    private final PersistentIntMap.Builder<Employee> employees;
+    private final PersistentIntMap.Builder<Department> departments;
+    private final PersistentIntMap.Builder<Integer> memberships;
+    private final EmployeeTable.Builder table;
+    private String organizationName;
+    private boolean warm;
+    // Departments created by this draft, which may still be modified in place
+    private final Set<Department> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Starts a draft from a published state.
+     *
+     * @param base the state to start from
+     */
+    Draft(State base) {
+      this.employees = base.employees().builder();
+      this.departments = base.departments().builder();
+      this.memberships = base.memberships().builder();
+      this.table = base.table().builder();
+      this.organizationName = base.organization().getName();
+      this.warm = base.warm();
+    }
+
+    /**
+     * Starts a draft from a freshly loaded organization.
+     * Department members and heads are relinked to the instances of the organization-wide
+     * employee map, so every employee is held once in memory and both views stay in sync.
+     *
+     * @param organizationName the name of the organization
+     * @param employees the employees of the organization
+     * @param departments the departments of the organization
+     */
+    Draft(String organizationName, List<Employee> employees, List<Department> departments) {
+      this.organizationName = organizationName;
+      this.employees = new PersistentIntMap.Builder<>();
+      this.departments = new PersistentIntMap.Builder<>();
+      this.memberships = new PersistentIntMap.Builder<>();
+      this.table = new EmployeeTable.Builder(positionDictionary);
+      for (Employee employee : employees) {
+        this.employees.put(employee.getId(), employee);
+        this.table.put(employee);
+      }
+      for (Department loaded : departments) {
+        // The connection may keep and modify the departments it returns, so cache copies
+        Department department = loaded.copy();
+        department.shareEmployees(this.employees::get);
+        department.setPositionDictionary(positionDictionary);
+        this.owned.add(department);
+        this.departments.put(department.getId(), department);
+        for (Employee member : department.getEmployees()) {
+          this.memberships.put(member.getId(), department.getId());
+          this.table.put(member, department.getId());
+        }
+      }
+    }
+
+    /**
+     * Returns a department of this draft that may be modified, copying it if it is published.
+     *
+     * @param department the department to modify
+     * @return the modifiable department
+     */
+    Department edit(Department department) {
+      if (this.owned.contains(department)) {
+        return department;
+      }
+      Department copy = department.copy();
+      this.owned.add(copy);
+      this.departments.put(copy.getId(), copy);
+      return copy;
+    }
+
+    /**
+     * Returns the department of an employee in this draft.
+     *
+     * @param employeeId the employee ID
+     * @return the department, or null if the employee is not in any department
+     */
+    private Department departmentOf(int employeeId) {
+      Integer departmentId = this.memberships.get(employeeId);
+      return departmentId == null ? null : this.departments.get(departmentId);
+    }
+
+    /**
+     * Puts an employee into the draft, replacing the instance with the same ID in the
+     * organization and department views.
+     *
+     * @param employee the employee to put
+     */
+    void putEmployee(Employee employee) {
+      Employee cached = this.employees.put(employee.getId(), employee);
+      this.table.put(employee);
+      forgetMissing(missingEmployees, employee.getId());
+      if (cached != null && cached != employee) {
+        Department department = departmentOf(employee.getId());
+        if (department != null) {
+          edit(department).replaceEmployee(cached, employee);
+        }
+      }
+    }
+
+    /**
+     * Adds an employee of the draft to the members of a department.
+     *
+     * @param departmentId the department ID
+     * @param employee the employee to add
+     */
+    void addMember(int departmentId, Employee employee) {
+      Department department = this.departments.get(departmentId);
+      if (department != null) {
+        edit(department).addEmployee(employee);
+        this.memberships.put(employee.getId(), departmentId);
+        this.table.put(employee, departmentId);
+      }
+    }
+
+    /**
+     * Removes an employee from every view of the draft.
+     *
+     * @param employeeId the employee ID
+     */
+    void removeEmployee(int employeeId) {
+      this.table.remove(employeeId);
+      Employee removed = this.employees.remove(employeeId);
+      if (removed == null) {
+        return;
+      }
+      Department department = departmentOf(employeeId);
+      this.memberships.remove(employeeId);
+      if (department != null) {
+        Department editable = edit(department);
+        editable.removeEmployee(removed);
+        if (editable.getHead() != null && editable.getHead().getId() == employeeId) {
+          editable.setHead(null);
+        }
+      }
+    }
+
+    /**
+     * Puts a department into the draft, replacing the department with the same ID.
+     * The department must not be published yet.
+     *
+     * @param department the department to put
+     */
+    void putDepartment(Department department) {
+      // Members and head must refer to the cached employee instances
+      department.shareEmployees(this.employees::get);
+      department.setPositionDictionary(positionDictionary);
+      this.owned.add(department);
+      Department cached = this.departments.put(department.getId(), department);
+      forgetMissing(missingDepartments, department.getId());
+      if (cached != null && cached != department) {
+        for (Employee member : cached.getEmployees()) {
+          this.memberships.remove(member.getId());
+          this.table.setDepartment(member.getId(), EmployeeTable.NO_DEPARTMENT);
+        }
+      }
+      for (Employee member : department.getEmployees()) {
+        this.memberships.put(member.getId(), department.getId());
+        this.table.put(member, department.getId());
+      }
+    }
+
+    /**
+     * Puts a department read from the database into the draft, with its members.
+     * Members that are already cached keep their cached instance, since changes to them are
+     * refreshed on their own, and cached members that left the department are removed.
+     *
+     * @param fresh the department read from the database, which is not modified
+     */
+    void putFreshDepartment(Department fresh) {
+      IntHashMap<Employee> members = new IntHashMap<>(fresh.getEmployees().size());
+      for (Employee member : fresh.getEmployees()) {
+        members.put(member.getId(), member);
+        if (!this.employees.containsKey(member.getId())) {
+          putEmployee(member);
+        }
+      }
+      Department cached = this.departments.get(fresh.getId());
+      if (cached != null) {
+        // Members that left the department were deleted from the organization
+        for (Employee member : new ArrayList<>(cached.getEmployees())) {
+          if (!members.containsKey(member.getId())) {
+            removeEmployee(member.getId());
+          }
+        }
+      }
+      putDepartment(fresh.copy());
+    }
+
+    /**
+     * Removes a department and its members from every view of the draft.
+     *
+     * @param departmentId the department ID
+     */
+    void removeDepartment(int departmentId) {
+      Department removed = this.departments.remove(departmentId);
+      if (removed != null) {
+        for (Employee member : removed.getEmployees()) {
+          this.memberships.remove(member.getId());
+          this.employees.remove(member.getId());
+          this.table.remove(member.getId());
+        }
+      }
+    }
+
+    /**
+     * Builds the state to publish.
+     * The organization reads the built maps, so it is created in constant time.
+     *
+     * @return the new state
+     */
+    State build() {
+      PersistentIntMap<Employee> builtEmployees = this.employees.build();
+      PersistentIntMap<Department> builtDepartments = this.departments.build();
+      EmployeeTable builtTable = this.table.build();
+      Organization next = new Organization(organizationId, this.organizationName,
+          builtDepartments.values(), builtEmployees.values(), builtTable);
+      return new State(next, builtEmployees, builtDepartments, this.memberships.build(),
+          builtTable, this.warm, versionSequence.incrementAndGet());
     }
-    return success;
   }
 
   /**
@@ -305,9 +1144,7 @@ public final class HrDatabaseFacade {
     Organization newOrganization = dbConnection.insertOrganization(organization);
     if (newOrganization != null) {
       // Create a new instance of HrDatabaseFacade for the new organization
-      synchronized (HrDatabaseFacade.class) {
-        instances.put(newOrganization.getId(), new HrDatabaseFacade(newOrganization.getId()));
-      }
+      register(new HrDatabaseFacade(newOrganization.getId()));
     }
     return newOrganization;
   }
@@ -325,9 +1162,8 @@ public final class HrDatabaseFacade {
     boolean success = dbConnection.removeOrganization(organizationId);
     if (success) {
       // Remove the HrDatabaseFacade instance for the organization
-      synchronized (HrDatabaseFacade.class) {
-        instances.remove(organizationId);
-      }
+      instances.remove(organizationId);
+      publish(organizationId, CacheInvalidation.Kind.ORGANIZATION, organizationId);
     }
     return success;
   }
@@ -335,20 +1171,263 @@ public final class HrDatabaseFacade {
 
   /**
    * Returns the unique instance of the HR database facade for a specific organization.
-   * Designed with "double-checked locking" mechanism to ensure thread safety.
+   * Cached instances are returned without any locking. A cold organization is loaded by the
+   * first caller while concurrent callers for the same organization wait on its in-flight
+   * future, so cold starts of different organizations proceed in parallel.
    *
    * @param organizationId the organization id
    * @return the HR database facade instance
    */
   public static HrDatabaseFacade getInstance(int organizationId) {
-    if (!instances.containsKey(organizationId)) {
-      synchronized (HrDatabaseFacade.class) {
-        if (!instances.containsKey(organizationId)) {
-          instances.put(organizationId, new HrDatabaseFacade(organizationId));
+    HrDatabaseFacade facade = resolveInstance(organizationId);
+    accessCounts.computeIfAbsent(organizationId, id -> new LongAdder()).increment();
+    return facade;
+  }
+
+  /**
+   * Returns the version of the cached state of an organization, loading it if needed.
+   * Unlike {@link #getInstance(int)} the lookup does not count as an access.
+   *
+   * @param organizationId the organization id
+   * @return the version of the cached state
+   */
+  public static long versionOf(int organizationId) {
+    return resolveInstance(organizationId).getVersion();
+  }
+
+  /**
+   * Loads an organization into the cache and waits until it is fully cached.
+   * Unlike {@link #getInstance(int)} the load does not count as an access, so organizations
+   * preloaded at startup are not reported as active because of the warm-up itself.
+   *
+   * @param organizationId the organization id
+   */
+  static void preload(int organizationId) {
+    resolveInstance(organizationId).getOrganization();
+  }
+
+  /**
+   * Returns true if the organization is cached or exists in the database.
+   * Unlike {@link #getInstance(int)} an organization that is not cached is not loaded.
+   *
+   * @param organizationId the organization id
+   * @return true if the organization exists, false otherwise
+   */
+  public static boolean hasOrganization(int organizationId) {
+    return instances.containsKey(organizationId)
+        || dbConnection.getOrganization(organizationId) != null;
+  }
+
+  /**
+   * Passes every employee of an organization with its department to the sink, one at a time.
+   * A fully cached organization is exported from its published state. Any other organization
+   * is streamed from the database without being cached, so exporting a tenant that is not
+   * in use does not load it as a whole.
+   *
+   * @param organizationId the organization id
+   * @param sink receives every employee with its department, or null if it has none
+   */
+  public static void exportOrganization(
+      int organizationId, BiConsumer<Employee, Department> sink
+  ) {
+    HrDatabaseFacade facade = instances.get(organizationId);
+    if (facade == null || !facade.isWarm()) {
+      dbConnection.exportEmployees(organizationId, sink);
+      return;
+    }
+    // Every row is read from the same published state
+    State state = facade.state.get();
+    for (Employee employee : state.employees().values()) {
+      Integer departmentId = state.memberships().get(employee.getId());
+      sink.accept(employee, departmentId == null ? null : state.departments().get(departmentId));
+    }
+  }
+
+  /**
+   * Returns the cached facade of an organization, loading it if needed.
+   *
+   * @param organizationId the organization id
+   * @return the HR database facade instance
+   */
+  private static HrDatabaseFacade resolveInstance(int organizationId) {
+    HrDatabaseFacade facade = instances.get(organizationId);
+    if (facade != null) {
+      return facade;
+    }
+
+    CompletableFuture<HrDatabaseFacade> created = new CompletableFuture<>();
+    CompletableFuture<HrDatabaseFacade> inFlight = loading.putIfAbsent(organizationId, created);
+    if (inFlight != null) {
+      return awaitLoad(inFlight);
+    }
+    try {
+      // Another caller may have finished loading between the lookup and the registration
+      facade = instances.get(organizationId);
+      if (facade == null) {
+        facade = new HrDatabaseFacade(organizationId);
+        register(facade);
+      }
+      created.complete(facade);
+      return facade;
+    } catch (RuntimeException e) {
+      created.completeExceptionally(e);
+      throw e;
+    } finally {
+      loading.remove(organizationId, created);
+    }
+  }
+
+  /**
+   * Registers a new facade in the cache of organizations.
+   * A lazy facade unregisters itself when its background load fails, which does nothing if
+   * the load fails before it is registered, so the load is checked again once it is.
+   *
+   * @param facade the new facade
+   */
+  private static void register(HrDatabaseFacade facade) {
+    instances.put(facade.organizationId, facade);
+    if (facade.warmup.isCompletedExceptionally()) {
+      instances.remove(facade.organizationId, facade);
+    }
+  }
+
+  /**
+   * Returns the IDs of the organizations accessed most often since the service started.
+   *
+   * @param limit the maximum number of organizations to return
+   * @return the organization IDs, most accessed first
+   */
+  public static List<Integer> getMostActiveOrganizations(int limit) {
+    List<Map.Entry<Integer, Long>> counts = new ArrayList<>();
+    accessCounts.forEach((id, count) -> counts.add(Map.entry(id, count.sum())));
+    counts.sort(Map.Entry.<Integer, Long>comparingByValue().reversed());
+    List<Integer> organizationIds = new ArrayList<>();
+    for (int i = 0; i < counts.size() && i < limit; i++) {
+      organizationIds.add(counts.get(i).getKey());
+    }
+    return organizationIds;
+  }
+
+  /**
+   * Waits for an organization that is being loaded by another caller.
+   *
+   * @param inFlight the future of the in-flight load
+   * @return the loaded HR database facade instance
+   */
+  private static HrDatabaseFacade awaitLoad(CompletableFuture<HrDatabaseFacade> inFlight) {
+    try {
+      return inFlight.join();
+    } catch (CompletionException e) {
+      // Rethrow the loader's exception (e.g. NotFoundException) as is
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Schedules a periodic full reconciliation of every cached organization, to catch drift
+   * between the incrementally maintained cache and the database.
+   * Does nothing if the interval is not positive or a reconciliation is already scheduled.
+   *
+   * @param intervalMillis the interval between two reconciliations in milliseconds
+   */
+  public static synchronized void scheduleReconciliation(long intervalMillis) {
+    if (intervalMillis <= 0 || reconciler != null) {
+      return;
+    }
+    reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "hr-cache-reconciler");
+      thread.setDaemon(true);
+      return thread;
+    });
+    reconciler.scheduleWithFixedDelay(() -> {
+      for (HrDatabaseFacade facade : instances.values()) {
+        try {
+          facade.reconcile();
+        } catch (NotFoundException e) {
+          // The organization was removed outside of this service
+          instances.remove(facade.organizationId, facade);
+        } catch (RuntimeException e) {
+          logger.warn("Failed to reconcile organization {}", facade.organizationId, e);
         }
       }
+    }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    logger.info("Cache reconciliation scheduled every {} ms", intervalMillis);
+  }
+
+  /**
+   * Sets the channel that cache invalidations are exchanged with the other nodes over.
+   * Writes made through this node are published to the channel, and the invalidations
+   * received from other nodes refresh the affected entries of the local cache.
+   *
+   * @param channel the invalidation channel, or null to stop publishing
+   */
+  public static void setInvalidationChannel(InvalidationChannel channel) {
+    invalidationChannel = channel;
+    if (channel != null) {
+      channel.subscribe(HrDatabaseFacade::onInvalidation);
+      logger.info("Cache invalidation channel is set, node id {}", NODE_ID);
+    }
+  }
+
+  /**
+   * Publishes a change made by this facade to the other nodes.
+   *
+   * @param kind the kind of entity that has changed
+   * @param entityId the external ID of the entity that has changed
+   */
+  private void publish(CacheInvalidation.Kind kind, int entityId) {
+    publish(this.organizationId, kind, entityId);
+  }
+
+  /**
+   * Publishes a change of an organization to the other nodes.
+   *
+   * @param organizationId the organization ID
+   * @param kind the kind of entity that has changed
+   * @param entityId the external ID of the entity that has changed
+   */
+  private static void publish(int organizationId, CacheInvalidation.Kind kind, int entityId) {
+    InvalidationChannel channel = invalidationChannel;
+    if (channel == null) {
+      return;
+    }
+    long version = publishedVersions
+        .computeIfAbsent(organizationId, id -> new AtomicLong())
+        .incrementAndGet();
+    channel.publish(new CacheInvalidation(NODE_ID, organizationId, version, kind, entityId));
+  }
+
+  /**
+   * Applies an invalidation received from another node.
+   * A gap in the versions received from a node means that invalidations were lost, so the
+   * whole organization is evicted and loaded again on its next access. Otherwise the
+   * affected entity is refreshed in the background, so the caller is never blocked on the
+   * database or on the warmup of the organization.
+   *
+   * @param invalidation the received invalidation
+   */
+  static void onInvalidation(CacheInvalidation invalidation) {
+    if (NODE_ID.equals(invalidation.getNodeId())) {
+      return;
+    }
+    int organizationId = invalidation.getOrganizationId();
+    String source = invalidation.getNodeId() + ":" + organizationId;
+    Long previous = receivedVersions.put(source, invalidation.getVersion());
+    long expected = previous == null ? 1 : previous + 1;
+
+    HrDatabaseFacade facade = instances.get(organizationId);
+    if (facade == null) {
+      return;
+    }
+    if (invalidation.getVersion() != expected) {
+      logger.info("Missed cache invalidations of organization {}, evicting it", organizationId);
+      instances.remove(organizationId, facade);
+      return;
     }
-    return instances.get(organizationId);
+    facade.scheduleRefresh(invalidation.getKind(), invalidation.getEntityId());
   }
 
   /**
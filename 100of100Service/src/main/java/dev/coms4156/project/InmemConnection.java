@@ -5,6 +5,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * Provides in-memory data for testing purposes without connecting to a real database.
@@ -95,10 +96,9 @@ public class InmemConnection implements DatabaseConnection {
     }
     int newEmployeeId = maxId + 1;
 
-    Employee newEmployee = new Employee(newEmployeeId, employee.getName(), employee.getHireDate());
-    newEmployee.setPosition(employee.getPosition());
-    newEmployee.setSalary(employee.getSalary());
-    newEmployee.setPerformance(employee.getPerformance());
+    Employee newEmployee = Employee.stored(newEmployeeId, employee.getName(),
+        employee.getHireDate(), employee.getPosition(), employee.getSalary(),
+        employee.getPerformance());
 
     employees.add(newEmployee);
     targetDept.addEmployee(newEmployee);
@@ -106,6 +106,41 @@ public class InmemConnection implements DatabaseConnection {
     return organizationId * 10000 + newEmployeeId;
   }
 
+  @Override
+  public int addEmployeesToDepartments(
+      int organizationId, List<Integer> departmentIds, List<Employee> employees
+  ) {
+    List<Employee> organizationEmployees = testEmployees.get(organizationId);
+    if (organizationEmployees == null) {
+      return -1;
+    }
+    List<Department> targets = new ArrayList<>();
+    for (int departmentId : departmentIds) {
+      Department target = getDepartment(organizationId, departmentId % 10000);
+      if (target == null) {
+        return -1;
+      }
+      targets.add(target);
+    }
+
+    int maxId = 0;
+    for (Employee emp : organizationEmployees) {
+      maxId = Math.max(maxId, emp.getId());
+    }
+    if (maxId + employees.size() > 9999) {
+      return -1;
+    }
+    for (int i = 0; i < employees.size(); i++) {
+      Employee employee = employees.get(i);
+      Employee newEmployee = new Employee(maxId + 1 + i, employee.getName(),
+          employee.getHireDate(), employee.getPosition(), employee.getSalary(),
+          employee.getPerformance());
+      organizationEmployees.add(newEmployee);
+      targets.get(i).addEmployee(newEmployee);
+    }
+    return organizationId * 10000 + maxId + 1;
+  }
+
   @Override
   public boolean removeEmployeeFromDepartment(
       int organizationId, int departmentId, int employeeId
@@ -151,11 +186,8 @@ public class InmemConnection implements DatabaseConnection {
 
     boolean employeeRemoved = employees.remove(targetEmployee);
 
-    boolean deptRemoved = false;
-    List<Employee> deptEmployees = targetDept.getEmployees();
-    if (deptEmployees != null) {
-      deptRemoved = deptEmployees.remove(targetEmployee);
-    }
+    boolean deptRemoved = targetDept.getEmployees().contains(targetEmployee);
+    targetDept.removeEmployee(targetEmployee);
 
     return employeeRemoved && deptRemoved;
   }
@@ -192,15 +224,7 @@ public class InmemConnection implements DatabaseConnection {
       List<Department> departments = testDepartments.get(organizationId);
       if (departments != null) {
         for (Department dept : departments) {
-          List<Employee> deptEmployees = dept.getEmployees();
-          if (deptEmployees != null) {
-            for (int i = 0; i < deptEmployees.size(); i++) {
-              if (deptEmployees.get(i).getId() == employee.getId()) {
-                deptEmployees.set(i, employee);
-                break;
-              }
-            }
-          }
+          dept.replaceEmployee(employee);
 
           Employee head = dept.getHead();
           if (head != null && head.getId() == employee.getId()) {
@@ -253,6 +277,15 @@ public class InmemConnection implements DatabaseConnection {
     return null;
   }
 
+  @Override
+  public DepartmentPage getDepartmentPage(
+      int organizationId, int externalDepartmentId, int afterEmployeeId, int limit
+  ) {
+    Department department = getDepartment(organizationId, externalDepartmentId);
+    return department != null
+        ? DepartmentPage.of(department, afterEmployeeId, limit) : null;
+  }
+
   /**
    * Retrieves a list of employees for a given organization.
    *
@@ -264,6 +297,19 @@ public class InmemConnection implements DatabaseConnection {
     return testEmployees.getOrDefault(organizationId, new ArrayList<>());
   }
 
+  @Override
+  public void exportEmployees(int organizationId, BiConsumer<Employee, Department> sink) {
+    Map<Integer, Department> memberships = new HashMap<>();
+    for (Department department : testDepartments.getOrDefault(organizationId, List.of())) {
+      for (Employee member : department.getEmployees()) {
+        memberships.putIfAbsent(member.getId(), department);
+      }
+    }
+    for (Employee employee : getEmployees(organizationId)) {
+      sink.accept(employee, memberships.get(employee.getId()));
+    }
+  }
+
   /**
    * Retrieves a list of departments for a given organization.
    *
@@ -0,0 +1,30 @@
+package dev.coms4156.project;
+
+import java.util.function.Consumer;
+
+/**
+ * Interface for broadcasting cache invalidations between the nodes of the service.
+ * Designed under Strategy Pattern, like the database connection.
+ */
+public interface InvalidationChannel {
+
+  /**
+   * Sends an invalidation to the other nodes.
+   *
+   * @param invalidation the invalidation to send
+   */
+  void publish(CacheInvalidation invalidation);
+
+  /**
+   * Registers a listener for the invalidations received from other nodes.
+   * Channels may deliver the node's own invalidations as well.
+   *
+   * @param listener the listener to register
+   */
+  void subscribe(Consumer<CacheInvalidation> listener);
+
+  /**
+   * Stops the channel and releases its resources.
+   */
+  void close();
+}
@@ -0,0 +1,30 @@
+package dev.coms4156.project;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An in-process invalidation channel that delivers every published invalidation
+ * synchronously to all of its listeners. Used by tests and single-node deployments.
+ */
+public class LoopbackInvalidationChannel implements InvalidationChannel {
+  private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void publish(CacheInvalidation invalidation) {
+    for (Consumer<CacheInvalidation> listener : listeners) {
+      listener.accept(invalidation);
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<CacheInvalidation> listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void close() {
+    listeners.clear();
+  }
+}
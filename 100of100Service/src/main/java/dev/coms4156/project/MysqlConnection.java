@@ -1,22 +1,31 @@
 package dev.coms4156.project;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import dev.coms4156.project.exception.InternalServerErrorException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * A singleton class of database connection.
- * This class is responsible for creating and managing the connection to the database.
+ * This class is responsible for creating and managing the connection pool to the database.
+ * Every operation borrows a pooled connection and returns it when done, so requests from
+ * different organizations run in parallel instead of sharing a single socket.
  * Designed under the Singleton Design Pattern.
  */
 public final class MysqlConnection implements DatabaseConnection {
+  // Number of employees an export reads per query
+  private static final int EXPORT_PAGE_SIZE = Integer.getInteger("export.pageSize", 1000);
   private static volatile MysqlConnection instance;
-  private Connection connection;
+  private final HikariDataSource dataSource;
 
   @Override
   public String connectionName() {
@@ -25,21 +34,60 @@ public final class MysqlConnection implements DatabaseConnection {
 
   MysqlConnection() {
     try {
-      String url = System.getProperty(
-          "db.url",
-          "jdbc:mysql://demo-db.c3uqsummqbeu.us-east-1.rds.amazonaws.com:3306"
-              + "/demo_db");
-      String user = System.getProperty("db.user", "admin");
-      String password = System.getProperty("db.password", "12345678");
-
-      this.connection = DriverManager.getConnection(url, user, password);
-    } catch (SQLException e) {
+      this.dataSource = new HikariDataSource(poolConfig());
+    } catch (RuntimeException e) {
       e.printStackTrace();
       throw (InternalServerErrorException)
           new InternalServerErrorException("Failed to connect to the database.").initCause(e);
     }
   }
 
+  /**
+   * Builds the connection pool configuration from the {@code db.*} system properties.
+   * The pool is bounded, validates connections before handing them out, evicts idle
+   * connections and reports connections held longer than the leak detection threshold.
+   *
+   * @return the pool configuration
+   */
+  static HikariConfig poolConfig() {
+    HikariConfig config = new HikariConfig();
+    config.setJdbcUrl(System.getProperty(
+        "db.url",
+        "jdbc:mysql://demo-db.c3uqsummqbeu.us-east-1.rds.amazonaws.com:3306"
+            + "/demo_db"));
+    config.setUsername(System.getProperty("db.user", "admin"));
+    config.setPassword(System.getProperty("db.password", "12345678"));
+    config.setPoolName("hr-mysql-pool");
+    config.setMaximumPoolSize(Integer.getInteger("db.pool.maxSize", 10));
+    config.setMinimumIdle(Integer.getInteger("db.pool.minIdle", 2));
+    config.setConnectionTimeout(Long.getLong("db.pool.connectionTimeoutMs", 30_000L));
+    config.setValidationTimeout(Long.getLong("db.pool.validationTimeoutMs", 5_000L));
+    config.setIdleTimeout(Long.getLong("db.pool.idleTimeoutMs", 600_000L));
+    config.setMaxLifetime(Long.getLong("db.pool.maxLifetimeMs", 1_800_000L));
+    config.setLeakDetectionThreshold(Long.getLong("db.pool.leakDetectionMs", 60_000L));
+    config.setRegisterMbeans(true);
+    // Send batched inserts as multi-row INSERT statements instead of one statement per row
+    config.addDataSourceProperty("rewriteBatchedStatements", "true");
+    return config;
+  }
+
+  /**
+   * Returns a snapshot of the connection pool utilization.
+   * Useful to size {@code db.pool.maxSize} against the actual request volume.
+   *
+   * @return a Map of the pool statistics that can be easily converted to JSON
+   */
+  public Map<String, Object> getPoolStatistics() {
+    Map<String, Object> result = new HashMap<>();
+    HikariPoolMXBean pool = this.dataSource.getHikariPoolMXBean();
+    result.put("maxSize", this.dataSource.getMaximumPoolSize());
+    result.put("active", pool != null ? pool.getActiveConnections() : 0);
+    result.put("idle", pool != null ? pool.getIdleConnections() : 0);
+    result.put("total", pool != null ? pool.getTotalConnections() : 0);
+    result.put("threadsAwaiting", pool != null ? pool.getThreadsAwaitingConnection() : 0);
+    return result;
+  }
+
   /**
    * Returns an employee in a given organization by external ID.
    *
@@ -51,21 +99,20 @@ public final class MysqlConnection implements DatabaseConnection {
   public Employee getEmployee(int organizationId, int externalEmployeeId) {
     int internalEmployeeId = organizationId * 10000 + externalEmployeeId;
     String query = "SELECT * FROM employees WHERE organization_id = ? AND employee_id = ?";
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement pstmt = connection.prepareStatement(query)) {
       pstmt.setInt(1, organizationId);
       pstmt.setInt(2, internalEmployeeId);
       try (ResultSet rs = pstmt.executeQuery()) {
         if (rs.next()) {
-          Employee employee = new Employee(
+          return Employee.stored(
               externalEmployeeId,
               rs.getString("name"),
-              rs.getDate("hire_date")
+              rs.getDate("hire_date"),
+              rs.getString("position"),
+              rs.getDouble("salary"),
+              rs.getDouble("performance")
           );
-          // Set additional employee information
-          employee.setPosition(rs.getString("position"));
-          employee.setSalary(rs.getDouble("salary"));
-          employee.setPerformance(rs.getDouble("performance"));
-          return employee;
         }
       }
     } catch (SQLException e) {
@@ -85,20 +132,112 @@ public final class MysqlConnection implements DatabaseConnection {
   public Department getDepartment(int organizationId, int externalDepartmentId) {
     int internalDepartmentId = organizationId * 10000 + externalDepartmentId;
     String query = "SELECT * FROM departments WHERE organization_id = ? AND department_id = ?";
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement pstmt = connection.prepareStatement(query)) {
       pstmt.setInt(1, organizationId);
       pstmt.setInt(2, internalDepartmentId);
       try (ResultSet rs = pstmt.executeQuery()) {
         if (rs.next()) {
           List<Employee> employees =
-              getEmployeesForDepartment(internalDepartmentId, organizationId);
-          return new Department(
-              externalDepartmentId,
-              rs.getString("name"),
-              employees
-          );
+              getEmployeesForDepartment(connection, internalDepartmentId, organizationId);
+          Department department = new Department(externalDepartmentId, rs.getString("name"));
+          int headEmployeeId = rs.getInt("head_employee_id");
+          boolean hasHead = !rs.wasNull();
+          for (Employee employee : employees) {
+            department.addEmployee(employee);
+            if (hasHead && employee.getId() == headEmployeeId % 10000) {
+              department.setHead(employee);
+            }
+          }
+          return department;
+        }
+      }
+    } catch (SQLException e) {
+      e.printStackTrace();
+    }
+    return null;
+  }
+
+  /**
+   * Returns a department with one page of its members, ordered by ascending external ID.
+   * The member count is computed by the database, and the page is a keyset range scan of
+   * the department's index on the employees table, which is ordered by employee ID, so a
+   * page reads only its own rows wherever it lies in the department.
+   *
+   * @param organizationId the organization id (clientId)
+   * @param externalDepartmentId the external department id
+   * @param afterEmployeeId the external ID of the last member of the previous page, exclusive
+   * @param limit the maximum number of members of the page, 0 for none
+   * @return the page of the department if found, null otherwise
+   */
+  @Override
+  public DepartmentPage getDepartmentPage(
+      int organizationId, int externalDepartmentId, int afterEmployeeId, int limit
+  ) {
+    int internalDepartmentId = organizationId * 10000 + externalDepartmentId;
+    String departmentQuery = "SELECT d.name, d.head_employee_id, (SELECT COUNT(*) FROM employees"
+        + " e WHERE e.department_id = d.department_id AND e.organization_id = ?) AS member_count"
+        + " FROM departments d WHERE d.organization_id = ? AND d.department_id = ?";
+    String headQuery = "SELECT * FROM employees WHERE employee_id = ? AND department_id = ?"
+        + " AND organization_id = ?";
+    String pageQuery = "SELECT * FROM employees WHERE department_id = ? AND organization_id = ?"
+        + " AND employee_id > ? ORDER BY employee_id LIMIT ?";
+    try (Connection connection = dataSource.getConnection()) {
+      String name;
+      int headEmployeeId;
+      int employeeCount;
+      try (PreparedStatement pstmt = connection.prepareStatement(departmentQuery)) {
+        pstmt.setInt(1, organizationId);
+        pstmt.setInt(2, organizationId);
+        pstmt.setInt(3, internalDepartmentId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+          if (!rs.next()) {
+            return null;
+          }
+          name = rs.getString("name");
+          headEmployeeId = rs.getInt("head_employee_id");
+          if (rs.wasNull()) {
+            headEmployeeId = -1;
+          }
+          employeeCount = rs.getInt("member_count");
+        }
+      }
+
+      // The head may be on any page, it is read on its own
+      Employee head = null;
+      if (headEmployeeId >= 0) {
+        try (PreparedStatement pstmt = connection.prepareStatement(headQuery)) {
+          pstmt.setInt(1, headEmployeeId);
+          pstmt.setInt(2, internalDepartmentId);
+          pstmt.setInt(3, organizationId);
+          try (ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next()) {
+              head = readEmployee(rs);
+            }
+          }
+        }
+      }
+      if (limit <= 0) {
+        return new DepartmentPage(
+            externalDepartmentId, name, head, employeeCount, List.of(), null);
+      }
+
+      // Read one more member than requested to tell whether another page follows
+      List<Employee> members = new ArrayList<>();
+      try (PreparedStatement pstmt = connection.prepareStatement(pageQuery)) {
+        pstmt.setInt(1, internalDepartmentId);
+        pstmt.setInt(2, organizationId);
+        pstmt.setInt(3, organizationId * 10000 + Math.max(afterEmployeeId, 0));
+        pstmt.setInt(4, DepartmentPage.limitPlusOne(limit));
+        try (ResultSet rs = pstmt.executeQuery()) {
+          while (rs.next()) {
+            Employee member = readEmployee(rs);
+            // Share the instance of the head, as a whole department would
+            members.add(head != null && member.getId() == head.getId() ? head : member);
+          }
         }
       }
+      return DepartmentPage.of(externalDepartmentId, name, head, employeeCount, members, limit);
     } catch (SQLException e) {
       e.printStackTrace();
     }
@@ -115,22 +254,12 @@ public final class MysqlConnection implements DatabaseConnection {
   public List<Employee> getEmployees(int organizationId) {
     List<Employee> employees = new ArrayList<>();
     String query = "SELECT * FROM employees WHERE organization_id = ?";
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement pstmt = connection.prepareStatement(query)) {
       pstmt.setInt(1, organizationId);
       try (ResultSet rs = pstmt.executeQuery()) {
         while (rs.next()) {
-          int internalId = rs.getInt("employee_id");
-          int externalId = internalId % 10000;
-          Employee employee = new Employee(
-              externalId,
-              rs.getString("name"),
-              rs.getDate("hire_date")
-          );
-          // Set additional employee information
-          employee.setPosition(rs.getString("position"));
-          employee.setSalary(rs.getDouble("salary"));
-          employee.setPerformance(rs.getDouble("performance"));
-          employees.add(employee);
+          employees.add(readEmployee(rs));
         }
       }
     } catch (SQLException e) {
@@ -139,8 +268,76 @@ public final class MysqlConnection implements DatabaseConnection {
     return employees;
   }
 
+  /**
+   * Passes every employee of an organization with its department to the sink, one at a time.
+   * The departments are read first, then the employees are read in pages of ascending ID,
+   * each page starting after the last ID of the previous one. Every query borrows its own
+   * connection and returns it to the pool before the page is passed to the sink, so a slow
+   * consumer never holds a connection and the export reads at most one page ahead of it.
+   * Pages are separate reads, so employees written during the export may or may not be
+   * included, but no employee is passed twice.
+   *
+   * @param organizationId the organization id
+   * @param sink receives every employee with its department, or null if it has none
+   * @throws InternalServerErrorException if the employees cannot be read
+   */
+  @Override
+  public void exportEmployees(int organizationId, BiConsumer<Employee, Department> sink) {
+    String departmentQuery =
+        "SELECT department_id, name FROM departments WHERE organization_id = ?";
+    String employeeQuery = "SELECT * FROM employees WHERE organization_id = ?"
+        + " AND employee_id > ? ORDER BY employee_id LIMIT ?";
+    try {
+      Map<Integer, Department> departments = new HashMap<>();
+      try (Connection connection = dataSource.getConnection();
+          PreparedStatement pstmt = connection.prepareStatement(departmentQuery)) {
+        pstmt.setInt(1, organizationId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+          while (rs.next()) {
+            int departmentId = rs.getInt("department_id");
+            departments.put(departmentId,
+                new Department(departmentId % 10000, rs.getString("name")));
+          }
+        }
+      }
+
+      List<Employee> employees = new ArrayList<>(EXPORT_PAGE_SIZE);
+      List<Department> employeeDepartments = new ArrayList<>(EXPORT_PAGE_SIZE);
+      int afterEmployeeId = Integer.MIN_VALUE;
+      do {
+        employees.clear();
+        employeeDepartments.clear();
+        try (Connection connection = dataSource.getConnection();
+            PreparedStatement pstmt = connection.prepareStatement(employeeQuery)) {
+          pstmt.setInt(1, organizationId);
+          pstmt.setInt(2, afterEmployeeId);
+          pstmt.setInt(3, EXPORT_PAGE_SIZE);
+          try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+              afterEmployeeId = rs.getInt("employee_id");
+              employees.add(readEmployee(rs));
+              int departmentId = rs.getInt("department_id");
+              employeeDepartments.add(rs.wasNull() ? null : departments.get(departmentId));
+            }
+          }
+        }
+        // The connection is back in the pool while the sink writes the page
+        for (int i = 0; i < employees.size(); i++) {
+          sink.accept(employees.get(i), employeeDepartments.get(i));
+        }
+      } while (employees.size() == EXPORT_PAGE_SIZE);
+    } catch (SQLException e) {
+      e.printStackTrace();
+      throw (InternalServerErrorException) new InternalServerErrorException(
+          "Failed to export the organization.").initCause(e);
+    }
+  }
+
   /**
    * Returns a list of departments in a given organization.
+   * The departments, their members and their heads are hydrated with two set-based
+   * queries regardless of the number of departments, and each head is the same
+   * Employee instance as the corresponding member.
    *
    * @param organizationId the organization id
    * @return a list of departments in the organization
@@ -148,30 +345,53 @@ public final class MysqlConnection implements DatabaseConnection {
   @Override
   public List<Department> getDepartments(int organizationId) {
     List<Department> departments = new ArrayList<>();
-    String query = "SELECT * FROM departments WHERE organization_id = ?";
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-      pstmt.setInt(1, organizationId);
-      try (ResultSet rs = pstmt.executeQuery()) {
-        while (rs.next()) {
-          int internalId = rs.getInt("department_id");
-          int externalId = internalId % 10000;
-          List<Employee> employees = getEmployeesForDepartment(internalId, organizationId);
-          Department department = new Department(
-              externalId,
-              rs.getString("name"),
-              employees
-          );
+    Map<Integer, Department> departmentsById = new HashMap<>();
+    Map<Department, Integer> headIds = new HashMap<>();
+    String departmentQuery = "SELECT * FROM departments WHERE organization_id = ?";
+    String memberQuery =
+        "SELECT * FROM employees WHERE organization_id = ? AND department_id IS NOT NULL";
+
+    try (Connection connection = dataSource.getConnection()) {
+      try (PreparedStatement pstmt = connection.prepareStatement(departmentQuery)) {
+        pstmt.setInt(1, organizationId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+          while (rs.next()) {
+            int internalId = rs.getInt("department_id");
+            Department department = new Department(internalId % 10000, rs.getString("name"));
+            int headEmployeeId = rs.getInt("head_employee_id");
+            if (!rs.wasNull()) {
+              headIds.put(department, headEmployeeId);
+            }
+            departments.add(department);
+            departmentsById.put(internalId, department);
+          }
+        }
+      }
+      if (departments.isEmpty()) {
+        return departments;
+      }
 
-          // Get and set head if exists
-          Integer headEmployeeId = rs.getInt("head_employee_id");
-          if (!rs.wasNull()) {
-            Employee head = getEmployee(organizationId, headEmployeeId % 10000);
-            if (head != null) {
-              department.setHead(head);
+      // Load the members of every department at once and group them in memory
+      Map<Integer, Employee> members = new HashMap<>();
+      try (PreparedStatement pstmt = connection.prepareStatement(memberQuery)) {
+        pstmt.setInt(1, organizationId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+          while (rs.next()) {
+            Department department = departmentsById.get(rs.getInt("department_id"));
+            if (department != null) {
+              Employee employee = readEmployee(rs);
+              department.addEmployee(employee);
+              members.put(rs.getInt("employee_id"), employee);
             }
           }
+        }
+      }
 
-          departments.add(department);
+      // Resolve the heads against the members that were just loaded
+      for (Map.Entry<Department, Integer> entry : headIds.entrySet()) {
+        Employee head = members.get(entry.getValue());
+        if (head != null) {
+          entry.getKey().setHead(head);
         }
       }
     } catch (SQLException e) {
@@ -189,7 +409,8 @@ public final class MysqlConnection implements DatabaseConnection {
   @Override
   public Organization getOrganization(int organizationId) {
     String query = "SELECT * FROM organizations WHERE organization_id = ?";
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement pstmt = connection.prepareStatement(query)) {
       pstmt.setInt(1, organizationId);
       try (ResultSet rs = pstmt.executeQuery()) {
         if (rs.next()) {
@@ -205,14 +426,35 @@ public final class MysqlConnection implements DatabaseConnection {
     return null;
   }
 
+  /**
+   * Builds an employee from the current row of a result set over the employees table.
+   *
+   * @param rs the result set positioned on an employee row
+   * @return the employee with its external ID
+   * @throws SQLException if a column cannot be read
+   */
+  private static Employee readEmployee(ResultSet rs) throws SQLException {
+    return Employee.stored(
+        rs.getInt("employee_id") % 10000,
+        rs.getString("name"),
+        rs.getDate("hire_date"),
+        rs.getString("position"),
+        rs.getDouble("salary"),
+        rs.getDouble("performance")
+    );
+  }
+
   /**
    * Returns a list of employees in a given department.
    *
+   * @param connection the borrowed connection to run the query on
    * @param internalDepartmentId the internal department id
    * @param organizationId the organization id
    * @return a list of employees in the department
    */
-  private List<Employee> getEmployeesForDepartment(int internalDepartmentId, int organizationId) {
+  private List<Employee> getEmployeesForDepartment(
+      Connection connection, int internalDepartmentId, int organizationId
+  ) {
     List<Employee> employees = new ArrayList<>();
     String query = "SELECT * FROM employees WHERE department_id = ? AND organization_id = ?";
 
@@ -221,18 +463,7 @@ public final class MysqlConnection implements DatabaseConnection {
       pstmt.setInt(2, organizationId);
       try (ResultSet rs = pstmt.executeQuery()) {
         while (rs.next()) {
-          int internalId = rs.getInt("employee_id");
-          int externalId = internalId % 10000;
-          Employee employee = new Employee(
-              externalId,
-              rs.getString("name"),
-              rs.getDate("hire_date")
-          );
-          // Set additional employee information
-          employee.setPosition(rs.getString("position"));
-          employee.setSalary(rs.getDouble("salary"));
-          employee.setPerformance(rs.getDouble("performance"));
-          employees.add(employee);
+          employees.add(readEmployee(rs));
         }
       }
     } catch (SQLException e) {
@@ -252,52 +483,140 @@ public final class MysqlConnection implements DatabaseConnection {
    */
   @Override
   public int addEmployeeToDepartment(int organizationId, int departmentId, Employee employee) {
-    // First get the next available employee ID for this organization
-    String maxIdQuery =
-        "SELECT MAX(employee_id) as max_id "
-            + "FROM employees "
-            + "WHERE organization_id = ?";
-    int newEmployeeId;
+    String insertEmployeeQuery =
+        "INSERT INTO employees "
+            + "(employee_id, organization_id, department_id, "
+            + "name, hire_date, position, salary, performance) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // The ID is allocated and used in one transaction, so concurrent adds cannot share it
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      try {
+        int newEmployeeId =
+            allocateInternalIds(connection, "employees", "employee_id", organizationId, 1);
+        if (newEmployeeId == -1) {
+          connection.rollback();
+          return -1;
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement(insertEmployeeQuery)) {
+          pstmt.setInt(1, newEmployeeId);
+          pstmt.setInt(2, organizationId);
+          pstmt.setInt(3, departmentId);
+          pstmt.setString(4, employee.getName());
+          pstmt.setDate(5, new java.sql.Date(employee.getHireDate().getTime()));
+          pstmt.setString(6, employee.getPosition());
+          pstmt.setDouble(7, employee.getSalary());
+          pstmt.setDouble(8, employee.getPerformance());
+
+          if (pstmt.executeUpdate() > 0) {
+            connection.commit();
+            return newEmployeeId;
+          }
+        }
+        connection.rollback();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(true);
+      }
+    } catch (SQLException e) {
+      e.printStackTrace();
+    }
+    return -1;
+  }
 
+  /**
+   * Allocates a block of internal IDs of an organization in a table, above the highest one.
+   * The read locks the highest ID of the organization until the transaction of the
+   * connection ends, so the caller must insert the IDs in the same transaction.
+   *
+   * @param connection the connection, with auto-commit disabled
+   * @param table the table of the IDs
+   * @param idColumn the ID column of the table
+   * @param organizationId the organization id
+   * @param count the number of IDs to allocate
+   * @return the first internal ID of the block, or -1 if the organization has no room left
+   * @throws SQLException if the query fails
+   */
+  private static int allocateInternalIds(
+      Connection connection, String table, String idColumn, int organizationId, int count
+  ) throws SQLException {
+    String maxIdQuery = "SELECT MAX(" + idColumn + ") AS max_id FROM " + table
+        + " WHERE organization_id = ? FOR UPDATE";
+    int firstId = organizationId * 10000 + 1;
     try (PreparedStatement pstmt = connection.prepareStatement(maxIdQuery)) {
       pstmt.setInt(1, organizationId);
       try (ResultSet rs = pstmt.executeQuery()) {
         if (rs.next()) {
           int maxId = rs.getInt("max_id");
-          if (rs.wasNull()) {
-            newEmployeeId = organizationId * 10000 + 1;
-          } else {
-            newEmployeeId = maxId + 1;
+          if (!rs.wasNull()) {
+            firstId = maxId + 1;
           }
-        } else {
-          newEmployeeId = organizationId * 10000 + 1;
         }
       }
-    } catch (SQLException e) {
-      e.printStackTrace();
+    }
+    // External IDs are the last four digits, the block must not reach the next organization
+    if ((long) firstId + count - 1 > organizationId * 10000L + 9999) {
       return -1;
     }
+    return firstId;
+  }
 
-    // Insert the new employee
+  /**
+   * Adds new employees to departments in the database, all of them or none.
+   * The block of IDs is allocated with a single locking read of the highest ID, and the rows
+   * are sent as one JDBC batch, which the driver rewrites to multi-row INSERT statements
+   * (see {@link #poolConfig()}), all in one transaction.
+   *
+   * @param organizationId the organization id
+   * @param departmentIds the internal department id of every employee
+   * @param employees the employees to add
+   * @return the internal ID of the first employee, the others follow in order, or -1 if failed
+   */
+  @Override
+  public int addEmployeesToDepartments(
+      int organizationId, List<Integer> departmentIds, List<Employee> employees
+  ) {
     String insertEmployeeQuery =
         "INSERT INTO employees "
             + "(employee_id, organization_id, department_id, "
             + "name, hire_date, position, salary, performance) "
             + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
 
-    try (PreparedStatement pstmt = connection.prepareStatement(insertEmployeeQuery)) {
-      pstmt.setInt(1, newEmployeeId);
-      pstmt.setInt(2, organizationId);
-      pstmt.setInt(3, departmentId);
-      pstmt.setString(4, employee.getName());
-      pstmt.setDate(5, new java.sql.Date(employee.getHireDate().getTime()));
-      pstmt.setString(6, employee.getPosition());
-      pstmt.setDouble(7, employee.getSalary());
-      pstmt.setDouble(8, employee.getPerformance());
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      try {
+        int firstEmployeeId = allocateInternalIds(
+            connection, "employees", "employee_id", organizationId, employees.size());
+        if (firstEmployeeId == -1) {
+          connection.rollback();
+          return -1;
+        }
 
-      int rowsAffected = pstmt.executeUpdate();
-      if (rowsAffected > 0) {
-        return newEmployeeId;
+        try (PreparedStatement pstmt = connection.prepareStatement(insertEmployeeQuery)) {
+          for (int i = 0; i < employees.size(); i++) {
+            Employee employee = employees.get(i);
+            pstmt.setInt(1, firstEmployeeId + i);
+            pstmt.setInt(2, organizationId);
+            pstmt.setInt(3, departmentIds.get(i));
+            pstmt.setString(4, employee.getName());
+            pstmt.setDate(5, new java.sql.Date(employee.getHireDate().getTime()));
+            pstmt.setString(6, employee.getPosition());
+            pstmt.setDouble(7, employee.getSalary());
+            pstmt.setDouble(8, employee.getPerformance());
+            pstmt.addBatch();
+          }
+          pstmt.executeBatch();
+        }
+        connection.commit();
+        return firstEmployeeId;
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(true);
       }
     } catch (SQLException e) {
       e.printStackTrace();
@@ -320,7 +639,8 @@ public final class MysqlConnection implements DatabaseConnection {
         "SELECT head_employee_id FROM departments "
             + "WHERE department_id = ? AND organization_id = ?";
 
-    try (PreparedStatement checkStmt = connection.prepareStatement(checkHeadQuery)) {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement checkStmt = connection.prepareStatement(checkHeadQuery)) {
       checkStmt.setInt(1, departmentId);
       checkStmt.setInt(2, organizationId);
 
@@ -360,7 +680,8 @@ public final class MysqlConnection implements DatabaseConnection {
     String query = "UPDATE employees SET name = ?, position = ?, salary = ?, performance = ? "
         + "WHERE organization_id = ? AND employee_id = ?";
 
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement pstmt = connection.prepareStatement(query)) {
       pstmt.setString(1, employee.getName());
       pstmt.setString(2, employee.getPosition());
       pstmt.setDouble(3, employee.getSalary());
@@ -396,7 +717,8 @@ public final class MysqlConnection implements DatabaseConnection {
           "SELECT 1 FROM employees "
               + "WHERE employee_id = ? AND organization_id = ? AND department_id = ?";
 
-      try (PreparedStatement verifyStmt = connection.prepareStatement(verifyQuery)) {
+      try (Connection connection = dataSource.getConnection();
+          PreparedStatement verifyStmt = connection.prepareStatement(verifyQuery)) {
         verifyStmt.setInt(1, headEmployeeId);
         verifyStmt.setInt(2, organizationId);
         verifyStmt.setInt(3, internalDepartmentId);
@@ -413,7 +735,8 @@ public final class MysqlConnection implements DatabaseConnection {
     String query = "UPDATE departments SET name = ?, head_employee_id = ? "
         + "WHERE organization_id = ? AND department_id = ?";
 
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement pstmt = connection.prepareStatement(query)) {
       pstmt.setString(1, department.getName());
       if (head != null) {
         pstmt.setInt(2, headEmployeeId);
@@ -435,7 +758,8 @@ public final class MysqlConnection implements DatabaseConnection {
   public boolean updateOrganization(Organization organization) {
     String query = "UPDATE organizations SET name = ? WHERE organization_id = ?";
 
-    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement pstmt = connection.prepareStatement(query)) {
       pstmt.setString(1, organization.getName());
       pstmt.setInt(2, organization.getId());
 
@@ -449,43 +773,36 @@ public final class MysqlConnection implements DatabaseConnection {
 
   @Override
   public Department insertDepartment(int organizationId, Department department) {
-    // Generate a new internal department ID
-    String maxIdQuery =
-        "SELECT MAX(department_id) as max_id FROM departments WHERE organization_id = ?";
-
-    int newDepartmentId;
-
-    try (PreparedStatement pstmt = connection.prepareStatement(maxIdQuery)) {
-      pstmt.setInt(1, organizationId);
-      try (ResultSet rs = pstmt.executeQuery()) {
-        if (rs.next()) {
-          int maxId = rs.getInt("max_id");
-          if (rs.wasNull()) {
-            newDepartmentId = organizationId * 10000 + 1;
-          } else {
-            newDepartmentId = maxId + 1;
-          }
-        } else {
-          newDepartmentId = organizationId * 10000 + 1;
-        }
-      }
-    } catch (SQLException e) {
-      e.printStackTrace();
-      return null;
-    }
-
     String insertDepartmentQuery =
         "INSERT INTO departments (department_id, organization_id, name) VALUES (?, ?, ?)";
 
-    try (PreparedStatement pstmt = connection.prepareStatement(insertDepartmentQuery)) {
-      pstmt.setInt(1, newDepartmentId);
-      pstmt.setInt(2, organizationId);
-      pstmt.setString(3, department.getName());
-
-      int rowsAffected = pstmt.executeUpdate();
-      if (rowsAffected > 0) {
-        int externalDeptId = newDepartmentId % 10000;
-        return new Department(externalDeptId, department.getName(), new ArrayList<>());
+    // The ID is allocated and used in one transaction, so concurrent inserts cannot share it
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      try {
+        int newDepartmentId =
+            allocateInternalIds(connection, "departments", "department_id", organizationId, 1);
+        if (newDepartmentId == -1) {
+          connection.rollback();
+          return null;
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement(insertDepartmentQuery)) {
+          pstmt.setInt(1, newDepartmentId);
+          pstmt.setInt(2, organizationId);
+          pstmt.setString(3, department.getName());
+
+          if (pstmt.executeUpdate() > 0) {
+            connection.commit();
+            int externalDeptId = newDepartmentId % 10000;
+            return new Department(externalDeptId, department.getName(), new ArrayList<>());
+          }
+        }
+        connection.rollback();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(true);
       }
     } catch (SQLException e) {
       e.printStackTrace();
@@ -501,7 +818,8 @@ public final class MysqlConnection implements DatabaseConnection {
     String deleteEmployeesQuery =
         "DELETE FROM employees WHERE organization_id = ? AND department_id = ?";
 
-    try (PreparedStatement pstmt1 = connection.prepareStatement(deleteEmployeesQuery)) {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement pstmt1 = connection.prepareStatement(deleteEmployeesQuery)) {
       pstmt1.setInt(1, organizationId);
       pstmt1.setInt(2, internalDepartmentId);
       pstmt1.executeUpdate();
@@ -525,38 +843,39 @@ public final class MysqlConnection implements DatabaseConnection {
 
   @Override
   public Organization insertOrganization(Organization organization) {
-    // Generate a new organization ID
-    String maxIdQuery = "SELECT MAX(organization_id) as max_id FROM organizations";
-    int newOrganizationId;
-
-    try (PreparedStatement pstmt = connection.prepareStatement(maxIdQuery)) {
-      try (ResultSet rs = pstmt.executeQuery()) {
-        if (rs.next()) {
-          int maxId = rs.getInt("max_id");
-          if (rs.wasNull()) {
-            newOrganizationId = 1;
-          } else {
-            newOrganizationId = maxId + 1;
-          }
-        } else {
-          newOrganizationId = 1;
-        }
-      }
-    } catch (SQLException e) {
-      e.printStackTrace();
-      return null;
-    }
-
+    // Locks the highest organization ID until the transaction ends
+    String maxIdQuery = "SELECT MAX(organization_id) AS max_id FROM organizations FOR UPDATE";
     String insertOrganizationQuery =
         "INSERT INTO organizations (organization_id, name) VALUES (?, ?)";
 
-    try (PreparedStatement pstmt = connection.prepareStatement(insertOrganizationQuery)) {
-      pstmt.setInt(1, newOrganizationId);
-      pstmt.setString(2, organization.getName());
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      try {
+        int newOrganizationId = 1;
+        try (PreparedStatement pstmt = connection.prepareStatement(maxIdQuery);
+            ResultSet rs = pstmt.executeQuery()) {
+          if (rs.next()) {
+            int maxId = rs.getInt("max_id");
+            if (!rs.wasNull()) {
+              newOrganizationId = maxId + 1;
+            }
+          }
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement(insertOrganizationQuery)) {
+          pstmt.setInt(1, newOrganizationId);
+          pstmt.setString(2, organization.getName());
 
-      int rowsAffected = pstmt.executeUpdate();
-      if (rowsAffected > 0) {
-        return new Organization(newOrganizationId, organization.getName());
+          if (pstmt.executeUpdate() > 0) {
+            connection.commit();
+            return new Organization(newOrganizationId, organization.getName());
+          }
+        }
+        connection.rollback();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(true);
       }
     } catch (SQLException e) {
       e.printStackTrace();
@@ -568,7 +887,8 @@ public final class MysqlConnection implements DatabaseConnection {
   public boolean removeOrganization(int organizationId) {
     // Delete employees
     String deleteEmployeesQuery = "DELETE FROM employees WHERE organization_id = ?";
-    try (PreparedStatement pstmt1 = connection.prepareStatement(deleteEmployeesQuery)) {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement pstmt1 = connection.prepareStatement(deleteEmployeesQuery)) {
       pstmt1.setInt(1, organizationId);
       pstmt1.executeUpdate();
 
@@ -1,17 +1,38 @@
 package dev.coms4156.project;
 
-import java.util.ArrayList;
+import dev.coms4156.project.utils.IndexedList;
+import dev.coms4156.project.utils.KllSketch;
+import dev.coms4156.project.utils.OrderStatisticTree;
+import java.util.AbstractList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * An organization in the HR system.
  * An organization is a composite of employees and departments.
  */
 public class Organization extends OrganizationComposite {
+  // The departments and employees are the children of the organization, each held once
   private final List<Employee> employees;
   private final List<Department> departments;
+  // Columnar table of the employees kept in sync by the cache, null for other organizations
+  private final EmployeeTable table;
+  private final List<OrganizationComponent> children = new AbstractList<>() {
+    @Override
+    public OrganizationComponent get(int index) {
+      int numDepartments = departments.size();
+      return index < numDepartments
+          ? departments.get(index) : employees.get(index - numDepartments);
+    }
+
+    @Override
+    public int size() {
+      return departments.size() + employees.size();
+    }
+  };
 
   /**
    * Constructs an organization with the given ID and name.
@@ -22,8 +43,30 @@ public class Organization extends OrganizationComposite {
   public Organization(int id, String name) {
     super(id, name);
     this.typeName = "Organization";
-    this.employees = new ArrayList<>();
-    this.departments = new ArrayList<>();
+    this.employees = new IndexedList<>();
+    this.departments = new IndexedList<>();
+    this.table = null;
+  }
+
+  /**
+   * Constructs an organization that reads its departments and employees from the given
+   * lists instead of holding copies of them. The lists are not copied, so a cache can
+   * publish an organization over its immutable state in constant time; such an organization
+   * cannot be modified. The employee table must hold the same employees and members.
+   *
+   * @param id the ID of the organization
+   * @param name the name of the organization
+   * @param departments the departments, which must not change
+   * @param employees the employees, which must not change
+   * @param table the employee table of the employees
+   */
+  Organization(int id, String name, List<Department> departments, List<Employee> employees,
+      EmployeeTable table) {
+    super(id, name);
+    this.typeName = "Organization";
+    this.employees = Collections.unmodifiableList(employees);
+    this.departments = Collections.unmodifiableList(departments);
+    this.table = table;
   }
 
   /**
@@ -59,7 +102,6 @@ public class Organization extends OrganizationComposite {
    * @return true if the employee is onboarded, false otherwise
    */
   public boolean addEmployee(Employee employee) {
-    this.add(employee);
     return this.employees.add(employee);
   }
 
@@ -70,7 +112,6 @@ public class Organization extends OrganizationComposite {
    * @return true if the employee is offboarded, false otherwise
    */
   public boolean removeEmployee(Employee employee) {
-    this.remove(employee);
     return this.employees.remove(employee);
   }
 
@@ -81,8 +122,36 @@ public class Organization extends OrganizationComposite {
    * @return true if the department is added, false otherwise
    */
   public boolean addDepartment(Department department) {
-    this.departments.add(department);
-    return this.add(department);
+    return this.departments.add(department);
+  }
+
+  /**
+   * Remove a department from the organization.
+   *
+   * @param department department to be removed from this organization
+   * @return true if the department is removed, false otherwise
+   */
+  public boolean removeDepartment(Department department) {
+    return this.departments.remove(department);
+  }
+
+  /**
+   * Returns the departments followed by the employees of the organization.
+   *
+   * @return an unmodifiable view of the children
+   */
+  @Override
+  public List<OrganizationComponent> getChildren() {
+    return this.children;
+  }
+
+  /**
+   * Returns the departments of the organization.
+   *
+   * @return an unmodifiable view of the departments
+   */
+  List<Department> getDepartments() {
+    return Collections.unmodifiableList(this.departments);
   }
 
   /**
@@ -94,6 +163,83 @@ public class Organization extends OrganizationComposite {
     return this.employees.size();
   }
 
+  /**
+   * Returns approximate performance quartiles of the employees in the departments.
+   * Computed by merging the sketches of the departments, so departments that did not change
+   * since the last call are not scanned again.
+   *
+   * @return a Map of the statistic that can be easily converted to JSON
+   */
+  public Map<String, Object> getApproximatePerformanceStatisticMap() {
+    KllSketch sketch = new KllSketch(Department.SKETCH_K);
+    for (Department department : this.departments) {
+      sketch.merge(department.getPerformanceSketch());
+    }
+    return approximateStatistic(sketch, Department::getPerformanceRanking);
+  }
+
+  /**
+   * Returns approximate salary quartiles of the employees in the departments.
+   * Computed by merging the sketches of the departments, see
+   * {@link #getApproximatePerformanceStatisticMap()}.
+   *
+   * @return a Map of the statistic that can be easily converted to JSON
+   */
+  public Map<String, Object> getApproximateSalaryStatisticMap() {
+    KllSketch sketch = new KllSketch(Department.SKETCH_K);
+    for (Department department : this.departments) {
+      sketch.merge(department.getSalarySketch());
+    }
+    return approximateStatistic(sketch, Department::getSalaryRanking);
+  }
+
+  /**
+   * Returns the budget, performance and position statistics of the employees in the
+   * departments, scanned from the columns of the employee table.
+   * Cached organizations read the table that the cache keeps in sync, in which each chunk of
+   * rows keeps its statistics until it changes, so only changed chunks are scanned again.
+   * Other organizations build a table of their department members first. Large tables are
+   * rolled up in parallel. Among equal salaries, the employee with the lowest ID is reported
+   * as the highest or lowest paid.
+   *
+   * @return a Map of the statistics that can be easily converted to JSON
+   */
+  public Map<String, Object> getStatisticRollupMap() {
+    EmployeeTable current = this.table;
+    if (current == null) {
+      current = EmployeeTable.of(this.departments, new PositionDictionary());
+    }
+    return current.getStatisticRollup().toJson(this.departments.size());
+  }
+
+  /**
+   * Combines the merged sketch with the count and extremes of the departments' rankings,
+   * which stay exact while the sketches may still hold values of removed members.
+   */
+  private Map<String, Object> approximateStatistic(
+      KllSketch sketch, Function<Department, OrderStatisticTree<Employee>> rankingOf
+  ) {
+    long count = 0;
+    double highest = Double.NEGATIVE_INFINITY;
+    double lowest = Double.POSITIVE_INFINITY;
+    for (Department department : this.departments) {
+      OrderStatisticTree<Employee> ranking = rankingOf.apply(department);
+      int size = ranking.size();
+      if (size > 0) {
+        count += size;
+        highest = Math.max(highest, ranking.keyAt(0));
+        lowest = Math.min(lowest, ranking.keyAt(size - 1));
+      }
+    }
+    Map<String, Object> result = new HashMap<>();
+    boolean empty = count == 0;
+    result.put("count", count);
+    result.put("highest", empty ? 0.0 : highest);
+    result.put("lowest", empty ? 0.0 : lowest);
+    Department.putApproximateQuartiles(result, sketch);
+    return result;
+  }
+
   /**
    * Report all the information of the organization in a JSON format.
    *
@@ -1,16 +1,14 @@
 package dev.coms4156.project;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * An organization composite in the HR system.
  * An abstract class that implements the OrganizationComponent interface.
+ * Subclasses keep their components in typed lists and expose them as children through
+ * {@link #getChildren()}, so that every component is stored once.
  */
 public abstract class OrganizationComposite implements OrganizationComponent {
   protected final int id;
   protected String name;
-  protected final List<OrganizationComponent> children;
   protected String typeName;
 
   /**
@@ -22,7 +20,6 @@ public abstract class OrganizationComposite implements OrganizationComponent {
   public OrganizationComposite(int id, String name) {
     this.id = id;
     this.name = name;
-    this.children = new ArrayList<>();
     this.typeName = "Abstract";
   }
 
@@ -50,37 +47,12 @@ public abstract class OrganizationComposite implements OrganizationComponent {
     return this.typeName;
   }
 
-  @Override
-  public List<OrganizationComponent> getChildren() {
-    return this.children;
-  }
-
-  /**
-   * Adds a child component to the organization.
-   *
-   * @param organizationComponent the child component to add
-   * @return true if the child component was added, false otherwise
-   */
-  boolean add(OrganizationComponent organizationComponent) {
-    return this.children.add(organizationComponent);
-  }
-
-  /**
-   * Removes a child component from the organization.
-   *
-   * @param organizationComponent the child component to remove
-   * @return true if the child component was removed, false otherwise
-   */
-  boolean remove(OrganizationComponent organizationComponent) {
-    return this.children.remove(organizationComponent);
-  }
-
   /**
    * Returns the number of children of the organization component.
    *
    * @return the number of children
    */
   int getNumChildren() {
-    return this.children.size();
+    return this.getChildren().size();
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,192 @@
+package dev.coms4156.project;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * A response body that streams every employee of an organization with its department,
+ * one row per employee, as NDJSON or CSV.
+ * Rows are written as they are read (see {@link HrDatabaseFacade#exportOrganization}) and
+ * the response is sent in chunks, so the memory used does not grow with the organization.
+ */
+public final class OrganizationExport implements StreamingResponseBody {
+  private static final JsonFactory JSON_FACTORY =
+      new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+  private static final String[] COLUMNS = {
+      "id", "name", "hireDate", "position", "salary", "performance",
+      "departmentId", "departmentName"
+  };
+
+  private final int organizationId;
+  private final Format format;
+
+  /**
+   * The formats of exported and imported rows.
+   */
+  public enum Format {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+    CSV(MediaType.parseMediaType("text/csv"));
+
+    private final MediaType mediaType;
+
+    Format(MediaType mediaType) {
+      this.mediaType = mediaType;
+    }
+
+    /**
+     * Returns the format with the given name, ignoring case.
+     *
+     * @param name the name of the format
+     * @return the format, or null if there is no format with that name
+     */
+    public static Format of(String name) {
+      for (Format format : values()) {
+        if (format.name().equalsIgnoreCase(name)) {
+          return format;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Constructs an export of an organization.
+   *
+   * @param organizationId the organization ID
+   * @param format the format of the rows
+   */
+  public OrganizationExport(int organizationId, Format format) {
+    this.organizationId = organizationId;
+    this.format = format;
+  }
+
+  /**
+   * Returns the media type of the export.
+   *
+   * @return the media type of the format
+   */
+  public MediaType getMediaType() {
+    return this.format.mediaType;
+  }
+
+  @Override
+  public void writeTo(OutputStream outputStream) throws IOException {
+    Writer writer = new BufferedWriter(
+        new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    try {
+      if (this.format == Format.NDJSON) {
+        writeNdjson(writer);
+      } else {
+        writeCsv(writer);
+      }
+    } catch (UncheckedIOException e) {
+      // The client went away, stop reading the organization
+      throw e.getCause();
+    }
+    writer.flush();
+  }
+
+  private void writeNdjson(Writer writer) throws IOException {
+    try (JsonGenerator gen = JSON_FACTORY.createGenerator(writer)) {
+      // Rows are separated by the line breaks written after them, not by spaces
+      gen.setRootValueSeparator(null);
+      HrDatabaseFacade.exportOrganization(this.organizationId, (employee, department) -> {
+        try {
+          gen.writeStartObject();
+          gen.writeNumberField("id", employee.getId());
+          gen.writeStringField("name", employee.getName());
+          gen.writeStringField("hireDate", formatDate(employee.getHireDate()));
+          gen.writeStringField("position", employee.getPosition());
+          gen.writeNumberField("salary", employee.getSalary());
+          gen.writeNumberField("performance", employee.getPerformance());
+          if (department != null) {
+            gen.writeNumberField("departmentId", department.getId());
+            gen.writeStringField("departmentName", department.getName());
+          } else {
+            gen.writeNullField("departmentId");
+            gen.writeNullField("departmentName");
+          }
+          gen.writeEndObject();
+          gen.writeRaw('\n');
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    }
+  }
+
+  private void writeCsv(Writer writer) throws IOException {
+    writer.write(String.join(",", COLUMNS));
+    writer.write("\r\n");
+    HrDatabaseFacade.exportOrganization(this.organizationId, (employee, department) -> {
+      try {
+        writer.write(Integer.toString(employee.getId()));
+        writer.write(',');
+        writer.write(escapeCsv(employee.getName()));
+        writer.write(',');
+        writer.write(formatDate(employee.getHireDate()));
+        writer.write(',');
+        writer.write(escapeCsv(employee.getPosition()));
+        writer.write(',');
+        writer.write(Double.toString(employee.getSalary()));
+        writer.write(',');
+        writer.write(Double.toString(employee.getPerformance()));
+        writer.write(',');
+        if (department != null) {
+          writer.write(Integer.toString(department.getId()));
+          writer.write(',');
+          writer.write(escapeCsv(department.getName()));
+        } else {
+          writer.write(',');
+        }
+        writer.write("\r\n");
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  /**
+   * Formats a hire date as an ISO date in the time zone it was parsed in.
+   *
+   * @param date the hire date, may be null
+   * @return the date as yyyy-MM-dd, or an empty string if it is null
+   */
+  static String formatDate(Date date) {
+    if (date == null) {
+      return "";
+    }
+    // java.sql.Date does not support toInstant(), go through the epoch milliseconds
+    return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault())
+        .toLocalDate().toString();
+  }
+
+  /**
+   * Quotes a CSV field if it contains a separator, a quote or a line break (RFC 4180).
+   *
+   * @param value the field, may be null
+   * @return the field as written to the CSV
+   */
+  static String escapeCsv(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+        && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+}
@@ -0,0 +1,72 @@
+package dev.coms4156.project;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A dictionary of the normalized positions of a tenant, each encoded by a small int code.
+ * Codes are assigned in order of first use and never change, so position statistics count
+ * codes in an array instead of hashing position strings. This class is thread-safe.
+ */
+public final class PositionDictionary {
+  private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+  private volatile String[] positions = new String[0];
+
+  /**
+   * Normalizes a position the way position statistics group them.
+   *
+   * @param position the position of an employee
+   * @return the trimmed lower-case position, or "unassigned" if it is blank
+   */
+  public static String normalize(String position) {
+    return (position == null || position.trim().isEmpty())
+        ? "unassigned" : position.trim().toLowerCase(Locale.getDefault());
+  }
+
+  /**
+   * Returns the code of a normalized position, adding the position if it is new.
+   *
+   * @param normalized the normalized position
+   * @return the code of the position
+   */
+  public int codeOf(String normalized) {
+    Integer code = this.codes.get(normalized);
+    if (code != null) {
+      return code;
+    }
+    synchronized (this) {
+      code = this.codes.get(normalized);
+      if (code == null) {
+        String[] grown = Arrays.copyOf(this.positions, this.positions.length + 1);
+        code = this.positions.length;
+        grown[code] = normalized;
+        // Publish the name before the code, so that every code handed out can be resolved
+        this.positions = grown;
+        this.codes.put(normalized, code);
+      }
+      return code;
+    }
+  }
+
+  /**
+   * Returns the normalized position of a code.
+   *
+   * @param code the code of the position
+   * @return the normalized position
+   */
+  public String positionOf(int code) {
+    return this.positions[code];
+  }
+
+  /**
+   * Returns the number of positions in the dictionary, which is one more than the highest
+   * code handed out.
+   *
+   * @return the number of positions
+   */
+  public int size() {
+    return this.positions.length;
+  }
+}
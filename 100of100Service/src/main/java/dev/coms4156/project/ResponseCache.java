@@ -0,0 +1,69 @@
+package dev.coms4156.project;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.function.Supplier;
+
+/**
+ * A cache of encoded response bodies of read endpoints.
+ * Bodies are keyed by the organization, the endpoint with its parameters, and the version of
+ * the cached organization they were computed from (see {@link HrDatabaseFacade#getVersion()}),
+ * so a write makes every body of its organization unreachable and they age out of the cache.
+ * This class is thread-safe.
+ */
+public final class ResponseCache {
+  private final Cache<Key, byte[]> bodies;
+
+  /**
+   * A cached response body.
+   *
+   * @param organizationId the organization ID
+   * @param request the endpoint and its parameters
+   * @param version the version of the organization the body was computed from
+   */
+  private record Key(int organizationId, String request, long version) {
+  }
+
+  /**
+   * Constructs a cache holding up to the given number of body bytes.
+   *
+   * @param maxBytes the memory budget of the cache in bytes
+   */
+  public ResponseCache(long maxBytes) {
+    this.bodies = Caffeine.newBuilder()
+        .maximumWeight(maxBytes)
+        .weigher((Key key, byte[] body) -> body.length)
+        .build();
+  }
+
+  /**
+   * Returns the cached body of the request, encoding and caching it if it is absent.
+   * Failures of the encoder, such as a missing entity, are thrown and not cached.
+   *
+   * @param organizationId the organization ID
+   * @param request the endpoint and its parameters
+   * @param version the version of the organization, read before the body is encoded
+   * @param encoder encodes the body from the current state of the organization
+   * @return the encoded body
+   */
+  public byte[] get(int organizationId, String request, long version, Supplier<byte[]> encoder) {
+    Key key = new Key(organizationId, request, version);
+    byte[] body = this.bodies.getIfPresent(key);
+    if (body == null) {
+      // Encode outside of the cache, so that slow encodings do not block other keys
+      body = encoder.get();
+      this.bodies.put(key, body);
+    }
+    return body;
+  }
+
+  /**
+   * Returns the number of cached bodies.
+   *
+   * @return the number of cached bodies
+   */
+  public long size() {
+    this.bodies.cleanUp();
+    return this.bodies.estimatedSize();
+  }
+}
@@ -1,10 +1,15 @@
 package dev.coms4156.project;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.coms4156.project.command.AddEmpToDeptCmd;
 import dev.coms4156.project.command.Command;
+import dev.coms4156.project.command.CommandExecutor;
+import dev.coms4156.project.command.ExportOrgCmd;
 import dev.coms4156.project.command.GetDeptInfoCmd;
 import dev.coms4156.project.command.GetEmpInfoCmd;
 import dev.coms4156.project.command.GetOrgInfoCmd;
+import dev.coms4156.project.command.ImportEmpsCmd;
 import dev.coms4156.project.command.RegisterCmd;
 import dev.coms4156.project.command.RemoveEmpFromDeptCmd;
 import dev.coms4156.project.command.SetDeptHeadCmd;
@@ -14,8 +19,12 @@ import dev.coms4156.project.command.SetEmpSalCmd;
 import dev.coms4156.project.command.StatDeptBudgCmd;
 import dev.coms4156.project.command.StatDeptPerfCmd;
 import dev.coms4156.project.command.StatDeptPosiCmd;
+import dev.coms4156.project.command.StatOrgCmd;
+import dev.coms4156.project.exception.InternalServerErrorException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -24,14 +33,26 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * This class contains all the API routes for the system.
  */
 @RestController
 public class RouteController {
+  private static final long DEFAULT_RESPONSE_CACHE_BYTES = 32L * 1024 * 1024;
+
+  private final ObjectMapper objectMapper;
+  private final ResponseCache responseCache =
+      new ResponseCache(Long.getLong("cache.responseMaxBytes", DEFAULT_RESPONSE_CACHE_BYTES));
+
+  public RouteController(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
 
   /**
    * Redirects to the homepage.
@@ -41,6 +62,36 @@ public class RouteController {
     return "Welcome, in order to make an API call direct your browser or Postman to an endpoint.";
   }
 
+  /**
+   * Reports whether the service is ready to serve traffic.
+   * The service is not ready while the startup cache warm-up is running.
+   *
+   * @return 200 when the service is ready, 503 otherwise
+   */
+  @GetMapping(value = "/ready", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> ready() {
+    if (CacheWarmer.isReady()) {
+      return new ResponseEntity<>(Map.of("status", "ready"), HttpStatus.OK);
+    }
+    return new ResponseEntity<>(Map.of("status", "warming up"), HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  /**
+   * Reports the write queue of the client's organization in single-writer mode.
+   *
+   * @param clientId the client ID
+   * @return the current and the highest number of queued write commands
+   */
+  @GetMapping(value = "/queueDepth", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> queueDepth(
+      @RequestAttribute("cid") int clientId
+  ) {
+    Map<String, Object> response = new HashMap<>();
+    response.put("queueDepth", CommandExecutor.getQueueDepth(clientId));
+    response.put("maxQueueDepth", CommandExecutor.getMaxQueueDepth(clientId));
+    return new ResponseEntity<>(response, HttpStatus.OK);
+  }
+
   /* ***** GET METHODS ***** */
 
   /**
@@ -48,15 +99,32 @@ public class RouteController {
    *
    * @param clientId the client ID
    * @param departmentId the department ID
-   * @return the information of the department
+   * @param after (optional) the nextCursor of the previous page
+   * @param limit (optional) the maximum number of employees to list
+   * @param fields (optional) the comma-separated fields of every employee
+   * @param includeEmployees (optional) false to get only the summary of the department
+   * @param ifNoneMatch (optional) the ETag of a previous response
+   * @return the information of the department, or 304 if it did not change
    */
   @GetMapping(value = "/getDeptInfo", produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<?> getDepartment(
       @RequestAttribute("cid") int clientId,
-      @RequestParam("did") int departmentId
+      @RequestParam("did") int departmentId,
+      @RequestParam(value = "after", required = false) Integer after,
+      @RequestParam(value = "limit", required = false) Integer limit,
+      @RequestParam(value = "fields", required = false) List<String> fields,
+      @RequestParam(value = "includeEmployees", required = false, defaultValue = "true")
+      boolean includeEmployees,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
   ) {
-    Command command = new GetDeptInfoCmd(clientId, departmentId);
-    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+    Command command =
+        new GetDeptInfoCmd(clientId, departmentId, after, limit, fields, includeEmployees);
+    String request = "getDeptInfo?did=" + departmentId;
+    if (after != null || limit != null || fields != null || !includeEmployees) {
+      request += "&after=" + after + "&limit=" + limit + "&fields=" + fields
+          + "&includeEmployees=" + includeEmployees;
+    }
+    return conditionalGet(clientId, request, ifNoneMatch, command);
   }
 
   /**
@@ -72,21 +140,40 @@ public class RouteController {
       @RequestParam("eid") int employeeId
   ) {
     Command command = new GetEmpInfoCmd(clientId, employeeId);
-    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+    return new ResponseEntity<>(CommandExecutor.execute(command), HttpStatus.OK);
   }
 
   /**
    * Gets the information of an organization.
    *
    * @param clientId the client ID
-   * @return the information of the organization
+   * @param ifNoneMatch (optional) the ETag of a previous response
+   * @return the information of the organization, or 304 if it did not change
    */
   @GetMapping(value = "/getOrgInfo", produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<?> getOrganization(
-      @RequestAttribute("cid") int clientId
+      @RequestAttribute("cid") int clientId,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+  ) {
+    return conditionalGet(clientId, "getOrgInfo", ifNoneMatch, new GetOrgInfoCmd(clientId));
+  }
+
+  /**
+   * Exports every employee of the organization with its department, one row per employee.
+   * The rows are streamed in chunks as they are read.
+   *
+   * @param clientId the client ID
+   * @param format (optional) the format of the rows, ndjson or csv
+   * @return the rows of the organization
+   */
+  @GetMapping(value = "/exportOrg")
+  public ResponseEntity<StreamingResponseBody> exportOrganization(
+      @RequestAttribute("cid") int clientId,
+      @RequestParam(value = "format", required = false, defaultValue = "ndjson") String format
   ) {
-    Command command = new GetOrgInfoCmd(clientId);
-    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+    Command command = new ExportOrgCmd(clientId, format);
+    OrganizationExport export = (OrganizationExport) CommandExecutor.execute(command);
+    return ResponseEntity.ok().contentType(export.getMediaType()).body(export);
   }
 
   /**
@@ -94,15 +181,21 @@ public class RouteController {
    *
    * @param clientId the client ID
    * @param departmentId the department ID
-   * @return the statistics of the department
+   * @param approximate (optional) true to approximate the quartiles with a quantile sketch
+   * @param ifNoneMatch (optional) the ETag of a previous response
+   * @return the statistics of the department, or 304 if they did not change
    */
   @GetMapping(value = "/statDeptBudget", produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<?> getDepartmentBudgetStatistic(
       @RequestAttribute("cid") int clientId,
-      @RequestParam("did") int departmentId
+      @RequestParam("did") int departmentId,
+      @RequestParam(value = "approximate", required = false, defaultValue = "false")
+      boolean approximate,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
   ) {
-    Command command = new StatDeptBudgCmd(clientId, departmentId);
-    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+    Command command = new StatDeptBudgCmd(clientId, departmentId, approximate);
+    return conditionalGet(clientId, "statDeptBudget?did=" + departmentId
+        + "&approximate=" + approximate, ifNoneMatch, command);
   }
 
   /**
@@ -110,15 +203,21 @@ public class RouteController {
    *
    * @param clientId the client ID
    * @param departmentId the department ID
-   * @return the statistics of the department
+   * @param approximate (optional) true to approximate the quartiles with a quantile sketch
+   * @param ifNoneMatch (optional) the ETag of a previous response
+   * @return the statistics of the department, or 304 if they did not change
    */
   @GetMapping(value = "/statDeptPerf", produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<?> getDepartmentPerformanceStatistic(
       @RequestAttribute("cid") int clientId,
-      @RequestParam("did") int departmentId
+      @RequestParam("did") int departmentId,
+      @RequestParam(value = "approximate", required = false, defaultValue = "false")
+      boolean approximate,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
   ) {
-    Command command = new StatDeptPerfCmd(clientId, departmentId);
-    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+    Command command = new StatDeptPerfCmd(clientId, departmentId, approximate);
+    return conditionalGet(clientId, "statDeptPerf?did=" + departmentId
+        + "&approximate=" + approximate, ifNoneMatch, command);
   }
 
   /**
@@ -126,15 +225,31 @@ public class RouteController {
    *
    * @param clientId the client ID
    * @param departmentId the department ID
-   * @return the statistics of the department
+   * @param ifNoneMatch (optional) the ETag of a previous response
+   * @return the statistics of the department, or 304 if they did not change
    */
   @GetMapping(value = "/statDeptPos", produces = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<?> getDepartmentPositionStatistic(
       @RequestAttribute("cid") int clientId,
-      @RequestParam("did") int departmentId
+      @RequestParam("did") int departmentId,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
   ) {
     Command command = new StatDeptPosiCmd(clientId, departmentId);
-    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+    return conditionalGet(clientId, "statDeptPos?did=" + departmentId, ifNoneMatch, command);
+  }
+
+  /**
+   * Gets the budget, performance and position statistics of an organization.
+   *
+   * @param clientId the client ID
+   * @return the statistics of the organization
+   */
+  @GetMapping(value = "/statOrg", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> getOrganizationStatistic(
+      @RequestAttribute("cid") int clientId
+  ) {
+    Command command = new StatOrgCmd(clientId);
+    return new ResponseEntity<>(CommandExecutor.execute(command), HttpStatus.OK);
   }
 
   /* ***** PATCH METHODS ***** */
@@ -154,7 +269,7 @@ public class RouteController {
       @RequestParam("eid") int employeeId
   ) {
     Command command = new SetDeptHeadCmd(clientId, departmentId, employeeId);
-    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+    return new ResponseEntity<>(CommandExecutor.execute(command), HttpStatus.OK);
   }
 
   /**
@@ -171,7 +286,7 @@ public class RouteController {
       @RequestParam("performance") double performance
   ) {
     Command command = new SetEmpPerfCmd(clientId, employeeId, performance);
-    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+    return new ResponseEntity<>(CommandExecutor.execute(command), HttpStatus.OK);
   }
 
   /**
@@ -188,7 +303,7 @@ public class RouteController {
       @RequestParam("position") String position
   ) {
     Command command = new SetEmpPosiCmd(clientId, employeeId, position);
-    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+    return new ResponseEntity<>(CommandExecutor.execute(command), HttpStatus.OK);
   }
 
   /**
@@ -205,7 +320,7 @@ public class RouteController {
       @RequestParam("salary") double salary
   ) {
     Command command = new SetEmpSalCmd(clientId, employeeId, salary);
-    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+    return new ResponseEntity<>(CommandExecutor.execute(command), HttpStatus.OK);
   }
 
   /**
@@ -234,17 +349,17 @@ public class RouteController {
     try {
       if (position != null) {
         Command command = new SetEmpPosiCmd(clientId, employeeId, position);
-        command.execute();
+        CommandExecutor.execute(command);
         component += "position ";
       }
       if (salary != null) {
         Command command = new SetEmpSalCmd(clientId, employeeId, salary);
-        command.execute();
+        CommandExecutor.execute(command);
         component += "salary ";
       }
       if (performance != null) {
         Command command = new SetEmpPerfCmd(clientId, employeeId, performance);
-        command.execute();
+        CommandExecutor.execute(command);
         component += "performance ";
       }
       response.put("status", 200);
@@ -285,7 +400,29 @@ public class RouteController {
     Command command = new AddEmpToDeptCmd(
         clientId, departmentId, name, hireDate, position, salary, performance
     );
-    return new ResponseEntity<>(command.execute(), HttpStatus.CREATED);
+    return new ResponseEntity<>(CommandExecutor.execute(command), HttpStatus.CREATED);
+  }
+
+  /**
+   * Adds many employees to their departments at once.
+   *
+   * @param clientId the client ID
+   * @param format (optional) the format of the rows, ndjson or csv
+   * @param body the rows, one employee per line
+   * @return the IDs of the added employees and the errors of the rejected rows,
+   *         with 201 if any employee was added and 400 otherwise
+   */
+  @PostMapping(value = "/importEmps", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> importEmployees(
+      @RequestAttribute("cid") int clientId,
+      @RequestParam(value = "format", required = false, defaultValue = "ndjson") String format,
+      @RequestBody String body
+  ) {
+    Command command = new ImportEmpsCmd(clientId, format, body);
+    EmployeeImport result = (EmployeeImport) CommandExecutor.execute(command);
+    HttpStatus status =
+        result.getImported().isEmpty() ? HttpStatus.BAD_REQUEST : HttpStatus.CREATED;
+    return new ResponseEntity<>(result.toJson(), status);
   }
 
   /**
@@ -300,7 +437,7 @@ public class RouteController {
       @RequestParam("name") String name
   ) {
     Command command = new RegisterCmd(name);
-    Map<String, String> response = (Map<String, String>) command.execute();
+    Map<String, String> response = (Map<String, String>) CommandExecutor.execute(command);
     if ("success".equals(response.get("status"))) {
       return new ResponseEntity<>(response, HttpStatus.CREATED);
     } else {
@@ -326,7 +463,56 @@ public class RouteController {
       @RequestParam("eid") int employeeId
   ) {
     Command command = new RemoveEmpFromDeptCmd(clientId, departmentId, employeeId);
-    return new ResponseEntity<>(command.execute(), HttpStatus.OK);
+    return new ResponseEntity<>(CommandExecutor.execute(command), HttpStatus.OK);
   }
 
-}
\ No newline at end of file
+  /**
+   * Answers a read request from the response cache, or with 304 if the client already has
+   * the current response. The ETag of a response is the version of the organization it was
+   * computed from, so any write to the organization changes it.
+   * The ETag does not tell requests for different IDs apart, so the response is computed or
+   * found in the cache before a match is answered with 304, and errors such as 404 are
+   * returned even to clients that send a matching ETag or *.
+   *
+   * @param clientId the client ID
+   * @param request the endpoint and its parameters
+   * @param ifNoneMatch the If-None-Match header of the request, or null
+   * @param command the command computing the response
+   * @return the response
+   */
+  private ResponseEntity<?> conditionalGet(
+      int clientId, String request, String ifNoneMatch, Command command
+  ) {
+    // The version must be read before the command reads the data it describes
+    long version = HrDatabaseFacade.versionOf(clientId);
+    String etag = "\"" + Long.toString(version, Character.MAX_RADIX) + "\"";
+    byte[] body = this.responseCache.get(clientId, request, version, () -> {
+      try {
+        return this.objectMapper.writeValueAsBytes(CommandExecutor.execute(command));
+      } catch (JsonProcessingException e) {
+        throw new InternalServerErrorException(
+            "Failed to encode the response: " + e.getMessage());
+      }
+    });
+    if (matchesEtag(ifNoneMatch, etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+    return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON).body(body);
+  }
+
+  private static boolean matchesEtag(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
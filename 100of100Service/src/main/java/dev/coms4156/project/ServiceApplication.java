@@ -1,5 +1,7 @@
 package dev.coms4156.project;
 
+import dev.coms4156.project.command.CommandExecutor;
+import java.nio.file.Path;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -19,6 +21,22 @@ public class ServiceApplication {
     // Set the production database connection to be the real MySQL connection
     DatabaseConnection db = MysqlConnection.getInstance();
     HrDatabaseFacade.setConnection(db);
+    HrDatabaseFacade.setLazyLoading(Boolean.getBoolean("cache.lazyLoad"));
+    HrDatabaseFacade.scheduleReconciliation(Long.getLong("cache.reconcileIntervalMs", 0L));
+    HrDatabaseFacade.setInvalidationChannel(UdpInvalidationChannel.fromSystemProperties());
+    CommandExecutor.setSingleWriter(Boolean.getBoolean("command.singleWriter"));
+
+    // Preload the most active organizations, and remember them for the next start
+    CacheWarmer warmer = CacheWarmer.fromSystemProperties();
+    if (warmer != null) {
+      warmer.start();
+    }
+    String statsFile = System.getProperty("cache.warmup.statsFile");
+    if (statsFile != null) {
+      int count = Integer.getInteger("cache.warmup.count", 100);
+      Runtime.getRuntime().addShutdownHook(new Thread(
+          () -> CacheWarmer.saveStatistics(Path.of(statsFile), count)));
+    }
 
     SpringApplication.run(ServiceApplication.class, args);
   }
@@ -0,0 +1,220 @@
+package dev.coms4156.project;
+
+import dev.coms4156.project.utils.KllSketch;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Budget, performance and position statistics of the department members of an employee table.
+ * Rollups of disjoint rows merge into the rollup of their union, so the statistics of a table
+ * are merged from the rollups of its chunks, which are computed once per chunk and shared by
+ * every table that still holds the chunk.
+ * The highest and lowest paid employees are unique: among equal salaries the lowest employee
+ * ID wins, so the result does not depend on the order of the rows.
+ */
+final class StatisticRollup {
+  // Tables with fewer chunks are rolled up on the calling thread
+  static final int PARALLEL_THRESHOLD = Integer.getInteger("stats.rollup.parallelThreshold", 64);
+  // Number of chunks a fork/join leaf rolls up sequentially
+  private static final int LEAF_SIZE = 16;
+
+  private final PositionDictionary positions;
+  private long employeeCount;
+  private double salaryTotal;
+  private double salaryHighest = Double.NEGATIVE_INFINITY;
+  private double salaryLowest = Double.POSITIVE_INFINITY;
+  private int salaryHighestEmployee;
+  private int salaryLowestEmployee;
+  private double performanceTotal;
+  private double performanceHighest = Double.NEGATIVE_INFINITY;
+  private double performanceLowest = Double.POSITIVE_INFINITY;
+  // Number of members per position code of the dictionary
+  private int[] positionCounts;
+  private final KllSketch salarySketch = new KllSketch(Department.SKETCH_K);
+  private final KllSketch performanceSketch = new KllSketch(Department.SKETCH_K);
+
+  private StatisticRollup(PositionDictionary positions) {
+    this.positions = positions;
+    this.positionCounts = new int[0];
+  }
+
+  /**
+   * Computes the rollup of rows of a table from its columns. Rows without a department are
+   * left out.
+   *
+   * @param positions the position dictionary of the table
+   * @param size the number of rows
+   * @param ids the employee ID column
+   * @param salaries the salary column
+   * @param performances the performance column
+   * @param positionCodes the position code column
+   * @param departmentIds the department ID column
+   * @return the rollup of the rows
+   */
+  static StatisticRollup ofRows(
+      PositionDictionary positions, int size, int[] ids, double[] salaries,
+      double[] performances, int[] positionCodes, int[] departmentIds
+  ) {
+    StatisticRollup rollup = new StatisticRollup(positions);
+    // Codes of the rows were taken from the dictionary before, so they are below its size
+    rollup.positionCounts = new int[positions.size()];
+    for (int row = 0; row < size; row++) {
+      if (departmentIds[row] == EmployeeTable.NO_DEPARTMENT) {
+        continue;
+      }
+      rollup.employeeCount++;
+      double salary = salaries[row];
+      rollup.salaryTotal += salary;
+      if (salary > rollup.salaryHighest
+          || salary == rollup.salaryHighest && ids[row] < rollup.salaryHighestEmployee) {
+        rollup.salaryHighest = salary;
+        rollup.salaryHighestEmployee = ids[row];
+      }
+      if (salary < rollup.salaryLowest
+          || salary == rollup.salaryLowest && ids[row] < rollup.salaryLowestEmployee) {
+        rollup.salaryLowest = salary;
+        rollup.salaryLowestEmployee = ids[row];
+      }
+      double performance = performances[row];
+      rollup.performanceTotal += performance;
+      rollup.performanceHighest = Math.max(rollup.performanceHighest, performance);
+      rollup.performanceLowest = Math.min(rollup.performanceLowest, performance);
+      rollup.positionCounts[positionCodes[row]]++;
+      rollup.salarySketch.update(salary);
+      rollup.performanceSketch.update(performance);
+    }
+    return rollup;
+  }
+
+  /**
+   * Computes the rollup of a table from the rollups of its chunks, forking across chunks for
+   * large tables.
+   *
+   * @param table the employee table
+   * @return the rollup of the table
+   */
+  static StatisticRollup of(EmployeeTable table) {
+    if (table.chunkCount() < PARALLEL_THRESHOLD) {
+      return sequential(table, 0, table.chunkCount());
+    }
+    return ForkJoinPool.commonPool().invoke(new RollupTask(table, 0, table.chunkCount()));
+  }
+
+  private static StatisticRollup sequential(EmployeeTable table, int from, int to) {
+    StatisticRollup rollup = new StatisticRollup(table.getPositionDictionary());
+    for (int chunk = from; chunk < to; chunk++) {
+      rollup.add(table.chunkRollup(chunk));
+    }
+    return rollup;
+  }
+
+  /**
+   * Adds the statistics of disjoint rows, which are left unchanged.
+   *
+   * @param other the rollup to add
+   */
+  void add(StatisticRollup other) {
+    if (other.employeeCount == 0) {
+      return;
+    }
+    final boolean empty = this.employeeCount == 0;
+    this.employeeCount += other.employeeCount;
+    this.salaryTotal += other.salaryTotal;
+    this.performanceTotal += other.performanceTotal;
+    if (empty || other.salaryHighest > this.salaryHighest
+        || other.salaryHighest == this.salaryHighest
+        && other.salaryHighestEmployee < this.salaryHighestEmployee) {
+      this.salaryHighest = other.salaryHighest;
+      this.salaryHighestEmployee = other.salaryHighestEmployee;
+    }
+    if (empty || other.salaryLowest < this.salaryLowest
+        || other.salaryLowest == this.salaryLowest
+        && other.salaryLowestEmployee < this.salaryLowestEmployee) {
+      this.salaryLowest = other.salaryLowest;
+      this.salaryLowestEmployee = other.salaryLowestEmployee;
+    }
+    this.performanceHighest = Math.max(this.performanceHighest, other.performanceHighest);
+    this.performanceLowest = Math.min(this.performanceLowest, other.performanceLowest);
+    if (other.positionCounts.length > this.positionCounts.length) {
+      this.positionCounts = Arrays.copyOf(this.positionCounts, other.positionCounts.length);
+    }
+    for (int code = 0; code < other.positionCounts.length; code++) {
+      this.positionCounts[code] += other.positionCounts[code];
+    }
+    this.salarySketch.merge(other.salarySketch);
+    this.performanceSketch.merge(other.performanceSketch);
+  }
+
+  /**
+   * Report the statistics in a JSON format.
+   * Totals, averages and extremes are exact, quartiles are approximate within rankError.
+   *
+   * @param departmentCount the number of departments the members belong to
+   * @return a Map of the statistics that can be easily converted to JSON
+   */
+  Map<String, Object> toJson(int departmentCount) {
+    boolean empty = this.employeeCount == 0;
+    Map<String, Object> budget = new HashMap<>();
+    budget.put("total", this.salaryTotal);
+    budget.put("average", empty ? 0.0 : this.salaryTotal / this.employeeCount);
+    budget.put("highest", empty ? 0.0 : this.salaryHighest);
+    budget.put("lowest", empty ? 0.0 : this.salaryLowest);
+    budget.put("highestEmployee", empty ? null : this.salaryHighestEmployee);
+    budget.put("lowestEmployee", empty ? null : this.salaryLowestEmployee);
+    Department.putApproximateQuartiles(budget, this.salarySketch);
+
+    Map<String, Object> performance = new HashMap<>();
+    performance.put("average", empty ? 0.0 : this.performanceTotal / this.employeeCount);
+    performance.put("highest", empty ? 0.0 : this.performanceHighest);
+    performance.put("lowest", empty ? 0.0 : this.performanceLowest);
+    Department.putApproximateQuartiles(performance, this.performanceSketch);
+
+    Map<String, Integer> positionMap = new HashMap<>();
+    for (int code = 0; code < this.positionCounts.length; code++) {
+      if (this.positionCounts[code] > 0) {
+        positionMap.put(this.positions.positionOf(code), this.positionCounts[code]);
+      }
+    }
+
+    Map<String, Object> result = new HashMap<>();
+    result.put("departmentCount", departmentCount);
+    result.put("employeeCount", this.employeeCount);
+    result.put("budget", budget);
+    result.put("performance", performance);
+    result.put("positions", positionMap);
+    return result;
+  }
+
+  /**
+   * Rolls up a range of chunks, splitting it in halves down to leaves of LEAF_SIZE.
+   */
+  private static final class RollupTask extends RecursiveTask<StatisticRollup> {
+    private final transient EmployeeTable table;
+    private final int from;
+    private final int to;
+
+    RollupTask(EmployeeTable table, int from, int to) {
+      this.table = table;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected StatisticRollup compute() {
+      if (this.to - this.from <= LEAF_SIZE) {
+        return sequential(this.table, this.from, this.to);
+      }
+      int middle = (this.from + this.to) >>> 1;
+      RollupTask left = new RollupTask(this.table, this.from, middle);
+      RollupTask right = new RollupTask(this.table, middle, this.to);
+      left.fork();
+      StatisticRollup rollup = right.compute();
+      StatisticRollup result = left.join();
+      result.add(rollup);
+      return result;
+    }
+  }
+}
@@ -0,0 +1,292 @@
+package dev.coms4156.project;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response bodies that write the information of an employee, department or organization
+ * straight to the response JsonGenerator, without building the maps of {@code toJson()}.
+ * The output is byte-for-byte the serialization of the corresponding {@code toJson()} map,
+ * including the order of the fields, which is the iteration order of that HashMap.
+ */
+public abstract class StreamingJson extends JsonSerializable.Base {
+  private static final String[] EMPLOYEE_FIELDS = hashMapOrder(
+      "ID", "name", "hireDate", "position", "salary", "performance", "representation");
+  private static final String[] DEPARTMENT_FIELDS = hashMapOrder(
+      "id", "name", "head", "headId", "employeeCount", "employees");
+  private static final String[] MEMBER_FIELDS = hashMapOrder(
+      "id", "name", "position", "performance", "salary");
+  private static final String[] ORGANIZATION_FIELDS = hashMapOrder(
+      "id", "name", "departments", "departments_id");
+  private static final String[] ORGANIZATION_DEPARTMENT_FIELDS = hashMapOrder(
+      "id", "name", "head", "employeeCount");
+
+  /**
+   * Returns the information of the employee as a streaming response body.
+   *
+   * @param employee the employee
+   * @return the response body, equivalent to {@link Employee#toJson()}
+   */
+  public static StreamingJson of(Employee employee) {
+    return new StreamingJson() {
+      @Override
+      public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+        writeEmployee(employee, gen, provider);
+      }
+    };
+  }
+
+  /**
+   * Returns the information of the department as a streaming response body.
+   *
+   * @param department the department
+   * @return the response body, equivalent to {@link Department#toJson()}
+   */
+  public static StreamingJson of(Department department) {
+    return new StreamingJson() {
+      @Override
+      public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+        writeDepartment(department, gen);
+      }
+    };
+  }
+
+  /**
+   * Returns a page of the department as a streaming response body.
+   * The fields of the department are those of {@link Department#toJson()}, without the
+   * members if they are not included, followed by a {@code nextCursor} field if another page
+   * follows. Every member holds only the given fields, in the order of the full response.
+   *
+   * @param page the page of the department
+   * @param fields the fields of every member, or null for all of them
+   * @param includeEmployees false to write only the summary of the department
+   * @return the response body
+   */
+  public static StreamingJson of(
+      DepartmentPage page, Collection<String> fields, boolean includeEmployees
+  ) {
+    String[] memberFields = fields == null ? MEMBER_FIELDS
+        : Arrays.stream(MEMBER_FIELDS).filter(fields::contains).toArray(String[]::new);
+    return new StreamingJson() {
+      @Override
+      public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+        writeDepartmentPage(page, memberFields, includeEmployees, gen);
+      }
+    };
+  }
+
+  /**
+   * Returns the information of the organization as a streaming response body.
+   *
+   * @param organization the organization
+   * @return the response body, equivalent to {@link Organization#toJson()}
+   */
+  public static StreamingJson of(Organization organization) {
+    return new StreamingJson() {
+      @Override
+      public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+        writeOrganization(organization, gen);
+      }
+    };
+  }
+
+  /**
+   * Returns true if the field is a field of the members of a department response.
+   *
+   * @param field the name of the field
+   * @return true if the field can be projected, false otherwise
+   */
+  public static boolean isMemberField(String field) {
+    return Arrays.asList(MEMBER_FIELDS).contains(field);
+  }
+
+  @Override
+  public void serializeWithType(
+      JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer
+  ) throws IOException {
+    WritableTypeId typeId = typeSer.writeTypePrefix(gen,
+        typeSer.typeId(this, JsonToken.START_OBJECT));
+    serialize(gen, provider);
+    typeSer.writeTypeSuffix(gen, typeId);
+  }
+
+  private static void writeEmployee(
+      Employee employee, JsonGenerator gen, SerializerProvider provider
+  ) throws IOException {
+    gen.writeStartObject();
+    for (String field : EMPLOYEE_FIELDS) {
+      gen.writeFieldName(field);
+      switch (field) {
+        case "ID" -> gen.writeNumber(employee.getId());
+        case "name" -> gen.writeString(employee.getName());
+        // Dates are written by the configured serializer, as the map would be
+        case "hireDate" -> provider.defaultSerializeValue(employee.getHireDate(), gen);
+        case "position" -> gen.writeString(employee.getPosition());
+        case "salary" -> gen.writeNumber(employee.getSalary());
+        case "performance" -> gen.writeNumber(employee.getPerformance());
+        case "representation" -> gen.writeString(employee.toString());
+        default -> throw new IllegalStateException("Unknown field: " + field);
+      }
+    }
+    gen.writeEndObject();
+  }
+
+  private static void writeDepartment(Department department, JsonGenerator gen)
+      throws IOException {
+    Employee head = department.getHead();
+    List<Employee> members = department.getEmployees();
+    gen.writeStartObject();
+    for (String field : DEPARTMENT_FIELDS) {
+      gen.writeFieldName(field);
+      switch (field) {
+        case "id" -> gen.writeNumber(department.getId());
+        case "name" -> gen.writeString(department.getName());
+        case "head" -> gen.writeString(head != null ? head.getName() : "");
+        case "headId" -> {
+          if (head != null) {
+            gen.writeNumber(head.getId());
+          } else {
+            gen.writeString("");
+          }
+        }
+        case "employeeCount" -> gen.writeNumber(members.size());
+        case "employees" -> {
+          gen.writeStartArray();
+          for (Employee member : members) {
+            writeMember(member, MEMBER_FIELDS, gen);
+          }
+          gen.writeEndArray();
+        }
+        default -> throw new IllegalStateException("Unknown field: " + field);
+      }
+    }
+    gen.writeEndObject();
+  }
+
+  private static void writeDepartmentPage(
+      DepartmentPage page, String[] memberFields, boolean includeEmployees, JsonGenerator gen
+  ) throws IOException {
+    Employee head = page.head();
+    gen.writeStartObject();
+    for (String field : DEPARTMENT_FIELDS) {
+      if ("employees".equals(field) && !includeEmployees) {
+        continue;
+      }
+      gen.writeFieldName(field);
+      switch (field) {
+        case "id" -> gen.writeNumber(page.id());
+        case "name" -> gen.writeString(page.name());
+        case "head" -> gen.writeString(head != null ? head.getName() : "");
+        case "headId" -> {
+          if (head != null) {
+            gen.writeNumber(head.getId());
+          } else {
+            gen.writeString("");
+          }
+        }
+        case "employeeCount" -> gen.writeNumber(page.employeeCount());
+        case "employees" -> {
+          gen.writeStartArray();
+          for (Employee member : page.employees()) {
+            writeMember(member, memberFields, gen);
+          }
+          gen.writeEndArray();
+        }
+        default -> throw new IllegalStateException("Unknown field: " + field);
+      }
+    }
+    if (includeEmployees && page.nextCursor() != null) {
+      gen.writeNumberField("nextCursor", page.nextCursor());
+    }
+    gen.writeEndObject();
+  }
+
+  private static void writeMember(Employee member, String[] fields, JsonGenerator gen)
+      throws IOException {
+    gen.writeStartObject();
+    for (String field : fields) {
+      gen.writeFieldName(field);
+      switch (field) {
+        case "id" -> gen.writeNumber(member.getId());
+        case "name" -> gen.writeString(member.getName());
+        case "position" -> gen.writeString(member.getPosition());
+        case "performance" -> gen.writeNumber(member.getPerformance());
+        case "salary" -> gen.writeNumber(member.getSalary());
+        default -> throw new IllegalStateException("Unknown field: " + field);
+      }
+    }
+    gen.writeEndObject();
+  }
+
+  private static void writeOrganization(Organization organization, JsonGenerator gen)
+      throws IOException {
+    List<Department> departments = organization.getDepartments();
+    gen.writeStartObject();
+    for (String field : ORGANIZATION_FIELDS) {
+      gen.writeFieldName(field);
+      switch (field) {
+        case "id" -> gen.writeNumber(organization.getId());
+        case "name" -> gen.writeString(organization.getName());
+        case "departments" -> {
+          gen.writeStartArray();
+          for (Department department : departments) {
+            writeOrganizationDepartment(department, gen);
+          }
+          gen.writeEndArray();
+        }
+        case "departments_id" -> {
+          gen.writeStartArray();
+          for (Department department : departments) {
+            gen.writeNumber(department.getId());
+          }
+          gen.writeEndArray();
+        }
+        default -> throw new IllegalStateException("Unknown field: " + field);
+      }
+    }
+    gen.writeEndObject();
+  }
+
+  private static void writeOrganizationDepartment(Department department, JsonGenerator gen)
+      throws IOException {
+    gen.writeStartObject();
+    for (String field : ORGANIZATION_DEPARTMENT_FIELDS) {
+      gen.writeFieldName(field);
+      switch (field) {
+        case "id" -> gen.writeNumber(department.getId());
+        case "name" -> gen.writeString(department.getName() != null ? department.getName() : "");
+        case "head" -> gen.writeString(
+            department.getHead() != null ? department.getHead().getName() : "");
+        case "employeeCount" -> gen.writeNumber(department.getEmployees().size());
+        default -> throw new IllegalStateException("Unknown field: " + field);
+      }
+    }
+    gen.writeEndObject();
+  }
+
+  /**
+   * Returns the fields in the order a HashMap built by putting them in the given order
+   * iterates them, which is the order the maps of {@code toJson()} are serialized in.
+   *
+   * @param fields the fields in the order they are put
+   * @return the fields in iteration order
+   */
+  private static String[] hashMapOrder(String... fields) {
+    Map<String, Object> map = new HashMap<>();
+    for (String field : fields) {
+      map.put(field, field);
+    }
+    return new ArrayList<>(map.keySet()).toArray(new String[0]);
+  }
+}
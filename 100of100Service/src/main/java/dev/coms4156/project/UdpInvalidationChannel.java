@@ -0,0 +1,171 @@
+package dev.coms4156.project;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An invalidation channel that sends every invalidation as a UDP datagram to a fixed list
+ * of peer nodes. Datagrams may be lost, receivers detect this from the version gaps.
+ * The channel listens on a configured address only and drops datagrams that do not come
+ * from the host of a peer, so other hosts cannot evict or reload the caches of the node.
+ */
+public class UdpInvalidationChannel implements InvalidationChannel {
+  private static final Logger logger = LoggerFactory.getLogger(UdpInvalidationChannel.class);
+  private static final int MAX_MESSAGE_BYTES = 512;
+
+  private final DatagramSocket socket;
+  private final List<InetSocketAddress> peers;
+  private final Set<InetAddress> peerHosts = new HashSet<>();
+  private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+  private final Thread receiver;
+
+  /**
+   * Constructs a UDP invalidation channel on the loopback interface and starts receiving
+   * invalidations.
+   *
+   * @param port the local port to receive invalidations on
+   * @param peers the addresses of the other nodes
+   */
+  public UdpInvalidationChannel(int port, List<InetSocketAddress> peers) {
+    this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), peers);
+  }
+
+  /**
+   * Constructs a UDP invalidation channel and starts receiving invalidations.
+   *
+   * @param bindAddress the local address and port to receive invalidations on
+   * @param peers the addresses of the other nodes, the only senders that are accepted
+   */
+  public UdpInvalidationChannel(InetSocketAddress bindAddress, List<InetSocketAddress> peers) {
+    try {
+      this.socket = new DatagramSocket(bindAddress);
+    } catch (SocketException e) {
+      throw new IllegalStateException(
+          "Failed to open the cache invalidation address " + bindAddress, e);
+    }
+    this.peers = List.copyOf(peers);
+    for (InetSocketAddress peer : this.peers) {
+      if (peer.isUnresolved()) {
+        logger.warn("Cache invalidation peer {} cannot be resolved", peer);
+      } else {
+        this.peerHosts.add(peer.getAddress());
+      }
+    }
+    this.receiver = new Thread(this::receive, "hr-cache-invalidation");
+    this.receiver.setDaemon(true);
+    this.receiver.start();
+  }
+
+  /**
+   * Creates a channel from the system properties cache.invalidation.port,
+   * cache.invalidation.bindAddress (loopback by default) and cache.invalidation.peers
+   * (comma-separated host:port pairs).
+   *
+   * @return the channel, or null if no invalidation port is configured
+   */
+  public static UdpInvalidationChannel fromSystemProperties() {
+    Integer port = Integer.getInteger("cache.invalidation.port");
+    if (port == null) {
+      return null;
+    }
+    String bindAddress = System.getProperty("cache.invalidation.bindAddress");
+    InetSocketAddress local = bindAddress == null
+        ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+        : new InetSocketAddress(bindAddress, port);
+    return new UdpInvalidationChannel(local,
+        parsePeers(System.getProperty("cache.invalidation.peers", "")));
+  }
+
+  /**
+   * Parses a comma-separated list of host:port pairs.
+   *
+   * @param value the list to parse
+   * @return the peer addresses
+   * @throws IllegalArgumentException if a pair is malformed
+   */
+  static List<InetSocketAddress> parsePeers(String value) {
+    List<InetSocketAddress> peers = new ArrayList<>();
+    for (String peer : value.split(",")) {
+      String trimmed = peer.trim();
+      if (trimmed.isEmpty()) {
+        continue;
+      }
+      int colon = trimmed.lastIndexOf(':');
+      if (colon <= 0) {
+        throw new IllegalArgumentException("Invalid cache invalidation peer: " + trimmed);
+      }
+      peers.add(new InetSocketAddress(trimmed.substring(0, colon),
+          Integer.parseInt(trimmed.substring(colon + 1))));
+    }
+    return peers;
+  }
+
+  @Override
+  public void publish(CacheInvalidation invalidation) {
+    byte[] data = invalidation.encode();
+    for (InetSocketAddress peer : peers) {
+      try {
+        socket.send(new DatagramPacket(data, data.length, peer));
+      } catch (IOException e) {
+        // The peer notices the lost message from the next version it receives
+        logger.warn("Failed to send cache invalidation to {}", peer, e);
+      }
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<CacheInvalidation> listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void close() {
+    socket.close();
+    listeners.clear();
+  }
+
+  /**
+   * Returns the local port that invalidations are received on.
+   *
+   * @return the local port
+   */
+  public int getLocalPort() {
+    return socket.getLocalPort();
+  }
+
+  private void receive() {
+    byte[] buffer = new byte[MAX_MESSAGE_BYTES];
+    while (!socket.isClosed()) {
+      DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+      try {
+        socket.receive(packet);
+        if (!peerHosts.contains(packet.getAddress())) {
+          logger.debug("Dropped cache invalidation from {}, not a peer", packet.getAddress());
+          continue;
+        }
+        CacheInvalidation invalidation = CacheInvalidation.decode(buffer, packet.getLength());
+        for (Consumer<CacheInvalidation> listener : listeners) {
+          listener.accept(invalidation);
+        }
+      } catch (IOException e) {
+        if (!socket.isClosed()) {
+          logger.warn("Failed to receive cache invalidation", e);
+        }
+      } catch (RuntimeException e) {
+        logger.warn("Dropped cache invalidation", e);
+      }
+    }
+  }
+}
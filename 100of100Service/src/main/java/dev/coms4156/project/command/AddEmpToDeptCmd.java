@@ -14,7 +14,7 @@ import java.util.Map;
 /**
  * A command to add an employee to given department.
  */
-public class AddEmpToDeptCmd implements Command {
+public class AddEmpToDeptCmd implements WriteCommand {
   private final int clientId;
   private final int departmentId;
   private final String name;
@@ -47,6 +47,16 @@ public class AddEmpToDeptCmd implements Command {
     this.performance = performance;
   }
 
+  /**
+   * Returns the ID of the organization that the command modifies.
+   *
+   * @return the client ID
+   */
+  @Override
+  public int getClientId() {
+    return this.clientId;
+  }
+
   @Override
   public Object execute() {
     HrDatabaseFacade dbFacade = HrDatabaseFacade.getInstance(clientId);
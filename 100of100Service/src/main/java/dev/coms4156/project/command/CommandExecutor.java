@@ -0,0 +1,177 @@
+package dev.coms4156.project.command;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes commands on behalf of the API routes.
+ * In single-writer mode, write commands are queued in a mailbox per organization that is
+ * drained by one writer at a time, so writes of the same organization never race each other.
+ * Read commands always run on the calling thread against the published state.
+ */
+public final class CommandExecutor {
+  // Upper bound of commands a writer runs for one organization before yielding the thread
+  private static final int BATCH_SIZE = 64;
+
+  private static final ExecutorService writerExecutor = Executors.newFixedThreadPool(
+      Integer.getInteger("command.writerThreads", 4), runnable -> {
+        Thread thread = new Thread(runnable, "hr-command-writer");
+        thread.setDaemon(true);
+        return thread;
+      });
+  private static final Map<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+  private static volatile boolean singleWriter = false;
+
+  private CommandExecutor() {
+  }
+
+  /**
+   * Enables or disables single-writer mode.
+   *
+   * @param enabled true to serialize the write commands of each organization
+   */
+  public static void setSingleWriter(boolean enabled) {
+    singleWriter = enabled;
+  }
+
+  /**
+   * Executes the command and waits for its result.
+   * Exceptions thrown by the command are rethrown to the caller.
+   *
+   * @param command the command to execute
+   * @return the result of the command
+   */
+  public static Object execute(Command command) {
+    if (!singleWriter || !(command instanceof WriteCommand writeCommand)) {
+      return command.execute();
+    }
+    CompletableFuture<Object> result =
+        mailboxes.computeIfAbsent(writeCommand.getClientId(), id -> new Mailbox()).submit(command);
+    try {
+      return result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the number of write commands of the organization that are queued or running.
+   *
+   * @param clientId the client ID
+   * @return the current queue depth
+   */
+  public static int getQueueDepth(int clientId) {
+    Mailbox mailbox = mailboxes.get(clientId);
+    return mailbox == null ? 0 : mailbox.depth.get();
+  }
+
+  /**
+   * Returns the highest queue depth the organization has reached.
+   *
+   * @param clientId the client ID
+   * @return the highest queue depth
+   */
+  public static int getMaxQueueDepth(int clientId) {
+    Mailbox mailbox = mailboxes.get(clientId);
+    return mailbox == null ? 0 : mailbox.maxDepth.get();
+  }
+
+  /**
+   * Returns the current queue depth of every organization with a non-empty mailbox.
+   *
+   * @return the queue depths keyed by client ID
+   */
+  public static Map<Integer, Integer> getQueueDepths() {
+    Map<Integer, Integer> result = new HashMap<>();
+    mailboxes.forEach((clientId, mailbox) -> {
+      int depth = mailbox.depth.get();
+      if (depth > 0) {
+        result.put(clientId, depth);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * The queue of pending write commands of one organization.
+   * At most one writer thread drains a mailbox at any time.
+   */
+  private static final class Mailbox implements Runnable {
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+
+    /**
+     * Queues a command and schedules the mailbox if no writer is draining it.
+     *
+     * @param command the command to queue
+     * @return the future result of the command
+     */
+    CompletableFuture<Object> submit(Command command) {
+      CompletableFuture<Object> result = new CompletableFuture<>();
+      this.maxDepth.accumulateAndGet(this.depth.incrementAndGet(), Math::max);
+      this.tasks.add(() -> {
+        Object value = null;
+        Throwable failure = null;
+        try {
+          value = command.execute();
+        } catch (Throwable e) {
+          failure = e;
+        }
+        // Leave the queue before the caller sees the result
+        this.depth.decrementAndGet();
+        if (failure != null) {
+          result.completeExceptionally(failure);
+        } else {
+          result.complete(value);
+        }
+      });
+      schedule();
+      return result;
+    }
+
+    private void schedule() {
+      if (this.scheduled.compareAndSet(false, true)) {
+        writerExecutor.execute(this);
+      }
+    }
+
+    /**
+     * Runs a batch of queued tasks, then hands the thread over to other organizations.
+     */
+    @Override
+    public void run() {
+      try {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+          Runnable task = this.tasks.poll();
+          if (task == null) {
+            break;
+          }
+          task.run();
+        }
+      } finally {
+        this.scheduled.set(false);
+        // Tasks queued after the last poll would otherwise wait for the next submit
+        if (!this.tasks.isEmpty()) {
+          schedule();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package dev.coms4156.project.command;
+
+import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.OrganizationExport;
+import dev.coms4156.project.exception.BadRequestException;
+import dev.coms4156.project.exception.NotFoundException;
+
+/**
+ * A command to export every employee of an organization with its department.
+ * The command only checks the request, the rows are streamed when the returned body is
+ * written to the response.
+ */
+public class ExportOrgCmd implements Command {
+  private final int clientId;
+  private final String format;
+
+  public ExportOrgCmd(int clientId, String format) {
+    this.clientId = clientId;
+    this.format = format;
+  }
+
+  @Override
+  public Object execute() {
+    OrganizationExport.Format exportFormat = OrganizationExport.Format.of(this.format);
+    if (exportFormat == null) {
+      throw new BadRequestException("Unknown export format: " + this.format);
+    }
+    if (!HrDatabaseFacade.hasOrganization(this.clientId)) {
+      throw new NotFoundException("Organization [" + this.clientId + "] not found");
+    }
+    return new OrganizationExport(this.clientId, exportFormat);
+  }
+}
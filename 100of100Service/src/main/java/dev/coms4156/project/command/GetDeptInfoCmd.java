@@ -1,8 +1,12 @@
 package dev.coms4156.project.command;
 
 import dev.coms4156.project.Department;
+import dev.coms4156.project.DepartmentPage;
 import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.StreamingJson;
+import dev.coms4156.project.exception.BadRequestException;
 import dev.coms4156.project.exception.NotFoundException;
+import java.util.List;
 
 /**
  * A command to get the information of a department.
@@ -10,19 +14,68 @@ import dev.coms4156.project.exception.NotFoundException;
 public class GetDeptInfoCmd implements Command {
   private final int clientId;
   private final int departmentId;
+  private final Integer afterEmployeeId;
+  private final Integer limit;
+  private final List<String> fields;
+  private final boolean includeEmployees;
 
   public GetDeptInfoCmd(int clientId, int departmentId) {
+    this(clientId, departmentId, null, null, null, true);
+  }
+
+  /**
+   * Constructs a command to get the information of a department with a page of its members.
+   * Once a page, a projection or the summary is requested, the members are listed by
+   * ascending ID.
+   *
+   * @param clientId         the ID of the client organization
+   * @param departmentId     the ID of the department
+   * @param afterEmployeeId  the ID to start the page after, or null to start at the first member
+   * @param limit            the maximum number of members, or null for all of them
+   * @param fields           the fields of every member, or null for all of them
+   * @param includeEmployees false to get only the summary of the department
+   */
+  public GetDeptInfoCmd(
+      int clientId, int departmentId, Integer afterEmployeeId, Integer limit,
+      List<String> fields, boolean includeEmployees
+  ) {
     this.clientId = clientId;
     this.departmentId = departmentId;
+    this.afterEmployeeId = afterEmployeeId;
+    this.limit = limit;
+    this.fields = fields;
+    this.includeEmployees = includeEmployees;
   }
 
   @Override
   public Object execute() {
     HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
-    Department department = db.getDepartment(this.departmentId);
-    if (department == null) {
+    if (this.afterEmployeeId == null && this.limit == null && this.fields == null
+        && this.includeEmployees) {
+      Department department = db.getDepartment(this.departmentId);
+      if (department == null) {
+        throw new NotFoundException("Department [" + this.departmentId + "] not found");
+      }
+      return StreamingJson.of(department);
+    }
+
+    if (this.limit != null && this.limit < 1) {
+      throw new BadRequestException("Limit must be positive");
+    }
+    if (this.fields != null) {
+      for (String field : this.fields) {
+        if (!StreamingJson.isMemberField(field)) {
+          throw new BadRequestException("Unknown employee field: " + field);
+        }
+      }
+    }
+    int pageSize = !this.includeEmployees ? 0
+        : this.limit != null ? this.limit : Integer.MAX_VALUE;
+    DepartmentPage page = db.getDepartmentPage(this.departmentId,
+        this.afterEmployeeId != null ? this.afterEmployeeId : Integer.MIN_VALUE, pageSize);
+    if (page == null) {
       throw new NotFoundException("Department [" + this.departmentId + "] not found");
     }
-    return department.toJson();
+    return StreamingJson.of(page, this.fields, this.includeEmployees);
   }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package dev.coms4156.project.command;
 
 import dev.coms4156.project.Employee;
 import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.StreamingJson;
 import dev.coms4156.project.exception.NotFoundException;
 
 /**
@@ -29,6 +30,6 @@ public class GetEmpInfoCmd implements Command {
     if (employee == null) {
       throw new NotFoundException("Employee [" + this.employeeId + "] not found");
     }
-    return employee.toJson();
+    return StreamingJson.of(employee);
   }
 }
@@ -2,6 +2,7 @@ package dev.coms4156.project.command;
 
 import dev.coms4156.project.HrDatabaseFacade;
 import dev.coms4156.project.Organization;
+import dev.coms4156.project.StreamingJson;
 import dev.coms4156.project.exception.NotFoundException;
 
 /**
@@ -21,6 +22,6 @@ public class GetOrgInfoCmd implements Command {
     if (organization == null) {
       throw new NotFoundException("Organization [" + this.clientId + "] not found");
     }
-    return organization.toJson();
+    return StreamingJson.of(organization);
   }
 }
\ No newline at end of file
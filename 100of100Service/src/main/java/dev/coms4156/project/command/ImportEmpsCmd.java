@@ -0,0 +1,64 @@
+package dev.coms4156.project.command;
+
+import dev.coms4156.project.Employee;
+import dev.coms4156.project.EmployeeImport;
+import dev.coms4156.project.HrDatabaseFacade;
+import dev.coms4156.project.OrganizationExport;
+import dev.coms4156.project.exception.BadRequestException;
+import dev.coms4156.project.exception.InternalServerErrorException;
+import java.util.List;
+
+/**
+ * A command to add many employees to departments at once.
+ * Every row is validated, the valid rows are added together and the invalid ones are
+ * reported with the reason they were rejected.
+ */
+public class ImportEmpsCmd implements WriteCommand {
+  private final int clientId;
+  private final String format;
+  private final String body;
+
+  /**
+   * Constructs a command to import employees into a given organization.
+   *
+   * @param clientId the ID of the client organization
+   * @param format   the format of the rows, ndjson or csv
+   * @param body     the rows, one employee per line
+   */
+  public ImportEmpsCmd(int clientId, String format, String body) {
+    this.clientId = clientId;
+    this.format = format;
+    this.body = body;
+  }
+
+  /**
+   * Returns the ID of the organization that the command modifies.
+   *
+   * @return the client ID
+   */
+  @Override
+  public int getClientId() {
+    return this.clientId;
+  }
+
+  @Override
+  public Object execute() {
+    OrganizationExport.Format importFormat = OrganizationExport.Format.of(this.format);
+    if (importFormat == null) {
+      throw new BadRequestException("Unknown import format: " + this.format);
+    }
+    HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
+    EmployeeImport rows = EmployeeImport.parse(
+        importFormat, this.body, departmentId -> db.getDepartment(departmentId) != null);
+
+    if (!rows.getEmployees().isEmpty()) {
+      List<Employee> added =
+          db.addEmployeesToDepartments(rows.getDepartmentIds(), rows.getEmployees());
+      if (added == null) {
+        throw new InternalServerErrorException("Failed to import employees");
+      }
+      rows.setImported(added);
+    }
+    return rows;
+  }
+}
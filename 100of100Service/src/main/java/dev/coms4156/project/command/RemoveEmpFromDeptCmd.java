@@ -1,7 +1,6 @@
 package dev.coms4156.project.command;
 
 import dev.coms4156.project.Department;
-import dev.coms4156.project.Employee;
 import dev.coms4156.project.HrDatabaseFacade;
 import dev.coms4156.project.exception.BadRequestException;
 import dev.coms4156.project.exception.NotFoundException;
@@ -11,7 +10,7 @@ import java.util.Map;
 /**
  * A command to remove an employee from given department.
  */
-public class RemoveEmpFromDeptCmd implements Command {
+public class RemoveEmpFromDeptCmd implements WriteCommand {
   private final int clientId;
   private final int departmentId;
   private final int employeeId;
@@ -29,6 +28,16 @@ public class RemoveEmpFromDeptCmd implements Command {
     this.employeeId = employeeId;
   }
 
+  /**
+   * Returns the ID of the organization that the command modifies.
+   *
+   * @return the client ID
+   */
+  @Override
+  public int getClientId() {
+    return this.clientId;
+  }
+
   @Override
   public Object execute() {
     HrDatabaseFacade dbFacade = HrDatabaseFacade.getInstance(clientId);
@@ -39,16 +48,14 @@ public class RemoveEmpFromDeptCmd implements Command {
       throw new NotFoundException("Department [" + this.departmentId + "] not found");
     }
 
-    // Find the employee to remove
-    Employee employeeToRemove = department.getEmployees().stream()
+    // Check that the employee is a member of the department
+    department.getEmployees().stream()
         .filter(e -> e.getId() == employeeId)
         .findFirst()
         .orElseThrow(() ->
           new IllegalArgumentException("Employee not found with ID: " + employeeId));
 
-    // Remove the employee and update the department
-    department.removeEmployee(employeeToRemove);
-    // Remove employee through facade
+    // Remove employee through facade, which also updates the cached department
     boolean removed = dbFacade.removeEmployeeFromDepartment(departmentId, employeeId);
     if (!removed) {
       throw new BadRequestException("Failed to remove employee [" + employeeId
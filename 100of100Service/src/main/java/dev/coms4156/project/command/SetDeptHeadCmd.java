@@ -5,13 +5,14 @@ import dev.coms4156.project.Employee;
 import dev.coms4156.project.HrDatabaseFacade;
 import dev.coms4156.project.exception.InternalServerErrorException;
 import dev.coms4156.project.exception.NotFoundException;
+import dev.coms4156.project.utils.StripedLock;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * A command to set the head of a department.
  */
-public class SetDeptHeadCmd implements Command {
+public class SetDeptHeadCmd implements WriteCommand {
   private final int clientId;
   private final int departmentId;
   private final int employeeId;
@@ -29,23 +30,37 @@ public class SetDeptHeadCmd implements Command {
     this.employeeId = employeeId;
   }
 
+  /**
+   * Returns the ID of the organization that the command modifies.
+   *
+   * @return the client ID
+   */
+  @Override
+  public int getClientId() {
+    return this.clientId;
+  }
+
   @Override
   public Object execute() {
     HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
-    Department department = db.getDepartment(this.departmentId);
-    if (department == null) {
-      throw new NotFoundException("Department [" + this.departmentId + "] not found");
-    }
-    Employee employee = db.getEmployee(this.employeeId);
-    if (employee == null) {
-      throw new NotFoundException("Employee [" + this.employeeId + "] not found");
-    }
-    department.setHead(employee);
-    boolean updated = db.updateDepartment(department);
-    if (!updated) {
-      throw new InternalServerErrorException(
-          "Failed to update department [" + this.departmentId + "]"
-      );
+    try (StripedLock.Handle ignored = db.lockDepartment(this.departmentId)) {
+      Department department = db.getDepartment(this.departmentId);
+      if (department == null) {
+        throw new NotFoundException("Department [" + this.departmentId + "] not found");
+      }
+      Employee employee = db.getEmployee(this.employeeId);
+      if (employee == null) {
+        throw new NotFoundException("Employee [" + this.employeeId + "] not found");
+      }
+      // Cached departments are shared with concurrent readers, so modify a copy
+      department = department.copy();
+      department.setHead(employee);
+      boolean updated = db.updateDepartment(department);
+      if (!updated) {
+        throw new InternalServerErrorException(
+            "Failed to update department [" + this.departmentId + "]"
+        );
+      }
     }
 
     Map<String, Object> response = new HashMap<>();
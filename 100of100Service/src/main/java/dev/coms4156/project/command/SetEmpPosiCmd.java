@@ -4,11 +4,12 @@ import dev.coms4156.project.Employee;
 import dev.coms4156.project.HrDatabaseFacade;
 import dev.coms4156.project.exception.InternalServerErrorException;
 import dev.coms4156.project.exception.NotFoundException;
+import dev.coms4156.project.utils.StripedLock;
 
 /**
  * A command to set the position of an employee.
  */
-public class SetEmpPosiCmd implements Command {
+public class SetEmpPosiCmd implements WriteCommand {
   private final int clientId;
   private final int employeeId;
   private final String position;
@@ -26,6 +27,16 @@ public class SetEmpPosiCmd implements Command {
     this.position = position;
   }
 
+  /**
+   * Returns the ID of the organization that the command modifies.
+   *
+   * @return the client ID
+   */
+  @Override
+  public int getClientId() {
+    return this.clientId;
+  }
+
   /**
    * Executes the command.
    *
@@ -34,14 +45,19 @@ public class SetEmpPosiCmd implements Command {
   @Override
   public Object execute() {
     HrDatabaseFacade db = HrDatabaseFacade.getInstance(this.clientId);
-    Employee emp = db.getEmployee(this.employeeId);
-    if (emp == null) {
-      throw new NotFoundException("Employee [" + this.employeeId + "] not found");
-    }
-    emp.setPosition(this.position);
-    boolean result = db.updateEmployee(emp);
-    if (!result) {
-      throw new InternalServerErrorException("Failed to update employee [" + this.employeeId + "]");
+    // Hold the department lock so that concurrent updates of the employee are not lost
+    try (StripedLock.Handle ignored = db.lockEmployee(this.employeeId)) {
+      Employee emp = db.getEmployee(this.employeeId);
+      if (emp == null) {
+        throw new NotFoundException("Employee [" + this.employeeId + "] not found");
+      }
+      emp = emp.withPosition(this.position);
+      boolean result = db.updateEmployee(emp);
+      if (!result) {
+        throw new InternalServerErrorException(
+            "Failed to update employee [" + this.employeeId + "]"
+        );
+      }
     }
 
     return "Successfully set position of employee [" + this.employeeId + "] to " + this.position;
@@ -10,10 +10,23 @@ import dev.coms4156.project.exception.NotFoundException;
 public class StatDeptBudgCmd implements Command {
   private final int clientId;
   private final int departmentId;
+  private final boolean approximate;
 
   public StatDeptBudgCmd(int clientId, int departmentId) {
+    this(clientId, departmentId, false);
+  }
+
+  /**
+   * Constructs the command.
+   *
+   * @param clientId the client ID
+   * @param departmentId the department ID
+   * @param approximate true to approximate the quartiles with a quantile sketch
+   */
+  public StatDeptBudgCmd(int clientId, int departmentId, boolean approximate) {
     this.clientId = clientId;
     this.departmentId = departmentId;
+    this.approximate = approximate;
   }
 
   @Override
@@ -23,6 +36,8 @@ public class StatDeptBudgCmd implements Command {
     if (department == null) {
       throw new NotFoundException("Department [" + this.departmentId + "] not found.");
     }
-    return department.getEmployeeSalaryStatisticMap();
+    return this.approximate
+        ? department.getApproximateSalaryStatisticMap()
+        : department.getEmployeeSalaryStatisticMap();
   }
 }
@@ -0,0 +1,15 @@
+package dev.coms4156.project.command;
+
+/**
+ * Interface for commands that modify the data of an organization.
+ * Write commands of the same organization can be serialized by the {@link CommandExecutor}.
+ */
+public interface WriteCommand extends Command {
+
+  /**
+   * Returns the ID of the organization that the command modifies.
+   *
+   * @return the client ID
+   */
+  int getClientId();
+}
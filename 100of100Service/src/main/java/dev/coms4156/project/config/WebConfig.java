@@ -5,6 +5,7 @@ import dev.coms4156.project.interceptor.ParameterDecodingInterceptor;
 import dev.coms4156.project.interceptor.RrLoggingInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -33,16 +34,27 @@ public class WebConfig implements WebMvcConfigurer {
     registry.addInterceptor(apiKeyInterceptor)
         .addPathPatterns("/**")
         .excludePathPatterns(
-            "/register"
+            "/register",
+            "/ready"
         );
     registry.addInterceptor(parameterDecodingInterceptor)
         .addPathPatterns("/**")
         .excludePathPatterns(
             "/login",
-            "/register"
+            "/register",
+            "/ready"
         );
   }
 
+  /**
+   * This method configures the timeout of streamed responses, such as organization exports,
+   * which take as long as the organization takes to read.
+   */
+  @Override
+  public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+    configurer.setDefaultTimeout(Long.getLong("export.timeoutMs", 600_000L));
+  }
+
   /**
    * This method configures the CORS settings so that the frontend can access the backend.
    */
@@ -0,0 +1,57 @@
+package dev.coms4156.project.utils;
+
+/**
+ * A running sum of doubles that values can be added to and subtracted from indefinitely.
+ * Uses Neumaier's compensated summation: the low-order bits lost by every addition are
+ * collected in a separate term, so the error does not grow with the number of updates the
+ * way it does for a plain running total.
+ * This class is not thread-safe.
+ */
+public final class CompensatedSum {
+  private double sum;
+  private double compensation;
+
+  /**
+   * Adds a value to the sum.
+   *
+   * @param value the value to add, negative to subtract
+   */
+  public void add(double value) {
+    double total = this.sum + value;
+    if (Math.abs(this.sum) >= Math.abs(value)) {
+      this.compensation += (this.sum - total) + value;
+    } else {
+      this.compensation += (value - total) + this.sum;
+    }
+    this.sum = total;
+  }
+
+  /**
+   * Returns the sum of the values added so far.
+   *
+   * @return the sum
+   */
+  public double value() {
+    return this.sum + this.compensation;
+  }
+
+  /**
+   * Starts over from an empty sum.
+   */
+  public void clear() {
+    this.sum = 0.0;
+    this.compensation = 0.0;
+  }
+
+  /**
+   * Returns a copy of the sum that is updated independently of this one.
+   *
+   * @return the copy
+   */
+  public CompensatedSum copy() {
+    CompensatedSum copy = new CompensatedSum();
+    copy.sum = this.sum;
+    copy.compensation = this.compensation;
+    return copy;
+  }
+}
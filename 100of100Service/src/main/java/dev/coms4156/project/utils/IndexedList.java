@@ -0,0 +1,333 @@
+package dev.coms4156.project.utils;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * An insertion-ordered list that removes elements by identity in O(log n) time.
+ * Elements are kept in an array of slots, a removed element leaves an empty slot behind that
+ * a Fenwick tree skips when an index is resolved, and the slots are compacted once more than
+ * half of them are empty. The identity index from element to slot and the Fenwick tree are
+ * only built once a list is first searched or removed from, so lists that are only appended
+ * to and read cost one array slot per element.
+ * Null elements are not supported, a null marks an empty slot.
+ * This class is not thread-safe.
+ *
+ * @param <E> the type of the elements
+ */
+public final class IndexedList<E> extends AbstractList<E> {
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private Object[] slots;
+  // Number of used slots, including empty ones, and number of elements
+  private int end;
+  private int size;
+  // Slot of the first occurrence of every element, null until first needed
+  private Map<Object, Integer> index;
+  // Fenwick tree over the occupied slots, null while no slot is empty
+  private int[] occupied;
+
+  /**
+   * Constructs an empty list.
+   */
+  public IndexedList() {
+    this.slots = new Object[DEFAULT_CAPACITY];
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(int index) {
+    return (E) this.slots[slotOf(index)];
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public boolean add(E element) {
+    if (element == null) {
+      throw new IllegalArgumentException("Null elements are not supported");
+    }
+    if (this.end == this.slots.length) {
+      if (this.size * 2 <= this.end) {
+        compact();
+      } else {
+        this.slots = Arrays.copyOf(this.slots, this.slots.length * 2);
+        if (this.occupied != null) {
+          buildOccupied();
+        }
+      }
+    }
+    int slot = this.end++;
+    this.slots[slot] = element;
+    this.size++;
+    if (this.index != null) {
+      this.index.putIfAbsent(element, slot);
+    }
+    if (this.occupied != null) {
+      increment(slot, 1);
+    }
+    this.modCount++;
+    return true;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E set(int index, E element) {
+    if (element == null) {
+      throw new IllegalArgumentException("Null elements are not supported");
+    }
+    int slot = slotOf(index);
+    E previous = (E) this.slots[slot];
+    this.slots[slot] = element;
+    if (this.index != null && previous != element) {
+      unindex(previous, slot);
+      Integer first = this.index.get(element);
+      if (first == null || first > slot) {
+        this.index.put(element, slot);
+      }
+    }
+    return previous;
+  }
+
+  @Override
+  public int indexOf(Object element) {
+    Integer slot = index().get(element);
+    if (slot == null) {
+      return -1;
+    }
+    return this.occupied == null ? slot : prefix(slot) - 1;
+  }
+
+  @Override
+  public boolean contains(Object element) {
+    return index().containsKey(element);
+  }
+
+  /**
+   * Removes the first occurrence of the element, compared by identity.
+   *
+   * @param element the element to remove
+   * @return true if the element was removed, false if it is absent
+   */
+  @Override
+  public boolean remove(Object element) {
+    Integer slot = index().get(element);
+    if (slot == null) {
+      return false;
+    }
+    removeSlot(slot);
+    return true;
+  }
+
+  @Override
+  public E remove(int index) {
+    int slot = slotOf(index);
+    @SuppressWarnings("unchecked")
+    E removed = (E) this.slots[slot];
+    removeSlot(slot);
+    return removed;
+  }
+
+  /**
+   * Returns a copy of the list that holds the same elements.
+   * The slots, the identity index and the Fenwick tree are copied as they are, so the copy
+   * does not rebuild them element by element.
+   *
+   * @return the copy
+   */
+  public IndexedList<E> copy() {
+    IndexedList<E> copy = new IndexedList<>();
+    copy.slots = this.slots.clone();
+    copy.end = this.end;
+    copy.size = this.size;
+    copy.index = this.index == null ? null : new IdentityHashMap<>(this.index);
+    copy.occupied = this.occupied == null ? null : this.occupied.clone();
+    return copy;
+  }
+
+  @Override
+  public void clear() {
+    this.slots = new Object[DEFAULT_CAPACITY];
+    this.end = 0;
+    this.size = 0;
+    this.index = null;
+    this.occupied = null;
+    this.modCount++;
+  }
+
+  /**
+   * Returns an iterator that walks the slots in order.
+   * The iterator does not support removal.
+   *
+   * @return an iterator over the elements
+   */
+  @Override
+  public Iterator<E> iterator() {
+    return new Iterator<>() {
+      private final int expectedModCount = IndexedList.this.modCount;
+      private int slot = nextSlot(0);
+
+      @Override
+      public boolean hasNext() {
+        return this.slot < IndexedList.this.end;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public E next() {
+        if (IndexedList.this.modCount != this.expectedModCount) {
+          throw new ConcurrentModificationException();
+        }
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        E element = (E) IndexedList.this.slots[this.slot];
+        this.slot = nextSlot(this.slot + 1);
+        return element;
+      }
+    };
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void forEach(Consumer<? super E> action) {
+    for (int slot = 0; slot < this.end; slot++) {
+      if (this.slots[slot] != null) {
+        action.accept((E) this.slots[slot]);
+      }
+    }
+  }
+
+  private int nextSlot(int from) {
+    int slot = from;
+    while (slot < this.end && this.slots[slot] == null) {
+      slot++;
+    }
+    return slot;
+  }
+
+  private void removeSlot(int slot) {
+    Object element = this.slots[slot];
+    if (this.occupied == null) {
+      buildOccupied();
+    }
+    this.slots[slot] = null;
+    increment(slot, -1);
+    this.size--;
+    if (this.index != null) {
+      unindex(element, slot);
+    }
+    this.modCount++;
+    if (this.size * 2 < this.end && this.end > DEFAULT_CAPACITY) {
+      compact();
+    }
+  }
+
+  /**
+   * Moves the index entry of an element that left the given slot to its next occurrence.
+   */
+  private void unindex(Object element, int slot) {
+    Integer first = this.index.get(element);
+    if (first == null || first != slot) {
+      return;
+    }
+    // Only lists that hold an element more than once need to look for another occurrence
+    if (this.size > this.index.size() - 1) {
+      for (int next = slot + 1; next < this.end; next++) {
+        if (this.slots[next] == element) {
+          this.index.put(element, next);
+          return;
+        }
+      }
+    }
+    this.index.remove(element);
+  }
+
+  private Map<Object, Integer> index() {
+    if (this.index == null) {
+      this.index = new IdentityHashMap<>(this.size);
+      for (int slot = 0; slot < this.end; slot++) {
+        if (this.slots[slot] != null) {
+          this.index.putIfAbsent(this.slots[slot], slot);
+        }
+      }
+    }
+    return this.index;
+  }
+
+  private int slotOf(int index) {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length "
+          + this.size);
+    }
+    if (this.occupied == null) {
+      return index;
+    }
+    // Descend the Fenwick tree to the slot holding the (index + 1)-th element
+    int slot = 0;
+    int remaining = index + 1;
+    for (int step = Integer.highestOneBit(this.occupied.length - 1); step > 0; step >>= 1) {
+      int next = slot + step;
+      if (next < this.occupied.length && this.occupied[next] < remaining) {
+        slot = next;
+        remaining -= this.occupied[next];
+      }
+    }
+    return slot;
+  }
+
+  private void compact() {
+    int live = 0;
+    for (int slot = 0; slot < this.end; slot++) {
+      if (this.slots[slot] != null) {
+        this.slots[live++] = this.slots[slot];
+      }
+    }
+    Arrays.fill(this.slots, live, this.end, null);
+    this.end = live;
+    this.occupied = null;
+    this.index = null;
+  }
+
+  private void buildOccupied() {
+    // One-based tree over all slots, so that slot s is node s + 1
+    this.occupied = new int[this.slots.length + 1];
+    for (int slot = 0; slot < this.end; slot++) {
+      if (this.slots[slot] != null) {
+        this.occupied[slot + 1]++;
+      }
+    }
+    for (int node = 1; node < this.occupied.length; node++) {
+      int parent = node + (node & -node);
+      if (parent < this.occupied.length) {
+        this.occupied[parent] += this.occupied[node];
+      }
+    }
+  }
+
+  private void increment(int slot, int delta) {
+    for (int node = slot + 1; node < this.occupied.length; node += node & -node) {
+      this.occupied[node] += delta;
+    }
+  }
+
+  /**
+   * Returns the number of elements in the slots up to and including the given slot.
+   */
+  private int prefix(int slot) {
+    int count = 0;
+    for (int node = slot + 1; node > 0; node -= node & -node) {
+      count += this.occupied[node];
+    }
+    return count;
+  }
+}
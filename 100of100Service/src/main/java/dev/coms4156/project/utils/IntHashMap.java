@@ -0,0 +1,216 @@
+package dev.coms4156.project.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A hash map keyed by primitive {@code int} values.
+ * Uses open addressing with linear probing over parallel arrays, so lookups neither box
+ * the key nor allocate, unlike {@code HashMap<Integer, V>}.
+ * Null values are not supported, a null value marks an empty slot.
+ * This class is not thread-safe.
+ *
+ * @param <V> the type of the mapped values
+ */
+public final class IntHashMap<V> {
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private int[] keys;
+  private Object[] values;
+  private int size;
+
+  /**
+   * Constructs an empty map with the default capacity.
+   */
+  public IntHashMap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty map that can hold the expected number of entries without resizing.
+   *
+   * @param expectedSize the expected number of entries
+   */
+  public IntHashMap(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, expectedSize * 2 - 1)) << 1;
+    this.keys = new int[capacity];
+    this.values = new Object[capacity];
+  }
+
+  /**
+   * Returns the value mapped to the given key.
+   *
+   * @param key the key
+   * @return the mapped value, or null if the key is absent
+   */
+  @SuppressWarnings("unchecked")
+  public V get(int key) {
+    int mask = this.keys.length - 1;
+    for (int i = mix(key) & mask; this.values[i] != null; i = (i + 1) & mask) {
+      if (this.keys[i] == key) {
+        return (V) this.values[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns true if the given key is mapped to a value.
+   *
+   * @param key the key
+   * @return true if the key is present, false otherwise
+   */
+  public boolean containsKey(int key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Maps the given key to the given value, replacing any previous mapping.
+   *
+   * @param key the key
+   * @param value the non-null value
+   * @return the previously mapped value, or null if the key was absent
+   */
+  @SuppressWarnings("unchecked")
+  public V put(int key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Null values are not supported");
+    }
+    int mask = this.keys.length - 1;
+    int i = mix(key) & mask;
+    for (; this.values[i] != null; i = (i + 1) & mask) {
+      if (this.keys[i] == key) {
+        V previous = (V) this.values[i];
+        this.values[i] = value;
+        return previous;
+      }
+    }
+    this.keys[i] = key;
+    this.values[i] = value;
+    if (++this.size * 2 > this.keys.length) {
+      resize(this.keys.length << 1);
+    }
+    return null;
+  }
+
+  /**
+   * Removes the mapping of the given key.
+   *
+   * @param key the key
+   * @return the removed value, or null if the key was absent
+   */
+  @SuppressWarnings("unchecked")
+  public V remove(int key) {
+    int mask = this.keys.length - 1;
+    int i = mix(key) & mask;
+    while (this.values[i] != null && this.keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+    if (this.values[i] == null) {
+      return null;
+    }
+    final V removed = (V) this.values[i];
+    // Shift back the following entries of the probe chain to close the gap
+    int gap = i;
+    for (int j = (i + 1) & mask; this.values[j] != null; j = (j + 1) & mask) {
+      int home = mix(this.keys[j]) & mask;
+      if (((j - home) & mask) >= ((j - gap) & mask)) {
+        this.keys[gap] = this.keys[j];
+        this.values[gap] = this.values[j];
+        gap = j;
+      }
+    }
+    this.values[gap] = null;
+    this.size--;
+    return removed;
+  }
+
+  /**
+   * Returns the number of entries in the map.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns true if the map has no entries.
+   *
+   * @return true if the map is empty, false otherwise
+   */
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Removes all entries from the map.
+   */
+  public void clear() {
+    Arrays.fill(this.values, null);
+    this.size = 0;
+  }
+
+  /**
+   * Performs the given action for every value in the map, in no particular order.
+   *
+   * @param action the action to perform
+   */
+  @SuppressWarnings("unchecked")
+  public void forEachValue(Consumer<? super V> action) {
+    for (Object value : this.values) {
+      if (value != null) {
+        action.accept((V) value);
+      }
+    }
+  }
+
+  /**
+   * Returns a list of the values in the map, in no particular order.
+   *
+   * @return a new list of the values
+   */
+  public List<V> values() {
+    List<V> result = new ArrayList<>(this.size);
+    forEachValue(result::add);
+    return result;
+  }
+
+  /**
+   * Returns a shallow copy of the map.
+   *
+   * @return a new map with the same entries
+   */
+  public IntHashMap<V> copy() {
+    IntHashMap<V> copy = new IntHashMap<>();
+    copy.keys = this.keys.clone();
+    copy.values = this.values.clone();
+    copy.size = this.size;
+    return copy;
+  }
+
+  private void resize(int capacity) {
+    int[] oldKeys = this.keys;
+    Object[] oldValues = this.values;
+    this.keys = new int[capacity];
+    this.values = new Object[capacity];
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldValues[j] != null) {
+        int i = mix(oldKeys[j]) & mask;
+        while (this.values[i] != null) {
+          i = (i + 1) & mask;
+        }
+        this.keys[i] = oldKeys[j];
+        this.values[i] = oldValues[j];
+      }
+    }
+  }
+
+  private static int mix(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,296 @@
+package dev.coms4156.project.utils;
+
+import java.util.Arrays;
+
+/**
+ * A mergeable quantile sketch of {@code double} values (Karnin, Lang and Liberty, 2016).
+ * Values are kept in a hierarchy of compactors; when a level fills up, every other of its
+ * sorted values is promoted to the next level with twice the weight. For an accuracy
+ * parameter k, the sketch keeps O(k log(n / k)) values and answers quantiles with a
+ * normalized rank error of about 1.65 / k.
+ * Sketches of disjoint sets merge into a sketch of their union with the same guarantee.
+ * The minimum and maximum are exact. This class is not thread-safe.
+ */
+public final class KllSketch {
+  private static final double CAPACITY_DECAY = 2.0 / 3.0;
+  private static final int MIN_CAPACITY = 2;
+
+  private final int accuracy;
+  // levels[h] holds values of weight 2^h, sizes[h] of them are used, for h below height
+  private double[][] levels = new double[4][];
+  private int[] sizes = new int[4];
+  private int height;
+  // State of the generator that picks the half of a level that is promoted
+  private long seed = 4156;
+  private long count;
+  private double min = Double.NaN;
+  private double max = Double.NaN;
+
+  /**
+   * Constructs an empty sketch.
+   *
+   * @param accuracy the accuracy parameter k, larger values use more memory for a smaller error
+   */
+  public KllSketch(int accuracy) {
+    if (accuracy < 8) {
+      throw new IllegalArgumentException("Accuracy must be at least 8");
+    }
+    this.accuracy = accuracy;
+    addLevel();
+  }
+
+  /**
+   * Constructs a copy of a sketch.
+   *
+   * @param source the sketch to copy
+   */
+  private KllSketch(KllSketch source) {
+    this.accuracy = source.accuracy;
+    this.levels = new double[source.levels.length][];
+    for (int h = 0; h < source.height; h++) {
+      this.levels[h] = Arrays.copyOf(source.levels[h], source.levels[h].length);
+    }
+    this.sizes = source.sizes.clone();
+    this.height = source.height;
+    this.seed = source.seed;
+    this.count = source.count;
+    this.min = source.min;
+    this.max = source.max;
+  }
+
+  /**
+   * Returns the accuracy parameter that keeps the normalized rank error within the bound.
+   *
+   * @param rankError the acceptable normalized rank error, between 0 and 1
+   * @return the accuracy parameter
+   */
+  public static int accuracyForRankError(double rankError) {
+    if (!(rankError > 0 && rankError < 1)) {
+      throw new IllegalArgumentException("Rank error must be between 0 and 1");
+    }
+    return Math.max(8, (int) Math.ceil(1.65 / rankError));
+  }
+
+  /**
+   * Adds a value to the sketch.
+   *
+   * @param value the value
+   */
+  public void update(double value) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+    this.min = this.count == 0 ? value : Math.min(this.min, value);
+    this.max = this.count == 0 ? value : Math.max(this.max, value);
+    this.count++;
+    append(0, value);
+    compress();
+  }
+
+  /**
+   * Adds the values summarized by another sketch, which is left unchanged.
+   *
+   * @param other the sketch to merge
+   */
+  public void merge(KllSketch other) {
+    if (other.count == 0) {
+      return;
+    }
+    this.min = this.count == 0 ? other.min : Math.min(this.min, other.min);
+    this.max = this.count == 0 ? other.max : Math.max(this.max, other.max);
+    this.count += other.count;
+    for (int h = 0; h < other.height; h++) {
+      while (this.height <= h) {
+        addLevel();
+      }
+      double[] values = other.levels[h];
+      for (int i = 0; i < other.sizes[h]; i++) {
+        append(h, values[i]);
+      }
+    }
+    compress();
+  }
+
+  /**
+   * Returns a copy of the sketch that is updated independently of this one.
+   *
+   * @return the copy
+   */
+  public KllSketch copy() {
+    return new KllSketch(this);
+  }
+
+  /**
+   * Returns the number of values added to the sketch.
+   *
+   * @return the number of values
+   */
+  public long getCount() {
+    return this.count;
+  }
+
+  /**
+   * Returns the smallest value added to the sketch.
+   *
+   * @return the minimum, or NaN if the sketch is empty
+   */
+  public double getMin() {
+    return this.min;
+  }
+
+  /**
+   * Returns the largest value added to the sketch.
+   *
+   * @return the maximum, or NaN if the sketch is empty
+   */
+  public double getMax() {
+    return this.max;
+  }
+
+  /**
+   * Returns the approximate normalized rank error of the sketch.
+   *
+   * @return the rank error, as a fraction of the number of values
+   */
+  public double getRankError() {
+    return 1.65 / this.accuracy;
+  }
+
+  /**
+   * Returns an approximation of the value at the given normalized rank.
+   *
+   * @param fraction the normalized rank, 0 for the minimum and 1 for the maximum
+   * @return the approximate quantile, or NaN if the sketch is empty
+   */
+  public double getQuantile(double fraction) {
+    if (fraction < 0 || fraction > 1) {
+      throw new IllegalArgumentException("Fraction must be between 0 and 1");
+    }
+    if (this.count == 0) {
+      return Double.NaN;
+    }
+    if (fraction == 0) {
+      return this.min;
+    }
+    if (fraction == 1) {
+      return this.max;
+    }
+    // Sort a copy of every level, then merge the levels in order of value while walking the
+    // cumulative weight; there are only O(log n) levels, so the merge scans them directly
+    double[][] sorted = new double[this.height][];
+    int[] next = new int[this.height];
+    long totalWeight = 0;
+    for (int h = 0; h < this.height; h++) {
+      sorted[h] = Arrays.copyOf(this.levels[h], this.sizes[h]);
+      Arrays.sort(sorted[h]);
+      totalWeight += (long) this.sizes[h] << h;
+    }
+    double target = fraction * totalWeight;
+    long cumulative = 0;
+    while (true) {
+      int lowest = -1;
+      double value = Double.NaN;
+      for (int h = 0; h < this.height; h++) {
+        if (next[h] < this.sizes[h]) {
+          double candidate = sorted[h][next[h]];
+          if (lowest < 0 || candidate < value) {
+            lowest = h;
+            value = candidate;
+          }
+        }
+      }
+      if (lowest < 0) {
+        break;
+      }
+      next[lowest]++;
+      cumulative += 1L << lowest;
+      if (cumulative >= target) {
+        return value;
+      }
+    }
+    return this.max;
+  }
+
+  private void addLevel() {
+    if (this.height == this.levels.length) {
+      this.levels = Arrays.copyOf(this.levels, this.height * 2);
+      this.sizes = Arrays.copyOf(this.sizes, this.height * 2);
+    }
+    this.levels[this.height] = new double[MIN_CAPACITY];
+    this.sizes[this.height] = 0;
+    this.height++;
+  }
+
+  private void append(int h, double value) {
+    double[] level = this.levels[h];
+    int size = this.sizes[h];
+    if (size == level.length) {
+      level = Arrays.copyOf(level, size * 2);
+      this.levels[h] = level;
+    }
+    level[size] = value;
+    this.sizes[h] = size + 1;
+  }
+
+  /**
+   * Returns a random bit from a linear congruential generator, whose state is a plain long
+   * so that copies of the sketch continue the same sequence.
+   */
+  private boolean nextBit() {
+    this.seed = this.seed * 6364136223846793005L + 1442695040888963407L;
+    return this.seed < 0;
+  }
+
+  /**
+   * Returns the number of values level h may hold before it is compacted.
+   */
+  private int capacity(int h) {
+    int depth = this.height - 1 - h;
+    return Math.max(MIN_CAPACITY, (int) Math.ceil(this.accuracy * Math.pow(CAPACITY_DECAY, depth)));
+  }
+
+  /**
+   * Compacts full levels until the sketch is within its total capacity.
+   */
+  private void compress() {
+    while (true) {
+      int retained = 0;
+      int capacity = 0;
+      for (int h = 0; h < this.height; h++) {
+        retained += this.sizes[h];
+        capacity += capacity(h);
+      }
+      if (retained < capacity) {
+        return;
+      }
+      for (int h = 0; h < this.height; h++) {
+        if (this.sizes[h] >= capacity(h)) {
+          compact(h);
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Promotes every other sorted value of level h to level h + 1.
+   * An odd value out stays on level h, so the total weight is preserved exactly.
+   */
+  private void compact(int h) {
+    if (h + 1 == this.height) {
+      addLevel();
+    }
+    double[] level = this.levels[h];
+    int size = this.sizes[h];
+    Arrays.sort(level, 0, size);
+    int paired = size - (size % 2);
+    int offset = nextBit() ? 1 : 0;
+    for (int i = offset; i < paired; i += 2) {
+      append(h + 1, level[i]);
+    }
+    if (paired < size) {
+      level[0] = level[size - 1];
+    }
+    this.sizes[h] = size - paired;
+  }
+}
@@ -0,0 +1,260 @@
+package dev.coms4156.project.utils;
+
+import java.util.function.Consumer;
+
+/**
+ * A sorted multiset of values ranked by a {@code double} key that can be indexed by rank.
+ * Implemented as a treap whose nodes know the size of their subtree, so inserting, removing
+ * and selecting the value of a rank take O(log n) expected time, and values are visited in
+ * order without sorting. Entries with equal keys are ordered by their handles, which follow
+ * insertion order unless the caller chooses them.
+ * This class is not thread-safe.
+ *
+ * @param <V> the type of the ranked values
+ */
+public final class OrderStatisticTree<V> {
+  private final boolean descending;
+  private Node<V> root;
+  private long nextSeq;
+
+  private static final class Node<V> {
+    private final double key;
+    private final long seq;
+    private final V value;
+    private final long priority;
+    private Node<V> left;
+    private Node<V> right;
+    private int size = 1;
+
+    private Node(double key, long seq, V value) {
+      this.key = key;
+      this.seq = seq;
+      this.value = value;
+      this.priority = mix(seq);
+    }
+  }
+
+  /**
+   * Constructs an empty tree.
+   *
+   * @param descending true to rank the highest key first, false to rank the lowest key first
+   */
+  public OrderStatisticTree(boolean descending) {
+    this.descending = descending;
+  }
+
+  /**
+   * Inserts a value with the given key.
+   *
+   * @param key the key the value is ranked by
+   * @param value the value
+   * @return the handle of the entry, needed together with the key to remove it
+   */
+  public long insert(double key, V value) {
+    return insert(key, this.nextSeq, value);
+  }
+
+  /**
+   * Inserts a value with the given key and a handle chosen by the caller.
+   * Entries with equal keys are ordered by their handles, so a value that is removed and
+   * inserted again with its previous handle keeps its place among them.
+   *
+   * @param key the key the value is ranked by
+   * @param handle the handle of the entry, unique among the entries of the tree
+   * @param value the value
+   * @return the handle of the entry
+   */
+  public long insert(double key, long handle, V value) {
+    Node<V> node = new Node<>(key, handle, value);
+    Node<V>[] parts = split(this.root, key, handle);
+    this.root = merge(merge(parts[0], node), parts[1]);
+    this.nextSeq = Math.max(this.nextSeq, handle + 1);
+    return handle;
+  }
+
+  /**
+   * Removes the entry with the given key and handle.
+   *
+   * @param key the key the entry was inserted with
+   * @param handle the handle returned by {@link #insert(double, Object)}
+   * @return true if the entry was removed, false if it was not found
+   */
+  public boolean remove(double key, long handle) {
+    Node<V>[] lower = split(this.root, key, handle);
+    Node<V>[] upper = split(lower[1], key, handle + 1);
+    this.root = merge(lower[0], upper[1]);
+    return upper[0] != null;
+  }
+
+  /**
+   * Returns a copy of the tree with the same entries.
+   * The nodes are cloned in the same shape, so the copy takes O(n) time without comparing or
+   * rebalancing anything, and the handles of this tree remove the same entries from the copy.
+   *
+   * @return the copy
+   */
+  public OrderStatisticTree<V> copy() {
+    OrderStatisticTree<V> copy = new OrderStatisticTree<>(this.descending);
+    copy.root = copyOf(this.root);
+    copy.nextSeq = this.nextSeq;
+    return copy;
+  }
+
+  /**
+   * Returns the number of entries in the tree.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return sizeOf(this.root);
+  }
+
+  /**
+   * Returns the key of the entry at the given rank.
+   *
+   * @param rank the zero-based rank
+   * @return the key at the rank
+   */
+  public double keyAt(int rank) {
+    return select(rank).key;
+  }
+
+  /**
+   * Returns the value of the entry at the given rank.
+   *
+   * @param rank the zero-based rank
+   * @return the value at the rank
+   */
+  public V get(int rank) {
+    return select(rank).value;
+  }
+
+  /**
+   * Returns the rank of the first entry with the given key, or of the first entry ranked
+   * after the key if there is none.
+   *
+   * @param key the key
+   * @return the number of entries ranked before the key
+   */
+  public int rankOf(double key) {
+    int rank = 0;
+    Node<V> node = this.root;
+    while (node != null) {
+      if (precedes(node, key, Long.MIN_VALUE)) {
+        rank += sizeOf(node.left) + 1;
+        node = node.right;
+      } else {
+        node = node.left;
+      }
+    }
+    return rank;
+  }
+
+  /**
+   * Performs the given action for every value in rank order.
+   *
+   * @param action the action to perform
+   */
+  public void forEachValue(Consumer<? super V> action) {
+    forEach(this.root, action);
+  }
+
+  private Node<V> select(int rank) {
+    if (rank < 0 || rank >= size()) {
+      throw new IndexOutOfBoundsException("Rank " + rank + " out of " + size());
+    }
+    Node<V> node = this.root;
+    while (true) {
+      int leftSize = sizeOf(node.left);
+      if (rank < leftSize) {
+        node = node.left;
+      } else if (rank == leftSize) {
+        return node;
+      } else {
+        rank -= leftSize + 1;
+        node = node.right;
+      }
+    }
+  }
+
+  /**
+   * Splits a subtree into the entries ranked before the given position and the rest.
+   */
+  @SuppressWarnings("unchecked")
+  private Node<V>[] split(Node<V> node, double key, long seq) {
+    if (node == null) {
+      return new Node[2];
+    }
+    if (precedes(node, key, seq)) {
+      Node<V>[] parts = split(node.right, key, seq);
+      node.right = parts[0];
+      update(node);
+      parts[0] = node;
+      return parts;
+    }
+    Node<V>[] parts = split(node.left, key, seq);
+    node.left = parts[1];
+    update(node);
+    parts[1] = node;
+    return parts;
+  }
+
+  /**
+   * Joins two subtrees whose entries are all ranked in order.
+   */
+  private Node<V> merge(Node<V> first, Node<V> second) {
+    if (first == null) {
+      return second;
+    }
+    if (second == null) {
+      return first;
+    }
+    if (first.priority > second.priority) {
+      first.right = merge(first.right, second);
+      update(first);
+      return first;
+    }
+    second.left = merge(first, second.left);
+    update(second);
+    return second;
+  }
+
+  private boolean precedes(Node<V> node, double key, long seq) {
+    int compare = this.descending ? Double.compare(key, node.key) : Double.compare(node.key, key);
+    return compare < 0 || (compare == 0 && node.seq < seq);
+  }
+
+  private static <V> Node<V> copyOf(Node<V> node) {
+    if (node == null) {
+      return null;
+    }
+    // The priority is derived from the sequence number, so the clone keeps its place
+    Node<V> copy = new Node<>(node.key, node.seq, node.value);
+    copy.left = copyOf(node.left);
+    copy.right = copyOf(node.right);
+    copy.size = node.size;
+    return copy;
+  }
+
+  private void forEach(Node<V> node, Consumer<? super V> action) {
+    if (node != null) {
+      forEach(node.left, action);
+      action.accept(node.value);
+      forEach(node.right, action);
+    }
+  }
+
+  private static void update(Node<?> node) {
+    node.size = 1 + sizeOf(node.left) + sizeOf(node.right);
+  }
+
+  private static int sizeOf(Node<?> node) {
+    return node == null ? 0 : node.size;
+  }
+
+  private static long mix(long seq) {
+    long h = (seq + 1) * 0x9E3779B97F4A7C15L;
+    h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+    return h ^ (h >>> 31);
+  }
+}
@@ -0,0 +1,427 @@
+package dev.coms4156.project.utils;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable map from non-negative int keys to values, updated by path copying.
+ * The values are kept in a trie of 32-slot nodes indexed by five bits of the key at a time,
+ * so a lookup reads one node per level and an update copies only the nodes on the path to
+ * its key, O(log32 n), while the new map shares every other node with the previous one.
+ * Every node counts the values below it, so the values can also be read as a list in
+ * ascending key order. A {@link Builder} applies a batch of updates to the nodes it has
+ * already copied in place, so the batch copies each node at most once.
+ * Null values are not supported.
+ *
+ * @param <V> the type of the values
+ */
+public final class PersistentIntMap<V> {
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int MASK = WIDTH - 1;
+  private static final PersistentIntMap<Object> EMPTY = new PersistentIntMap<>(null, 0);
+
+  private final Node root;
+  private final int shift;
+
+  private static final class Node {
+    final Object[] slots = new Object[WIDTH];
+    final Object owner;
+    int size;
+
+    Node(Object owner) {
+      this.owner = owner;
+    }
+
+    Node copy(Object owner) {
+      Node copy = new Node(owner);
+      System.arraycopy(this.slots, 0, copy.slots, 0, WIDTH);
+      copy.size = this.size;
+      return copy;
+    }
+  }
+
+  private PersistentIntMap(Node root, int shift) {
+    this.root = root;
+    this.shift = shift;
+  }
+
+  /**
+   * Returns the empty map.
+   *
+   * @param <V> the type of the values
+   * @return the empty map
+   */
+  @SuppressWarnings("unchecked")
+  public static <V> PersistentIntMap<V> empty() {
+    return (PersistentIntMap<V>) EMPTY;
+  }
+
+  /**
+   * Returns the value mapped to a key.
+   *
+   * @param key the key
+   * @return the value, or null if the key is not in the map
+   */
+  public V get(int key) {
+    return find(this.root, this.shift, key);
+  }
+
+  /**
+   * Returns true if the map contains a key.
+   *
+   * @param key the key
+   * @return true if the key is in the map
+   */
+  public boolean containsKey(int key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Returns the number of entries in the map.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return this.root == null ? 0 : this.root.size;
+  }
+
+  /**
+   * Returns true if the map has no entries.
+   *
+   * @return true if the map is empty
+   */
+  public boolean isEmpty() {
+    return this.root == null;
+  }
+
+  /**
+   * Returns a map with a key mapped to a value and otherwise the same entries as this one.
+   *
+   * @param key   the key, not negative
+   * @param value the value, not null
+   * @return the new map
+   */
+  public PersistentIntMap<V> with(int key, V value) {
+    Builder<V> builder = builder();
+    builder.put(key, value);
+    return builder.build();
+  }
+
+  /**
+   * Returns a map without a key and otherwise the same entries as this one.
+   *
+   * @param key the key
+   * @return the new map, or this map if the key is not in it
+   */
+  public PersistentIntMap<V> without(int key) {
+    if (!containsKey(key)) {
+      return this;
+    }
+    Builder<V> builder = builder();
+    builder.remove(key);
+    return builder.build();
+  }
+
+  /**
+   * Returns a builder that starts from the entries of this map. The map is not modified.
+   *
+   * @return a new builder
+   */
+  public Builder<V> builder() {
+    return new Builder<>(this.root, this.shift);
+  }
+
+  /**
+   * Returns an unmodifiable list of the values in ascending key order. The list reads this
+   * map, which never changes; get(index) walks down the counts in O(log32 n) and the
+   * iterator visits each node once.
+   *
+   * @return a view of the values
+   */
+  public List<V> values() {
+    return new Values<>(this.root, this.shift);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> V find(Node root, int shift, int key) {
+    if (root == null || key < 0 || !fits(key, shift)) {
+      return null;
+    }
+    Node node = root;
+    for (int level = shift; level > 0; level -= BITS) {
+      node = (Node) node.slots[(key >>> level) & MASK];
+      if (node == null) {
+        return null;
+      }
+    }
+    return (V) node.slots[key & MASK];
+  }
+
+  private static boolean fits(int key, int shift) {
+    return shift + BITS >= Integer.SIZE - 1 || (key >>> (shift + BITS)) == 0;
+  }
+
+  /**
+   * Applies updates to a copy of a map. Nodes are copied the first time an update reaches
+   * them and modified in place after that, until {@link #build()} publishes them.
+   * A builder is not thread-safe.
+   *
+   * @param <V> the type of the values
+   */
+  public static final class Builder<V> {
+    private Object owner = new Object();
+    private Node root;
+    private int shift;
+
+    /**
+     * Constructs a builder that starts from the empty map.
+     */
+    public Builder() {
+      this(null, 0);
+    }
+
+    private Builder(Node root, int shift) {
+      this.root = root;
+      this.shift = shift;
+    }
+
+    /**
+     * Returns the value mapped to a key.
+     *
+     * @param key the key
+     * @return the value, or null if the key is not in the map
+     */
+    public V get(int key) {
+      return find(this.root, this.shift, key);
+    }
+
+    /**
+     * Returns true if the map contains a key.
+     *
+     * @param key the key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(int key) {
+      return get(key) != null;
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+      return this.root == null ? 0 : this.root.size;
+    }
+
+    /**
+     * Maps a key to a value.
+     *
+     * @param key   the key, not negative
+     * @param value the value, not null
+     * @return the previous value, or null if the key was not in the map
+     * @throws IllegalArgumentException if the key is negative or the value is null
+     */
+    public V put(int key, V value) {
+      if (key < 0 || value == null) {
+        throw new IllegalArgumentException("Keys must not be negative and values not null");
+      }
+      V previous = get(key);
+      if (this.root == null) {
+        this.root = new Node(this.owner);
+        this.shift = 0;
+      }
+      while (!fits(key, this.shift)) {
+        Node grown = new Node(this.owner);
+        grown.slots[0] = this.root;
+        grown.size = this.root.size;
+        this.root = grown;
+        this.shift += BITS;
+      }
+      this.root = editable(this.root);
+      Node node = this.root;
+      for (int level = this.shift; level > 0; level -= BITS) {
+        int slot = (key >>> level) & MASK;
+        Node child = (Node) node.slots[slot];
+        child = child == null ? new Node(this.owner) : editable(child);
+        node.slots[slot] = child;
+        if (previous == null) {
+          node.size++;
+        }
+        node = child;
+      }
+      node.slots[key & MASK] = value;
+      if (previous == null) {
+        node.size++;
+      }
+      return previous;
+    }
+
+    /**
+     * Removes a key from the map.
+     *
+     * @param key the key
+     * @return the removed value, or null if the key was not in the map
+     */
+    public V remove(int key) {
+      V previous = get(key);
+      if (previous == null) {
+        return null;
+      }
+      if (this.root.size == 1) {
+        this.root = null;
+        this.shift = 0;
+        return previous;
+      }
+      this.root = editable(this.root);
+      Node node = this.root;
+      for (int level = this.shift; level > 0; level -= BITS) {
+        int slot = (key >>> level) & MASK;
+        Node child = (Node) node.slots[slot];
+        node.size--;
+        if (child.size == 1) {
+          // The key was the only one below this slot, drop the whole branch
+          node.slots[slot] = null;
+          return previous;
+        }
+        child = editable(child);
+        node.slots[slot] = child;
+        node = child;
+      }
+      node.slots[key & MASK] = null;
+      node.size--;
+      return previous;
+    }
+
+    /**
+     * Returns a map with the entries of this builder. The builder can still be used, later
+     * updates copy the nodes again and do not change the returned map.
+     *
+     * @return the map
+     */
+    public PersistentIntMap<V> build() {
+      this.owner = new Object();
+      return this.root == null ? empty() : new PersistentIntMap<>(this.root, this.shift);
+    }
+
+    private Node editable(Node node) {
+      return node.owner == this.owner ? node : node.copy(this.owner);
+    }
+  }
+
+  /**
+   * The values of a map in ascending key order.
+   */
+  private static final class Values<V> extends AbstractList<V> {
+    private final Node root;
+    private final int shift;
+
+    Values(Node root, int shift) {
+      this.root = root;
+      this.shift = shift;
+    }
+
+    @Override
+    public int size() {
+      return this.root == null ? 0 : this.root.size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(int index) {
+      if (index < 0 || index >= size()) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+      }
+      Node node = this.root;
+      int remaining = index;
+      for (int level = this.shift; level > 0; level -= BITS) {
+        for (Object slot : node.slots) {
+          Node child = (Node) slot;
+          if (child == null) {
+            continue;
+          }
+          if (remaining < child.size) {
+            node = child;
+            break;
+          }
+          remaining -= child.size;
+        }
+      }
+      for (Object slot : node.slots) {
+        if (slot != null && remaining-- == 0) {
+          return (V) slot;
+        }
+      }
+      throw new IllegalStateException("Node counts do not match their values");
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+      return new ValueIterator<>(this.root, this.shift);
+    }
+  }
+
+  /**
+   * Walks the trie depth first, keeping the node and the next slot of every level.
+   */
+  private static final class ValueIterator<V> implements Iterator<V> {
+    private final Node[] nodes;
+    private final int[] slots;
+    private int depth;
+    private Object next;
+
+    ValueIterator(Node root, int shift) {
+      int levels = shift / BITS + 1;
+      this.nodes = new Node[levels];
+      this.slots = new int[levels];
+      if (root != null) {
+        this.nodes[0] = root;
+        advance();
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.next != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V next() {
+      if (this.next == null) {
+        throw new NoSuchElementException();
+      }
+      Object value = this.next;
+      advance();
+      return (V) value;
+    }
+
+    private void advance() {
+      this.next = null;
+      int leaf = this.nodes.length - 1;
+      while (this.depth >= 0) {
+        Node node = this.nodes[this.depth];
+        int slot = this.slots[this.depth];
+        if (slot == WIDTH) {
+          this.depth--;
+          continue;
+        }
+        this.slots[this.depth] = slot + 1;
+        Object entry = node.slots[slot];
+        if (entry == null) {
+          continue;
+        }
+        if (this.depth == leaf) {
+          this.next = entry;
+          return;
+        }
+        this.depth++;
+        this.nodes[this.depth] = (Node) entry;
+        this.slots[this.depth] = 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package dev.coms4156.project.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A set of locks selected by an int key, with a global read-write lock over all of them.
+ * Stripe holders share the global lock and run in parallel with holders of other stripes,
+ * while the exclusive global lock waits for and excludes all of them.
+ * Acquisitions that have to wait are counted per stripe to expose hot keys.
+ * Locks are reentrant, but a stripe holder must not acquire the global lock.
+ */
+public final class StripedLock {
+  private final ReentrantLock[] stripes;
+  private final LongAdder[] contention;
+  private final ReentrantReadWriteLock global = new ReentrantReadWriteLock();
+  private final LongAdder globalContention = new LongAdder();
+
+  /**
+   * A held lock, released by closing it.
+   */
+  @FunctionalInterface
+  public interface Handle extends AutoCloseable {
+
+    /**
+     * Releases the lock.
+     */
+    @Override
+    void close();
+  }
+
+  /**
+   * Constructs a striped lock.
+   *
+   * @param stripeCount the number of stripes
+   */
+  public StripedLock(int stripeCount) {
+    if (stripeCount <= 0) {
+      throw new IllegalArgumentException("Stripe count must be positive");
+    }
+    this.stripes = new ReentrantLock[stripeCount];
+    this.contention = new LongAdder[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      this.stripes[i] = new ReentrantLock();
+      this.contention[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Returns the stripe that the key is mapped to.
+   *
+   * @param key the key
+   * @return the stripe index
+   */
+  public int stripeOf(int key) {
+    return Math.floorMod(key, this.stripes.length);
+  }
+
+  /**
+   * Acquires the stripe of the key exclusively.
+   *
+   * @param key the key
+   * @return the handle that releases the lock
+   */
+  public Handle lock(int key) {
+    int stripe = stripeOf(key);
+    Lock shared = this.global.readLock();
+    acquire(shared, this.globalContention);
+    Lock exclusive = this.stripes[stripe];
+    try {
+      acquire(exclusive, this.contention[stripe]);
+    } catch (RuntimeException | Error e) {
+      shared.unlock();
+      throw e;
+    }
+    return () -> {
+      exclusive.unlock();
+      shared.unlock();
+    };
+  }
+
+  /**
+   * Acquires the global lock, which waits for and excludes the holders of every stripe.
+   *
+   * @return the handle that releases the lock
+   */
+  public Handle lockAll() {
+    Lock exclusive = this.global.writeLock();
+    acquire(exclusive, this.globalContention);
+    return exclusive::unlock;
+  }
+
+  /**
+   * Returns the number of acquisitions of each stripe that had to wait.
+   *
+   * @return the contention counters indexed by stripe
+   */
+  public long[] getContention() {
+    long[] result = new long[this.contention.length];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = this.contention[i].sum();
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of acquisitions of the global lock, shared or exclusive, that had to wait.
+   *
+   * @return the contention counter of the global lock
+   */
+  public long getGlobalContention() {
+    return this.globalContention.sum();
+  }
+
+  private static void acquire(Lock lock, LongAdder contention) {
+    if (!lock.tryLock()) {
+      contention.increment();
+      lock.lock();
+    }
+  }
+}
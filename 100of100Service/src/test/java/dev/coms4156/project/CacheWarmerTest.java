@@ -0,0 +1,136 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * A unit test class for the CacheWarmer class.
+ */
+public class CacheWarmerTest {
+
+  /**
+   * Sets the database connection to the stub and clears the cached organizations.
+   */
+  @BeforeEach
+  public void setup() {
+    HrDatabaseFacade.setConnection(InmemConnection.getInstance());
+    getInstancesMapViaReflection().clear();
+  }
+
+  /**
+   * Restores the database connection and clears the cached organizations.
+   */
+  @AfterEach
+  public void tearDown() {
+    HrDatabaseFacade.setConnection(InmemConnection.getInstance());
+    getInstancesMapViaReflection().clear();
+  }
+
+  @Test
+  public void testWarmUpLoadsOrganizations() {
+    CacheWarmer warmer = new CacheWarmer(List.of(1, 2, 404), 2, 5000);
+    assertTrue(warmer.warmUp(), "Warm-up should complete before the deadline");
+    assertTrue(getInstancesMapViaReflection().containsKey(1));
+    assertTrue(getInstancesMapViaReflection().containsKey(2));
+    assertFalse(getInstancesMapViaReflection().containsKey(404),
+        "Missing organizations should be skipped");
+  }
+
+  @Test
+  public void testWarmUpIsNotCountedAsAccess() throws Exception {
+    Field countsField = HrDatabaseFacade.class.getDeclaredField("accessCounts");
+    countsField.setAccessible(true);
+    ((Map<?, ?>) countsField.get(null)).clear();
+    assertTrue(new CacheWarmer(List.of(1, 2), 2, 5000).warmUp());
+    HrDatabaseFacade.getInstance(2);
+    assertEquals(List.of(2), HrDatabaseFacade.getMostActiveOrganizations(10),
+        "Preloaded organizations should not count as active");
+  }
+
+  @Test
+  public void testWarmUpStopsWaitingAtDeadline() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    HrDatabaseFacade.setConnection(new InmemConnection() {
+      @Override
+      public Organization getOrganization(int organizationId) {
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.getOrganization(organizationId);
+      }
+    });
+    try {
+      Thread thread = new CacheWarmer(List.of(1), 1, 50).start();
+      assertFalse(CacheWarmer.isReady(), "The service should not be ready while warming up");
+      thread.join(5000);
+      assertTrue(CacheWarmer.isReady(), "The service should be ready after the deadline");
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void testStatisticsRoundTrip(@TempDir Path directory) throws Exception {
+    Field countsField = HrDatabaseFacade.class.getDeclaredField("accessCounts");
+    countsField.setAccessible(true);
+    ((Map<?, ?>) countsField.get(null)).clear();
+    for (int i = 0; i < 3; i++) {
+      HrDatabaseFacade.getInstance(2);
+    }
+    HrDatabaseFacade.getInstance(1);
+    assertEquals(2, HrDatabaseFacade.getMostActiveOrganizations(1).get(0));
+
+    Path file = directory.resolve("warmup.txt");
+    CacheWarmer.saveStatistics(file, 10);
+    assertTrue(Files.exists(file));
+    List<Integer> saved = CacheWarmer.readStatistics(file);
+    assertEquals(2, saved.get(0), "The most accessed organization should come first");
+    assertTrue(saved.contains(1));
+    assertEquals(List.of(), CacheWarmer.readStatistics(directory.resolve("missing.txt")));
+  }
+
+  @Test
+  public void testParseOrganizationIds() {
+    assertEquals(List.of(3, 1, 2), CacheWarmer.parseOrganizationIds(" 3,1,,3, 2"));
+    assertEquals(List.of(), CacheWarmer.parseOrganizationIds(""));
+    assertThrows(NumberFormatException.class, () -> CacheWarmer.parseOrganizationIds("a"));
+  }
+
+  @Test
+  public void testNothingToWarmUp() {
+    assertNull(CacheWarmer.fromSystemProperties(), "Warm-up should be off by default");
+  }
+
+  /**
+   * Helper method to access the private static 'instances' map via reflection.
+   *
+   * @return the 'instances' map
+   */
+  @SuppressWarnings("unchecked")
+  private Map<Integer, HrDatabaseFacade> getInstancesMapViaReflection() {
+    try {
+      Field instancesField = HrDatabaseFacade.class.getDeclaredField("instances");
+      instancesField.setAccessible(true);
+      return (Map<Integer, HrDatabaseFacade>) instancesField.get(null);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to access instances map via reflection", e);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.command.Command;
+import dev.coms4156.project.command.CommandExecutor;
+import dev.coms4156.project.command.WriteCommand;
+import dev.coms4156.project.exception.NotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the CommandExecutor class.
+ */
+public class CommandExecutorTest {
+  private static final int CLIENT_ID = 4156;
+
+  @BeforeEach
+  public void setup() {
+    CommandExecutor.setSingleWriter(true);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    CommandExecutor.setSingleWriter(false);
+  }
+
+  @Test
+  public void testReadCommandsRunOnCallingThread() {
+    Thread caller = Thread.currentThread();
+    Command read = () -> Thread.currentThread() == caller;
+    assertEquals(true, CommandExecutor.execute(read));
+  }
+
+  @Test
+  public void testWriteCommandsOfOrganizationDoNotOverlap() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    ExecutorService callers = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Object>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        int index = i;
+        results.add(callers.submit(() -> CommandExecutor.execute(writeCommand(() -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          try {
+            release.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          running.decrementAndGet();
+          return index;
+        }))));
+      }
+
+      long deadline = System.currentTimeMillis() + 5000;
+      while (CommandExecutor.getQueueDepth(CLIENT_ID) < 4
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(4, CommandExecutor.getQueueDepth(CLIENT_ID));
+      assertEquals(4, CommandExecutor.getQueueDepths().get(CLIENT_ID));
+      release.countDown();
+
+      for (int i = 0; i < 4; i++) {
+        assertEquals(i, results.get(i).get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, maxRunning.get(), "Writes of one organization should not overlap");
+      assertEquals(0, CommandExecutor.getQueueDepth(CLIENT_ID));
+      assertTrue(CommandExecutor.getMaxQueueDepth(CLIENT_ID) >= 4);
+    } finally {
+      release.countDown();
+      callers.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testWriteCommandExceptionReachesCaller() {
+    WriteCommand failing = writeCommand(() -> {
+      throw new NotFoundException("Employee [1] not found");
+    });
+    NotFoundException e = assertThrows(NotFoundException.class,
+        () -> CommandExecutor.execute(failing));
+    assertEquals("Employee [1] not found", e.getMessage());
+  }
+
+  /**
+   * Creates a write command of the test organization.
+   *
+   * @param body the body of the command
+   * @return the write command
+   */
+  private WriteCommand writeCommand(Supplier<Object> body) {
+    return new WriteCommand() {
+      @Override
+      public int getClientId() {
+        return CLIENT_ID;
+      }
+
+      @Override
+      public Object execute() {
+        return body.get();
+      }
+    };
+  }
+}
@@ -0,0 +1,43 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import dev.coms4156.project.utils.CompensatedSum;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the CompensatedSum utility class.
+ */
+public class CompensatedSumTest {
+
+  @Test
+  public void testAddAndSubtractWithoutDrift() {
+    CompensatedSum sum = new CompensatedSum();
+    for (int i = 0; i < 10; i++) {
+      sum.add(0.1);
+    }
+    assertEquals(1.0, sum.value());
+    for (int i = 0; i < 9; i++) {
+      sum.add(-0.1);
+    }
+    assertEquals(0.1, sum.value());
+
+    // Small values are not lost next to a large one
+    sum.add(1e16);
+    sum.add(1.0);
+    sum.add(-1e16);
+    assertEquals(1.1, sum.value(), 1e-15);
+  }
+
+  @Test
+  public void testCopyAndClear() {
+    CompensatedSum sum = new CompensatedSum();
+    sum.add(2.5);
+    CompensatedSum copy = sum.copy();
+    copy.add(1.0);
+    assertEquals(2.5, sum.value());
+    assertEquals(3.5, copy.value());
+    sum.clear();
+    assertEquals(0.0, sum.value());
+  }
+}
@@ -1,5 +1,7 @@
 package dev.coms4156.project;
 
+import dev.coms4156.project.utils.IntHashMap;
+import dev.coms4156.project.utils.KllSketch;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -26,14 +28,8 @@ public class DepartmentTest {
    */
   @BeforeAll
   public static void setUp() {
-    employee1 = new Employee(1, "John", new Date());
-    employee1.setPosition("ProductManager");
-    employee1.setSalary(100);
-    employee1.setPerformance(80);
-    employee2 = new Employee(2, "Jake", new Date());
-    employee2.setPosition("SoftwareEngineer");
-    employee2.setSalary(50);
-    employee2.setPerformance(90);
+    employee1 = new Employee(1, "John", new Date(), "ProductManager", 100, 80);
+    employee2 = new Employee(2, "Jake", new Date(), "SoftwareEngineer", 50, 90);
   }
 
   @Test
@@ -130,12 +126,9 @@ public class DepartmentTest {
   @Test
   @Order(12)
   public void testGetEmployeePositionStatisticUnassignedPositions() {
-    Employee employee3 = new Employee(3, "Alice", new Date());
-    employee3.setPosition(null);
-    Employee employee4 = new Employee(4, "Bob", new Date());
-    employee4.setPosition("");
-    Employee employee5 = new Employee(5, "Charlie", new Date());
-    employee5.setPosition("   ");
+    Employee employee3 = new Employee(3, "Alice", new Date()).withPosition(null);
+    Employee employee4 = new Employee(4, "Bob", new Date()).withPosition("");
+    Employee employee5 = new Employee(5, "Charlie", new Date()).withPosition("   ");
     Department dept = new Department(8, "Test Dept");
     dept.addEmployee(employee3);
     dept.addEmployee(employee4);
@@ -174,10 +167,8 @@ public class DepartmentTest {
   @Test
   @Order(15)
   public void testGetEmployeeSalaryStatisticNoSalaries() {
-    Employee employeeNoSalary1 = new Employee(6, "David", new Date());
-    employeeNoSalary1.setSalary(0.0);
-    Employee employeeNoSalary2 = new Employee(7, "Eve", new Date());
-    employeeNoSalary2.setSalary(0.0);
+    Employee employeeNoSalary1 = new Employee(6, "David", new Date()).withSalary(0.0);
+    Employee employeeNoSalary2 = new Employee(7, "Eve", new Date()).withSalary(0.0);
 
     Department dept = new Department(9, "No Salary Dept");
     dept.addEmployee(employeeNoSalary1);
@@ -283,4 +274,296 @@ public class DepartmentTest {
     Assertions.assertEquals(0.0, ac.get("average"));
     Assertions.assertArrayEquals(new int[0], (int[]) ac.get("sortedEmployeeIds"));
   }
-}
\ No newline at end of file
+
+  @Test
+  @Order(21)
+  public void testShareEmployees() {
+    Employee copy1 = new Employee(1, "John", new Date());
+    Employee copy2 = new Employee(2, "Jake", new Date());
+    Department dept = new Department(11, "Shared Dept");
+    dept.addEmployee(copy1);
+    dept.addEmployee(copy2);
+    dept.setHead(copy2);
+
+    IntHashMap<Employee> canonical = new IntHashMap<>();
+    canonical.put(1, employee1);
+    canonical.put(2, employee2);
+    Assertions.assertTrue(dept.shareEmployees(canonical));
+
+    Assertions.assertSame(employee1, dept.getEmployees().get(0));
+    Assertions.assertSame(employee2, dept.getEmployees().get(1));
+    Assertions.assertSame(employee2, dept.getChildren().get(1));
+    Assertions.assertSame(employee2, dept.getHead());
+  }
+
+  @Test
+  @Order(22)
+  public void testCopy() {
+    Department original = new Department(12, "Original Dept");
+    original.addEmployee(employee1);
+    original.setHead(employee1);
+    Department copy = original.copy();
+    copy.addEmployee(employee2);
+    copy.setHead(employee2);
+
+    Assertions.assertEquals(12, copy.getId());
+    Assertions.assertSame(employee1, copy.getEmployees().get(0));
+    Assertions.assertEquals(2, copy.getChildren().size());
+    Assertions.assertEquals(List.of(employee1), original.getEmployees());
+    Assertions.assertEquals(1, original.getChildren().size());
+    Assertions.assertSame(employee1, original.getHead());
+  }
+
+  @Test
+  @Order(23)
+  public void testSalaryAggregatesFollowMembership() {
+    Employee first = new Employee(21, "First", new Date(), "Engineer", 300, 0);
+    Employee tied = new Employee(22, "Tied", new Date(), "Engineer", 300, 0);
+    Employee low = new Employee(23, "Low", new Date(), "Engineer", 100, 0);
+    Department dept = new Department(13, "Aggregates", List.of(first, tied));
+    dept.addEmployee(low);
+
+    Map<String, Object> stats = dept.getEmployeeSalaryStatisticMap();
+    Assertions.assertEquals(700.0, stats.get("total"));
+    Assertions.assertEquals(300.0, stats.get("highest"));
+    Assertions.assertEquals(first.getId(), stats.get("highestEmployee"));
+    Assertions.assertEquals(low.getId(), stats.get("lowestEmployee"));
+
+    // Removing one of the tied members keeps the other as the highest
+    dept.removeEmployee(first);
+    stats = dept.getEmployeeSalaryStatisticMap();
+    Assertions.assertEquals(400.0, stats.get("total"));
+    Assertions.assertEquals(tied.getId(), stats.get("highestEmployee"));
+
+    // A salary change replaces the member
+    Employee raised = low.withSalary(500);
+    Assertions.assertTrue(dept.replaceEmployee(raised));
+    stats = dept.getEmployeeSalaryStatisticMap();
+    Assertions.assertEquals(800.0, stats.get("total"));
+    Assertions.assertEquals(400.0, stats.get("average"));
+    Assertions.assertEquals(500.0, stats.get("highest"));
+    Assertions.assertEquals(300.0, stats.get("lowest"));
+    Assertions.assertEquals(raised.getId(), stats.get("highestEmployee"));
+
+    dept.removeEmployee(tied);
+    dept.removeEmployee(raised);
+    Assertions.assertEquals(0.0, dept.getEmployeeSalaryStatisticMap().get("total"));
+    Assertions.assertThrows(UnsupportedOperationException.class,
+        () -> dept.getEmployees().add(first));
+  }
+
+  @Test
+  @Order(24)
+  public void testPerformanceRankingFollowsMembership() {
+    Employee top = new Employee(31, "Top", new Date(), "Engineer", 0, 90);
+    Employee middle = new Employee(32, "Middle", new Date(), "Engineer", 0, 70);
+    Employee bottom = new Employee(33, "Bottom", new Date(), "Engineer", 0, 50);
+    Department dept = new Department(14, "Ranking");
+    dept.addEmployee(middle);
+    dept.addEmployee(bottom);
+    dept.addEmployee(top);
+
+    Map<String, Object> stats = dept.getEmployeePerformanceStatisticMap();
+    Assertions.assertEquals(70.0, stats.get("median"));
+    Assertions.assertEquals(70.0, stats.get("average"));
+    Assertions.assertArrayEquals(new int[] {31, 32, 33}, (int[]) stats.get("sortedEmployeeIds"));
+
+    // A performance change replaces the member
+    Employee improved = bottom.withPerformance(100);
+    dept.replaceEmployee(improved);
+    dept.removeEmployee(middle);
+    stats = dept.getEmployeePerformanceStatisticMap();
+    Assertions.assertEquals(100.0, stats.get("highest"));
+    Assertions.assertEquals(90.0, stats.get("lowest"));
+    Assertions.assertEquals(95.0, stats.get("median"));
+    Assertions.assertArrayEquals(new int[] {33, 31}, (int[]) stats.get("sortedEmployeeIds"));
+  }
+
+  @Test
+  @Order(25)
+  public void testApproximateStatistics() {
+    Department dept = new Department(15, "Approximate");
+    for (int i = 1; i <= 1000; i++) {
+      dept.addEmployee(new Employee(i, "Employee " + i, new Date(), "Engineer", i * 10, i % 100));
+    }
+    Map<String, Object> performance = dept.getApproximatePerformanceStatisticMap();
+    Assertions.assertEquals(99.0, performance.get("highest"));
+    Assertions.assertEquals(0.0, performance.get("lowest"));
+    Assertions.assertEquals(49.5, (double) performance.get("average"), 1e-9);
+    Assertions.assertEquals(49.5, (double) performance.get("median"), 2);
+    Assertions.assertFalse(performance.containsKey("sortedEmployeeIds"));
+
+    Map<String, Object> salary = dept.getApproximateSalaryStatisticMap();
+    Assertions.assertEquals(5005000.0, salary.get("total"));
+    Assertions.assertEquals(2500.0, (double) salary.get("percentile25"), 50);
+    Assertions.assertEquals(7500.0, (double) salary.get("percentile75"), 50);
+
+    // Sketches are updated as members join instead of being rebuilt
+    KllSketch sketch = dept.getPerformanceSketch();
+    dept.addEmployee(new Employee(1001, "Star", new Date(), "Engineer", 0, 500));
+    Assertions.assertSame(sketch, dept.getPerformanceSketch());
+    Assertions.assertEquals(1001, sketch.getCount());
+    Assertions.assertEquals(500.0, dept.getApproximatePerformanceStatisticMap().get("highest"));
+  }
+
+  @Test
+  @Order(26)
+  public void testPositionStatisticUsesDictionary() {
+    PositionDictionary dictionary = new PositionDictionary();
+    Department dept = new Department(16, "Encoded");
+    dept.setPositionDictionary(dictionary);
+    Employee engineer = new Employee(1, "Ann", new Date(), " Engineer", 10, 10);
+    dept.addEmployee(engineer);
+    dept.addEmployee(new Employee(2, "Ben", new Date(), "ENGINEER ", 10, 10));
+    dept.addEmployee(new Employee(3, "Cat", new Date(), "Designer", 10, 10));
+
+    Assertions.assertEquals(Map.of("engineer", 2, "designer", 1),
+        dept.getEmployeePositionStatisticMap());
+    Assertions.assertEquals(2, dictionary.size());
+
+    // Changed positions are encoded again
+    Assertions.assertTrue(dept.replaceEmployee(engineer.withPosition("Manager")));
+    Assertions.assertEquals(Map.of("engineer", 1, "designer", 1, "manager", 1),
+        dept.getEmployeePositionStatisticMap());
+    Assertions.assertEquals(dictionary, dept.copy().getPositionDictionary());
+  }
+
+  @Test
+  @Order(27)
+  public void testEmployeePagesFollowIds() {
+    Department dept = new Department(17, "Paged");
+    for (int id : new int[] {5, 2, 9, 7, 1}) {
+      dept.addEmployee(new Employee(id, "E" + id, new Date(), "Engineer", id, id));
+    }
+
+    DepartmentPage first = DepartmentPage.of(dept, Integer.MIN_VALUE, 2);
+    Assertions.assertEquals(List.of(1, 2),
+        first.employees().stream().map(Employee::getId).toList());
+    Assertions.assertEquals(2, first.nextCursor());
+    Assertions.assertEquals(5, first.employeeCount());
+    DepartmentPage second = DepartmentPage.of(dept, first.nextCursor(), 2);
+    Assertions.assertEquals(List.of(5, 7),
+        second.employees().stream().map(Employee::getId).toList());
+    DepartmentPage last = DepartmentPage.of(dept, second.nextCursor(), 2);
+    Assertions.assertEquals(List.of(9), last.employees().stream().map(Employee::getId).toList());
+    Assertions.assertNull(last.nextCursor());
+
+    // Members added between pages are listed when the cursor reaches them
+    dept.addEmployee(new Employee(8, "E8", new Date(), "Engineer", 8, 8));
+    Assertions.assertEquals(List.of(8, 9),
+        dept.getEmployeePage(7, 10).stream().map(Employee::getId).toList());
+    Assertions.assertTrue(DepartmentPage.of(dept, 0, 0).employees().isEmpty());
+  }
+
+  @Test
+  @Order(28)
+  public void testReplacedMembersKeepTheirPlaceAmongTies() {
+    Employee first = new Employee(41, "First", new Date(), "Engineer", 100, 50);
+    Employee second = new Employee(42, "Second", new Date(), "Engineer", 300, 90);
+    Employee third = new Employee(43, "Third", new Date(), "Engineer", 100, 70);
+    Department dept = new Department(18, "Ties");
+    dept.addEmployee(first);
+    dept.addEmployee(second);
+    dept.addEmployee(third);
+
+    // The first member of the list is reported among equal salaries and performances
+    Employee raised = new Employee(41, "First", new Date(), "Engineer", 300, 90);
+    Assertions.assertTrue(dept.replaceEmployee(first, raised));
+    Map<String, Object> salaries = dept.getEmployeeSalaryStatisticMap();
+    Assertions.assertEquals(700.0, salaries.get("total"));
+    Assertions.assertEquals(raised.getId(), salaries.get("highestEmployee"));
+    Assertions.assertEquals(third.getId(), salaries.get("lowestEmployee"));
+    Assertions.assertArrayEquals(new int[] {41, 42, 43},
+        (int[]) dept.getEmployeePerformanceStatisticMap().get("sortedEmployeeIds"));
+
+    Employee lowered = new Employee(42, "Second", new Date(), "Engineer", 100, 70);
+    Assertions.assertTrue(dept.replaceEmployee(second, lowered));
+    salaries = dept.getEmployeeSalaryStatisticMap();
+    Assertions.assertEquals(500.0, salaries.get("total"));
+    Assertions.assertEquals(lowered.getId(), salaries.get("lowestEmployee"));
+    Assertions.assertArrayEquals(new int[] {41, 42, 43},
+        (int[]) dept.getEmployeePerformanceStatisticMap().get("sortedEmployeeIds"));
+  }
+
+  @Test
+  @Order(29)
+  public void testCopyKeepsAggregatesAndLeavesMembersUnchanged() {
+    Employee first = new Employee(51, "First", new Date(), "Engineer", 100, 60);
+    Employee second = new Employee(52, "Second", new Date(), "Engineer", 100, 80);
+    Department dept = new Department(19, "Original");
+    dept.addEmployee(first);
+    dept.addEmployee(second);
+    dept.removeEmployee(first);
+    dept.addEmployee(first);
+
+    Department copy = dept.copy();
+    Assertions.assertEquals(dept.getEmployees(), copy.getEmployees());
+    Assertions.assertEquals(dept.getEmployeeSalaryStatisticMap(),
+        copy.getEmployeeSalaryStatisticMap());
+    Assertions.assertArrayEquals(new int[] {52, 51},
+        (int[]) copy.getEmployeePerformanceStatisticMap().get("sortedEmployeeIds"));
+
+    // The copy is changed on its own
+    copy.removeEmployee(second);
+    Employee raised = new Employee(51, "First", new Date(), "Engineer", 400, 60);
+    Assertions.assertTrue(copy.replaceEmployee(first, raised));
+    Assertions.assertEquals(400.0, copy.getEmployeeSalaryStatisticMap().get("total"));
+    Assertions.assertEquals(200.0, dept.getEmployeeSalaryStatisticMap().get("total"));
+    Assertions.assertEquals(second.getId(),
+        dept.getEmployeeSalaryStatisticMap().get("highestEmployee"));
+    Assertions.assertEquals(0, copy.getEmployees().indexOf(raised));
+  }
+
+  @Test
+  @Order(30)
+  public void testRunningTotalsDoNotDrift() {
+    Department dept = new Department(20, "Totals");
+    Employee[] members = new Employee[1000];
+    for (int i = 0; i < members.length; i++) {
+      members[i] = new Employee(i, "E" + i, new Date(), "Engineer", 0.1, 0.7);
+      dept.addEmployee(members[i]);
+    }
+    for (int i = 1; i < members.length; i++) {
+      dept.removeEmployee(members[i]);
+    }
+    Assertions.assertEquals(0.1, dept.getEmployeeSalaryStatisticMap().get("total"));
+    Assertions.assertEquals(0.7, dept.getEmployeePerformanceStatisticMap().get("average"));
+  }
+
+  @Test
+  @Order(31)
+  public void testSketchesRebuiltPastRemovalThreshold() {
+    Department dept = new Department(21, "Removals");
+    Employee[] members = new Employee[1001];
+    for (int i = 0; i < members.length; i++) {
+      members[i] = new Employee(i, "E" + i, new Date(), "Engineer", i, i % 100);
+      dept.addEmployee(members[i]);
+    }
+    Employee star = new Employee(1001, "Star", new Date(), "Engineer", 0, 500);
+    dept.addEmployee(star);
+    KllSketch sketch = dept.getPerformanceSketch();
+
+    // A removed member stays in the sketch, the extremes come from the exact ranking
+    dept.removeEmployee(star);
+    Assertions.assertSame(sketch, dept.getPerformanceSketch());
+    Assertions.assertEquals(500.0, sketch.getMax());
+    Assertions.assertEquals(99.0, dept.getApproximatePerformanceStatisticMap().get("highest"));
+
+    // Copies update their own sketches
+    Department copy = dept.copy();
+    copy.addEmployee(star);
+    Assertions.assertEquals(1002, sketch.getCount());
+    Assertions.assertEquals(1003, copy.getPerformanceSketch().getCount());
+
+    // Past half of the rank error in removed members, the sketch is rebuilt
+    for (int i = 0; i < 3; i++) {
+      dept.removeEmployee(members[i]);
+    }
+    Assertions.assertSame(sketch, dept.getPerformanceSketch());
+    dept.removeEmployee(members[3]);
+    KllSketch rebuilt = dept.getPerformanceSketch();
+    Assertions.assertNotSame(sketch, rebuilt);
+    Assertions.assertEquals(997, rebuilt.getCount());
+    Assertions.assertEquals(99.0, rebuilt.getMax());
+  }
+}
@@ -0,0 +1,71 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import dev.coms4156.project.exception.BadRequestException;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the EmployeeImport class.
+ */
+public class EmployeeImportTest {
+
+  @Test
+  public void testParseNdjson() {
+    String body = """
+        {"departmentId":1,"name":"Ann","hireDate":"2024-01-15","position":"Engineer","salary":10}
+        {"departmentId":3,"name":"Ben","hireDate":"2024-01-15"}
+
+        {"departmentId":2,"name":"Cat","hireDate":"15/01/2024"}
+        not json
+        {"departmentId":2,"name":"Dan","hireDate":"2024-02-01","performance":null}
+        """;
+    EmployeeImport rows =
+        EmployeeImport.parse(OrganizationExport.Format.NDJSON, body, id -> id == 1 || id == 2);
+
+    assertEquals(List.of(1, 2), rows.getDepartmentIds());
+    assertEquals("Ann", rows.getEmployees().get(0).getName());
+    assertEquals(10, rows.getEmployees().get(0).getSalary());
+    assertEquals(0, rows.getEmployees().get(1).getPerformance());
+
+    @SuppressWarnings("unchecked")
+    List<Map<String, Object>> errors = (List<Map<String, Object>>) rows.toJson().get("errors");
+    assertEquals(List.of(2, 4, 5), errors.stream().map(error -> error.get("line")).toList());
+    assertEquals("Department [3] not found", errors.get(0).get("message"));
+    assertEquals(0, rows.toJson().get("imported"));
+  }
+
+  @Test
+  public void testParseCsv() {
+    String body = "id,name,hireDate,position,salary,performance,departmentId,departmentName\r\n"
+        + "7,\"Doe, John\",2024-01-15,Engineer,100.0,80.0,1,Engineering\r\n"
+        + "8,Jane,2024-01-15,,abc,,1,\r\n"
+        + "9,Jim,2024-01-15\r\n";
+    EmployeeImport rows = EmployeeImport.parse(OrganizationExport.Format.CSV, body, id -> true);
+
+    assertEquals(1, rows.getEmployees().size());
+    assertEquals("Doe, John", rows.getEmployees().get(0).getName());
+    @SuppressWarnings("unchecked")
+    List<Map<String, Object>> errors = (List<Map<String, Object>>) rows.toJson().get("errors");
+    assertEquals("Invalid salary: abc", errors.get(0).get("message"));
+    assertEquals(4, errors.get(1).get("line"));
+  }
+
+  @Test
+  public void testRejectedBodies() {
+    assertThrows(BadRequestException.class,
+        () -> EmployeeImport.parse(OrganizationExport.Format.CSV, "name,hireDate\n", id -> true));
+    assertThrows(BadRequestException.class,
+        () -> EmployeeImport.parse(OrganizationExport.Format.NDJSON, "\n\n", id -> true));
+  }
+
+  @Test
+  public void testSplitCsv() {
+    assertArrayEquals(new String[] {"a", "", "b \"c\", d", ""},
+        EmployeeImport.splitCsv("a,,\"b \"\"c\"\", d\","));
+  }
+}
@@ -0,0 +1,118 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the EmployeeTable class.
+ */
+public class EmployeeTableTest {
+  private static final long DAY = 86_400_000L;
+
+  @Test
+  public void testColumnsMatchEmployees() {
+    Employee alice = new Employee(1, "Alice", new Date(10 * DAY), " Engineer ", 100, 80);
+    Employee bob = new Employee(2, "Bob", new Date(20 * DAY + 5), "engineer", 200, 60);
+    Employee carol = new Employee(3, "Carol", new Date(30 * DAY), null, 300, 40);
+    Department engineering = new Department(7, "Engineering");
+    engineering.addEmployee(alice);
+    engineering.addEmployee(bob);
+
+    EmployeeTable.Builder builder = EmployeeTable.of(
+        List.of(engineering, new Department(8, "Empty")), new PositionDictionary()).builder();
+    builder.put(carol);
+    EmployeeTable table = builder.build();
+
+    assertEquals(3, table.size());
+    int row = table.rowOf(2);
+    assertEquals(2, table.getId(row));
+    assertEquals(200, table.getSalary(row));
+    assertEquals(60, table.getPerformance(row));
+    assertEquals(20, table.getHireDay(row));
+    assertEquals("engineer", table.getPosition(table.rowOf(1)));
+    assertEquals(carol.getPosition().toLowerCase(), table.getPosition(table.rowOf(3)));
+    assertEquals(7, table.getDepartmentId(table.rowOf(1)));
+    assertEquals(EmployeeTable.NO_DEPARTMENT, table.getDepartmentId(table.rowOf(3)));
+    assertEquals(-1, table.rowOf(4));
+    assertEquals(2, table.countHiredBetween(15, 30));
+    assertThrows(IndexOutOfBoundsException.class, () -> table.getId(3));
+  }
+
+  @Test
+  public void testBuilderLeavesTableUnchanged() {
+    EmployeeTable.Builder builder = new EmployeeTable.Builder(new PositionDictionary());
+    for (int id = 0; id < 3 * EmployeeTable.CHUNK_SIZE; id++) {
+      builder.put(new Employee(id, "E" + id, new Date(), "Engineer", id, 50), id % 4);
+    }
+    EmployeeTable table = builder.build();
+
+    EmployeeTable.Builder change = table.builder();
+    change.put(new Employee(5, "E5", new Date(), "Manager", 5000, 90));
+    assertTrue(change.remove(10));
+    assertFalse(change.remove(10));
+    assertTrue(change.setDepartment(11, EmployeeTable.NO_DEPARTMENT));
+    EmployeeTable changed = change.build();
+
+    // The last row moved into the removed row
+    assertEquals(3 * EmployeeTable.CHUNK_SIZE - 1, changed.size());
+    assertEquals(3 * EmployeeTable.CHUNK_SIZE - 1, changed.getId(10));
+    assertEquals(10, changed.rowOf(3 * EmployeeTable.CHUNK_SIZE - 1));
+    assertEquals(-1, changed.rowOf(10));
+    assertEquals(5000, changed.getSalary(changed.rowOf(5)));
+    assertEquals(1, changed.getDepartmentId(changed.rowOf(5)), "Departments should be kept");
+
+    // The table that the builder started from is not modified
+    assertEquals(3 * EmployeeTable.CHUNK_SIZE, table.size());
+    assertEquals(10, table.getId(10));
+    assertEquals(5, table.getSalary(5));
+    assertEquals(3, table.getDepartmentId(11));
+  }
+
+  @Test
+  public void testStatisticsOnlyScanChangedChunks() {
+    EmployeeTable.Builder builder = new EmployeeTable.Builder(new PositionDictionary());
+    for (int id = 0; id < 2 * EmployeeTable.CHUNK_SIZE; id++) {
+      builder.put(new Employee(id, "E" + id, new Date(), "Engineer", 10, id % 10), 1);
+    }
+    builder.put(new Employee(9999, "Loose", new Date(), "Intern", 100000, 100));
+    EmployeeTable table = builder.build();
+    Map<String, Object> rollup = table.getStatisticRollup().toJson(1);
+    assertEquals(2L * EmployeeTable.CHUNK_SIZE, rollup.get("employeeCount"));
+    Map<?, ?> budget = (Map<?, ?>) rollup.get("budget");
+    assertEquals(10.0, budget.get("highest"));
+    assertEquals(0, budget.get("highestEmployee"), "Ties should go to the lowest ID");
+    assertEquals(0, budget.get("lowestEmployee"));
+    assertEquals(Map.of("engineer", 2 * EmployeeTable.CHUNK_SIZE), rollup.get("positions"));
+    assertSame(table.getStatisticRollup(), table.getStatisticRollup());
+
+    EmployeeTable.Builder change = table.builder();
+    change.put(new Employee(EmployeeTable.CHUNK_SIZE + 1, "Raised", new Date(), "Manager",
+        500, 9));
+    EmployeeTable changed = change.build();
+    assertSame(table.chunkRollup(0), changed.chunkRollup(0));
+    assertNotSame(table.chunkRollup(1), changed.chunkRollup(1));
+    Map<?, ?> changedBudget = (Map<?, ?>) changed.getStatisticRollup().toJson(1).get("budget");
+    assertEquals(500.0, changedBudget.get("highest"));
+    assertEquals(EmployeeTable.CHUNK_SIZE + 1, changedBudget.get("highestEmployee"));
+    assertEquals(10.0, budget.get("highest"), "The previous table should not change");
+  }
+
+  @Test
+  public void testEmptyTable() {
+    EmployeeTable table = EmployeeTable.empty(new PositionDictionary());
+    assertEquals(0, table.size());
+    Map<String, Object> rollup = table.getStatisticRollup().toJson(0);
+    assertEquals(0L, rollup.get("employeeCount"));
+    assertEquals(0.0, ((Map<?, ?>) rollup.get("budget")).get("total"));
+    assertEquals(Map.of(), rollup.get("positions"));
+  }
+}
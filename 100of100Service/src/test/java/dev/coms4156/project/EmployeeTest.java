@@ -88,23 +88,26 @@ public class EmployeeTest {
 
   @Test
   @Order(10)
-  public void testSetPosition() {
-    employee.setPosition("SoftwareEngineer");
-    Assertions.assertEquals("SoftwareEngineer", employee.getPosition());
+  public void testWithPosition() {
+    Employee changed = employee.withPosition("SoftwareEngineer");
+    Assertions.assertEquals("SoftwareEngineer", changed.getPosition());
+    Assertions.assertEquals("Other", employee.getPosition());
   }
 
   @Test
   @Order(11)
-  public void testSetSalary() {
-    employee.setSalary(100000);
-    Assertions.assertEquals(100000, employee.getSalary());
+  public void testWithSalary() {
+    Employee changed = employee.withSalary(100000);
+    Assertions.assertEquals(100000, changed.getSalary());
+    Assertions.assertEquals(0, employee.getSalary());
   }
 
   @Test
   @Order(12)
-  public void testSetPerformance() {
-    employee.setPerformance(50);
-    Assertions.assertEquals(50, employee.getPerformance());
+  public void testWithPerformance() {
+    Employee changed = employee.withPerformance(50);
+    Assertions.assertEquals(50, changed.getPerformance());
+    Assertions.assertEquals(0, employee.getPerformance());
   }
 
   @Test
@@ -119,4 +122,26 @@ public class EmployeeTest {
     );
   }
 
-}
\ No newline at end of file
+  @Test
+  @Order(14)
+  public void testWithKeepsTheOriginal() {
+    Employee original = new Employee(4, "Original", new Date(), "Engineer", 100, 80);
+    Employee changed = original.withSalary(200).withPosition("Manager");
+
+    Assertions.assertEquals(4, changed.getId());
+    Assertions.assertEquals(original.getHireDate(), changed.getHireDate());
+    Assertions.assertEquals(80, changed.getPerformance());
+    Assertions.assertEquals("Manager", changed.getPosition());
+    Assertions.assertEquals(100, original.getSalary());
+    Assertions.assertEquals("Engineer", original.getPosition());
+  }
+
+  @Test
+  @Order(15)
+  public void testStoredKeepsThePosition() {
+    Assertions.assertNull(Employee.stored(5, "Stored", date, null, 10, 20).getPosition());
+    Assertions.assertEquals("", Employee.stored(5, "Stored", date, "", 10, 20).getPosition());
+    Assertions.assertEquals("Other", new Employee(5, "Full", date, "", 10, 20).getPosition());
+  }
+
+}
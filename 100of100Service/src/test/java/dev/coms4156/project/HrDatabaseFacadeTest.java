@@ -7,12 +7,24 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import dev.coms4156.project.command.SetDeptHeadCmd;
+import dev.coms4156.project.command.SetEmpSalCmd;
+import dev.coms4156.project.exception.InternalServerErrorException;
 import dev.coms4156.project.exception.NotFoundException;
+import dev.coms4156.project.utils.StripedLock;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
@@ -38,31 +50,44 @@ public class HrDatabaseFacadeTest {
 
   @Test
   @Order(1)
-  public void testGetEmployeeNotInCache() throws Exception {
-    Field employeesField = HrDatabaseFacade.class.getDeclaredField("employees");
-    employeesField.setAccessible(true);
-    employeesField.set(facade, new ArrayList<>());
+  public void testGetEmployeeNotInCache() {
+    InmemConnection connection = new InmemConnection();
+    HrDatabaseFacade.setConnection(connection);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      connection.getTestEmployees().get(testOrganizationId)
+          .add(new Employee(70, "Not Cached", new Date()));
 
-    Employee employee = facade.getEmployee(1);
-    assertNotNull(employee, "Employee should be fetched from database when not in cache");
+      Employee employee = facade.getEmployee(70);
+      assertNotNull(employee, "Employee should be fetched from database when not in cache");
 
-    // Verify cache is updated
-    @SuppressWarnings("unchecked")
-    List<Employee> employeesCache = (List<Employee>) employeesField.get(facade);
-    assertFalse(employeesCache.isEmpty(), "Employees cache should be updated");
-    assertTrue(employeesCache.contains(employee),
-        "Employees cache should contain the fetched employee");
+      // Verify cache is updated
+      assertTrue(facade.getEmployees().contains(employee),
+          "Employees cache should contain the fetched employee");
+    } finally {
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
   }
 
   @Test
   @Order(2)
-  public void testGetDepartmentNotInCache() throws Exception {
-    Field departmentsField = HrDatabaseFacade.class.getDeclaredField("departments");
-    departmentsField.setAccessible(true);
-    departmentsField.set(facade, new ArrayList<>());
-
-    Department department = facade.getDepartment(1);
-    assertNotNull(department, "Department should be fetched from database when not in cache");
+  public void testGetDepartmentNotInCache() {
+    InmemConnection connection = new InmemConnection();
+    HrDatabaseFacade.setConnection(connection);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      connection.getTestDepartments().get(testOrganizationId)
+          .add(new Department(71, "Not Cached"));
+
+      Department department = facade.getDepartment(71);
+      assertNotNull(department, "Department should be fetched from database when not in cache");
+      assertTrue(facade.getDepartments().contains(department),
+          "Departments cache should contain the fetched department");
+    } finally {
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
   }
 
   @Test
@@ -98,9 +123,6 @@ public class HrDatabaseFacadeTest {
     HrDatabaseFacade.setConnection(mockDbConnection);
     facade = HrDatabaseFacade.getInstance(testOrganizationId);
 
-    Department departmentToRemove = new Department(99, "Dept to Remove", new ArrayList<>());
-    facade.departments.add(departmentToRemove);
-
     boolean removed = facade.removeDepartment(99);
     assertTrue(removed, "Department should be removed successfully");
 
@@ -175,6 +197,17 @@ public class HrDatabaseFacadeTest {
     System.out.println("Retrieved employee: " + employee.getName());
   }
 
+  @Test
+  @Order(9)
+  public void testGetEmployeeDepartment() {
+    Department department = facade.getEmployeeDepartment(1);
+    assertNotNull(department, "Employee 1 should belong to a cached department");
+    assertTrue(department.getEmployees().contains(facade.getEmployee(1)),
+        "The owning department should share the cached employee instance");
+    assertNull(facade.getEmployeeDepartment(-1),
+        "Nonexistent employee should not belong to any department");
+  }
+
   @Test
   @Order(10)
   public void testGetNonexistentEmployee() {
@@ -200,10 +233,7 @@ public class HrDatabaseFacadeTest {
   @Test
   @Order(13)
   public void testAddEmployeeToDepartment() {
-    Employee newEmployee = new Employee(0, "Test Employee", new Date());
-    newEmployee.setPosition("Tester");
-    newEmployee.setSalary(50000);
-    newEmployee.setPerformance(80);
+    Employee newEmployee = new Employee(0, "Test Employee", new Date(), "Tester", 50000, 80);
 
     Employee addedEmployee = facade.addEmployeeToDepartment(1, newEmployee);
     assertNotNull(addedEmployee, "Added employee should not be null");
@@ -227,10 +257,7 @@ public class HrDatabaseFacadeTest {
   @Test
   @Order(15)
   public void testRemoveEmployeeFromDepartment() {
-    Employee newEmployee = new Employee(0, "Employee to Remove", new Date());
-    newEmployee.setPosition("Temp");
-    newEmployee.setSalary(40000);
-    newEmployee.setPerformance(70);
+    Employee newEmployee = new Employee(0, "Employee to Remove", new Date(), "Temp", 40000, 70);
 
     Employee addedEmployee = facade.addEmployeeToDepartment(1, newEmployee);
     assertNotNull(addedEmployee, "Added employee should not be null");
@@ -264,7 +291,7 @@ public class HrDatabaseFacadeTest {
 
     String originalPosition = employee.getPosition();
     try {
-      employee.setPosition("Updated Position");
+      employee = employee.withPosition("Updated Position");
 
       boolean updated = facade.updateEmployee(employee);
       assertTrue(updated, "Employee should be updated successfully");
@@ -277,7 +304,7 @@ public class HrDatabaseFacadeTest {
       );
     } finally {
       // Restore the original employee position
-      employee.setPosition(originalPosition);
+      employee = employee.withPosition(originalPosition);
       facade.updateEmployee(employee);
     }
   }
@@ -432,7 +459,7 @@ public class HrDatabaseFacadeTest {
     assertNotNull(insertedDept, "insertDepartment should return the inserted Department");
     assertTrue(insertedDept.getId() > 0, "Inserted Department ID should be positive");
 
-    boolean contains = facade.departments.contains(insertedDept);
+    boolean contains = facade.getDepartments().contains(insertedDept);
     assertTrue(contains, "facade.departments should contain the inserted Department");
   }
 
@@ -451,6 +478,749 @@ public class HrDatabaseFacadeTest {
     });
   }
 
+  @Test
+  @Order(30)
+  public void testWritesPatchCacheWithoutReload() {
+    int[] reloads = {0};
+    DatabaseConnection countingConnection = new InmemConnection() {
+      @Override
+      public List<Employee> getEmployees(int orgId) {
+        reloads[0]++;
+        return super.getEmployees(orgId);
+      }
+    };
+    HrDatabaseFacade.setConnection(countingConnection);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      final int loads = reloads[0];
+
+      Employee employee = facade.getEmployee(1);
+      employee = employee.withSalary(1234);
+      assertTrue(facade.updateEmployee(employee));
+      Employee added = facade.addEmployeeToDepartment(2, new Employee(0, "Patched", new Date()));
+      assertNotNull(added, "Employee should be added");
+      assertTrue(facade.getEmployeeDepartment(added.getId()).getEmployees().contains(added),
+          "New employee should be indexed under its department");
+      assertTrue(facade.removeEmployeeFromDepartment(2, added.getId()));
+
+      assertEquals(loads, reloads[0], "Writes should not reload the organization");
+      assertEquals(1234, facade.getEmployee(1).getSalary());
+      assertNull(facade.getEmployeeDepartment(added.getId()),
+          "Removed employee should no longer be indexed");
+    } finally {
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(31)
+  public void testReconcileCatchesDrift() {
+    InmemConnection connection = new InmemConnection();
+    HrDatabaseFacade.setConnection(connection);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      Employee outOfBand = new Employee(77, "Out Of Band", new Date());
+      connection.getTestEmployees().get(testOrganizationId).add(outOfBand);
+      assertFalse(facade.getEmployees().contains(outOfBand), "Cache should not see the change yet");
+
+      facade.reconcile();
+      assertTrue(facade.getEmployees().contains(outOfBand),
+          "Reconciliation should load the change");
+    } finally {
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(32)
+  public void testConcurrentGetInstanceLoadsOnce() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    DatabaseConnection slowConnection = new InmemConnection() {
+      @Override
+      public Organization getOrganization(int orgId) {
+        loads.incrementAndGet();
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.getOrganization(orgId);
+      }
+    };
+    HrDatabaseFacade.setConnection(slowConnection);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<HrDatabaseFacade>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(pool.submit(() -> HrDatabaseFacade.getInstance(testOrganizationId)));
+      }
+      Thread.sleep(100);
+      release.countDown();
+
+      HrDatabaseFacade first = results.get(0).get(5, TimeUnit.SECONDS);
+      for (Future<HrDatabaseFacade> result : results) {
+        assertTrue(first == result.get(5, TimeUnit.SECONDS),
+            "All callers should receive the same instance");
+      }
+      assertEquals(1, loads.get(), "A cold organization should be loaded only once");
+    } finally {
+      pool.shutdownNow();
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(33)
+  public void testGetInstanceNotFoundIsNotCached() {
+    assertThrows(NotFoundException.class, () -> HrDatabaseFacade.getInstance(9999));
+    assertFalse(getInstancesMapViaReflection().containsKey(9999),
+        "A failed load should not be registered");
+    assertThrows(NotFoundException.class, () -> HrDatabaseFacade.getInstance(9999));
+  }
+
+  @Test
+  @Order(34)
+  public void testCacheEvictsOverMemoryBudget() {
+    long weight = facade.estimatedBytes();
+    assertEquals(HrDatabaseFacade.ORGANIZATION_BYTES
+        + HrDatabaseFacade.DEPARTMENT_BYTES * facade.getDepartments().size()
+        + HrDatabaseFacade.EMPLOYEE_BYTES * facade.getEmployees().size(), weight);
+
+    Cache<Integer, HrDatabaseFacade> cache = HrDatabaseFacade.newCache(weight * 3);
+    for (int i = 0; i < 10; i++) {
+      cache.put(i, facade);
+    }
+    cache.cleanUp();
+    assertTrue(cache.estimatedSize() <= 3, "Cache should stay within its memory budget");
+  }
+
+  @Test
+  @Order(35)
+  public void testEvictedOrganizationIsReloaded() {
+    HrDatabaseFacade first = HrDatabaseFacade.getInstance(testOrganizationId);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+
+    HrDatabaseFacade reloaded = HrDatabaseFacade.getInstance(testOrganizationId);
+    assertNotNull(reloaded, "An evicted organization should be loaded again");
+    assertTrue(first != reloaded, "The reloaded organization should be a new instance");
+    assertEquals(first.getOrganization().getName(), reloaded.getOrganization().getName());
+  }
+
+  @Test
+  @Order(36)
+  public void testMissingIdsAreAnsweredFromMemory() {
+    int[] pointQueries = {0};
+    int[] reloads = {0};
+    DatabaseConnection countingConnection = new InmemConnection() {
+      @Override
+      public Employee getEmployee(int orgId, int employeeId) {
+        pointQueries[0]++;
+        return super.getEmployee(orgId, employeeId);
+      }
+
+      @Override
+      public Department getDepartment(int orgId, int departmentId) {
+        pointQueries[0]++;
+        return super.getDepartment(orgId, departmentId);
+      }
+
+      @Override
+      public List<Employee> getEmployees(int orgId) {
+        reloads[0]++;
+        return super.getEmployees(orgId);
+      }
+    };
+    HrDatabaseFacade.setConnection(countingConnection);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      int loads = reloads[0];
+      for (int i = 0; i < 5; i++) {
+        assertNull(facade.getEmployee(9999));
+        assertNull(facade.getDepartment(9999));
+      }
+      assertEquals(2, pointQueries[0], "Only the first miss of each ID should query the database");
+      assertEquals(loads, reloads[0], "Misses should not reload the organization");
+    } finally {
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(37)
+  public void testReloadForgetsMissingIds() {
+    InmemConnection connection = new InmemConnection();
+    HrDatabaseFacade.setConnection(connection);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      assertNull(facade.getEmployee(88));
+      Employee outOfBand = new Employee(88, "Out Of Band", new Date());
+      connection.getTestEmployees().get(testOrganizationId).add(outOfBand);
+      assertNull(facade.getEmployee(88), "The miss should be answered from memory");
+
+      facade.reconcile();
+      assertEquals(outOfBand, facade.getEmployee(88), "A reload should forget the miss");
+    } finally {
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(38)
+  public void testInvalidationFromOtherNodeRefreshesEntries() throws Exception {
+    InmemConnection connection = new InmemConnection();
+    HrDatabaseFacade.setConnection(connection);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    LoopbackInvalidationChannel channel = new LoopbackInvalidationChannel();
+    HrDatabaseFacade.setInvalidationChannel(channel);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      // Another node updates an employee and adds one to department 1
+      Employee changed = new Employee(1, "Changed Elsewhere", new Date()).withSalary(4321);
+      connection.getTestEmployees().get(testOrganizationId).set(0, changed);
+      Employee added = new Employee(55, "Added Elsewhere", new Date());
+      connection.getTestEmployees().get(testOrganizationId).add(added);
+      connection.getTestDepartments().get(testOrganizationId).get(0).addEmployee(added);
+
+      channel.publish(new CacheInvalidation("other-node", testOrganizationId, 1L,
+          CacheInvalidation.Kind.EMPLOYEE, 1));
+      channel.publish(new CacheInvalidation("other-node", testOrganizationId, 2L,
+          CacheInvalidation.Kind.DEPARTMENT, 1));
+
+      facade.pendingRefreshes().get(5, TimeUnit.SECONDS);
+      assertTrue(facade == HrDatabaseFacade.getInstance(testOrganizationId),
+          "In-sequence invalidations should patch the cached organization");
+      assertEquals(4321, facade.getEmployee(1).getSalary());
+      assertTrue(facade.getEmployees().contains(added), "The new employee should be cached");
+      assertEquals(1, facade.getEmployeeDepartment(55).getId());
+    } finally {
+      HrDatabaseFacade.setInvalidationChannel(null);
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(39)
+  public void testInvalidationGapEvictsOrganization() {
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    LoopbackInvalidationChannel channel = new LoopbackInvalidationChannel();
+    HrDatabaseFacade.setInvalidationChannel(channel);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      channel.publish(new CacheInvalidation("gap-node", testOrganizationId, 1L,
+          CacheInvalidation.Kind.ORGANIZATION, testOrganizationId));
+      assertTrue(getInstancesMapViaReflection().containsKey(testOrganizationId));
+
+      channel.publish(new CacheInvalidation("gap-node", testOrganizationId, 3L,
+          CacheInvalidation.Kind.ORGANIZATION, testOrganizationId));
+      assertFalse(getInstancesMapViaReflection().containsKey(testOrganizationId),
+          "A lost invalidation should evict the organization");
+
+      // The node's own invalidations are ignored
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      assertTrue(facade.updateEmployee(facade.getEmployee(1)));
+      assertTrue(facade == HrDatabaseFacade.getInstance(testOrganizationId));
+    } finally {
+      HrDatabaseFacade.setInvalidationChannel(null);
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(40)
+  public void testLazyLoadingFaultsInBeforeWarmup() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    DatabaseConnection slowConnection = new InmemConnection() {
+      @Override
+      public List<Employee> getEmployees(int orgId) {
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.getEmployees(orgId);
+      }
+    };
+    HrDatabaseFacade.setConnection(slowConnection);
+    HrDatabaseFacade.setLazyLoading(true);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      assertFalse(facade.isWarm(), "The full load should still be running");
+
+      assertEquals("John Doe", facade.getEmployee(1).getName());
+      Department department = facade.getDepartment(1);
+      assertNotNull(department, "Departments should be faulted in by ID");
+      assertNull(facade.getEmployee(9999));
+      assertFalse(facade.isWarm(), "Lookups by ID should not wait for the full load");
+
+      release.countDown();
+      Organization organization = facade.getOrganization();
+      assertTrue(facade.isWarm(), "The organization view should wait for the full load");
+      assertEquals(2, facade.getEmployees().size());
+      assertNotNull(organization);
+      assertEquals(1, facade.getEmployeeDepartment(1).getId());
+    } finally {
+      release.countDown();
+      HrDatabaseFacade.setLazyLoading(false);
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(41)
+  public void testWritesDoNotChangePublishedSnapshots() {
+    HrDatabaseFacade.setConnection(new InmemConnection());
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      // A reader holds on to the current snapshot while writers commit changes
+      final Organization organization = facade.getOrganization();
+      final Department department = facade.getDepartment(1);
+      final Employee employee = facade.getEmployee(1);
+      final List<Employee> employees = facade.getEmployees();
+
+      new SetEmpSalCmd(testOrganizationId, 1, 4321).execute();
+      new SetDeptHeadCmd(testOrganizationId, 1, 1).execute();
+      facade.addEmployeeToDepartment(1, new Employee(0, "New Hire", new Date()));
+
+      assertEquals(100, employee.getSalary(), "The cached employee should not be modified");
+      assertNull(department.getHead(), "The cached department should not be modified");
+      assertEquals(1, department.getEmployees().size());
+      assertEquals(2, employees.size());
+      assertEquals(2, organization.getNumEmployees());
+
+      // New readers see every committed change, linked to the same employee instances
+      Employee updated = facade.getEmployee(1);
+      Department updatedDepartment = facade.getDepartment(1);
+      assertEquals(4321, updated.getSalary());
+      assertTrue(updated == updatedDepartment.getHead());
+      assertTrue(updated == updatedDepartment.getEmployees().get(0));
+      assertEquals(2, updatedDepartment.getEmployees().size());
+      assertEquals(3, facade.getOrganization().getNumEmployees());
+      assertTrue(updatedDepartment == facade.getEmployeeDepartment(1));
+    } finally {
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(42)
+  public void testDepartmentLocksOnlyBlockTheirDepartment() throws Exception {
+    HrDatabaseFacade.setConnection(new InmemConnection());
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    ExecutorService writer = Executors.newSingleThreadExecutor();
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      Future<?> otherDepartment;
+      Future<?> sameDepartment;
+      try (StripedLock.Handle ignored = facade.lockDepartment(1)) {
+        // Jane Smith belongs to department 2, John Doe to department 1
+        otherDepartment = writer.submit(() -> new SetEmpSalCmd(testOrganizationId, 2, 1).execute());
+        otherDepartment.get(5, TimeUnit.SECONDS);
+        sameDepartment = writer.submit(() -> new SetEmpSalCmd(testOrganizationId, 1, 1).execute());
+        Thread.sleep(100);
+        assertFalse(sameDepartment.isDone(), "Writes to a locked department should wait");
+        assertEquals(100, facade.getEmployee(1).getSalary(), "Readers should not wait");
+      }
+      sameDepartment.get(5, TimeUnit.SECONDS);
+      assertEquals(1, facade.getEmployee(1).getSalary());
+      assertEquals(1, facade.getLockContention()[1]);
+    } finally {
+      writer.shutdownNow();
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(43)
+  public void testEmployeeTableFollowsPublishedState() {
+    HrDatabaseFacade.setConnection(new InmemConnection());
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      EmployeeTable table = facade.getEmployeeTable();
+      assertEquals(2, table.size());
+      assertTrue(table == facade.getEmployeeTable(), "Reads should not change the table");
+      assertEquals(facade.getEmployeeDepartment(1).getId(),
+          table.getDepartmentId(table.rowOf(1)));
+
+      new SetEmpSalCmd(testOrganizationId, 1, 4321).execute();
+      EmployeeTable updated = facade.getEmployeeTable();
+      assertFalse(table == updated, "Writes should publish a new table");
+      assertEquals(4321, updated.getSalary(updated.rowOf(1)));
+      assertEquals(100, table.getSalary(table.rowOf(1)), "A table should not change once built");
+      Map<?, ?> budget = (Map<?, ?>) facade.getOrganization().getStatisticRollupMap()
+          .get("budget");
+      assertEquals(4321 + facade.getEmployee(2).getSalary(), budget.get("total"));
+    } finally {
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(44)
+  public void testWritesBumpVersion() {
+    HrDatabaseFacade.setConnection(new InmemConnection());
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      long version = HrDatabaseFacade.versionOf(testOrganizationId);
+      assertEquals(version, facade.getVersion());
+      facade.getEmployee(1);
+      assertEquals(version, facade.getVersion(), "Reads should not change the version");
+
+      new SetEmpSalCmd(testOrganizationId, 1, 4321).execute();
+      assertTrue(facade.getVersion() > version, "Writes should bump the version");
+    } finally {
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(45)
+  public void testDepartmentPageIsPushedDown() {
+    InmemConnection connection = new InmemConnection();
+    HrDatabaseFacade.setConnection(connection);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      DepartmentPage cached = facade.getDepartmentPage(1, Integer.MIN_VALUE, 10);
+      assertEquals(1, cached.employeeCount());
+      assertEquals(1, cached.employees().get(0).getId());
+      assertNull(cached.nextCursor());
+
+      // A department that is not cached is paged by the connection and stays uncached
+      Department outOfBand = new Department(68, "Research");
+      outOfBand.addEmployee(new Employee(69, "Out Of Band", new Date()));
+      connection.getTestDepartments().get(testOrganizationId).add(outOfBand);
+      DepartmentPage read = facade.getDepartmentPage(68, Integer.MIN_VALUE, 0);
+      assertEquals("Research", read.name());
+      assertEquals(1, read.employeeCount());
+      assertTrue(read.employees().isEmpty());
+      assertNull(facade.getEmployee(69), "Paging should not cache the department");
+      assertNull(facade.getDepartmentPage(99, Integer.MIN_VALUE, 10));
+    } finally {
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(46)
+  public void testExportDoesNotLoadOrganization() {
+    HrDatabaseFacade.setConnection(new InmemConnection());
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      List<String> streamed = new ArrayList<>();
+      HrDatabaseFacade.exportOrganization(testOrganizationId, (employee, department) ->
+          streamed.add(employee.getId() + ":" + (department != null ? department.getId() : "")));
+      assertEquals(List.of("1:1", "2:2"), streamed);
+      assertFalse(getInstancesMapViaReflection().containsKey(testOrganizationId),
+          "Exporting an organization that is not cached should not load it");
+      assertTrue(HrDatabaseFacade.hasOrganization(testOrganizationId));
+      assertFalse(HrDatabaseFacade.hasOrganization(99));
+
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      List<String> cached = new ArrayList<>();
+      HrDatabaseFacade.exportOrganization(testOrganizationId, (employee, department) ->
+          cached.add(employee.getId() + ":" + (department != null ? department.getId() : "")));
+      assertEquals(streamed, cached);
+    } finally {
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(47)
+  public void testAddEmployeesInOnePublish() {
+    HrDatabaseFacade.setConnection(new InmemConnection());
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      long version = facade.getVersion();
+      List<Employee> added = facade.addEmployeesToDepartments(List.of(1, 2, 1), List.of(
+          new Employee(-1, "Ann", new Date(), "Engineer", 10, 10),
+          new Employee(-1, "Ben", new Date(), "Designer", 20, 20),
+          new Employee(-1, "Cat", new Date(), "Engineer", 30, 30)));
+
+      assertEquals(List.of(3, 4, 5), added.stream().map(Employee::getId).toList());
+      assertTrue(facade.getVersion() > version);
+      assertEquals(5, facade.getEmployees().size());
+      assertEquals(3, facade.getDepartment(1).getEmployees().size());
+      assertEquals(2, facade.getEmployeeDepartment(4).getId());
+      assertEquals("Cat", facade.getEmployee(5).getName());
+      assertNull(facade.addEmployeesToDepartments(List.of(9),
+          List.of(new Employee(-1, "Dan", new Date()))));
+      assertEquals(5, facade.getEmployees().size());
+    } finally {
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(48)
+  public void testAddEmployeesRejectsIdsOfOtherOrganization() {
+    HrDatabaseFacade.setConnection(new InmemConnection() {
+      @Override
+      public int addEmployeesToDepartments(
+          int orgId, List<Integer> departmentIds, List<Employee> employees) {
+        // The highest ID of the organization was taken, the block wraps into the next one
+        return orgId * 10000 + 9999;
+      }
+    });
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      List<Employee> rows = List.of(new Employee(-1, "Ann", new Date()),
+          new Employee(-1, "Ben", new Date()));
+      assertThrows(InternalServerErrorException.class,
+          () -> facade.addEmployeesToDepartments(List.of(1, 1), rows));
+      assertEquals(2, facade.getEmployees().size(), "No employee should be cached");
+    } finally {
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(49)
+  public void testMissOnExistingIdCachesOnlyThatRow() {
+    int[] reloads = {0};
+    InmemConnection connection = new InmemConnection() {
+      @Override
+      public List<Employee> getEmployees(int orgId) {
+        reloads[0]++;
+        return super.getEmployees(orgId);
+      }
+    };
+    HrDatabaseFacade.setConnection(connection);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      final int loads = reloads[0];
+      Employee outOfBand = new Employee(66, "Out Of Band", new Date());
+      connection.getTestEmployees().get(testOrganizationId).add(outOfBand);
+      Department outOfBandDepartment = new Department(67, "Out Of Band");
+      outOfBandDepartment.addEmployee(outOfBand);
+      connection.getTestDepartments().get(testOrganizationId).add(outOfBandDepartment);
+
+      assertEquals(outOfBand, facade.getEmployee(66));
+      assertTrue(facade.getEmployees().contains(outOfBand), "The employee should be cached");
+      Department department = facade.getDepartment(67);
+      assertEquals(1, department.getEmployees().size());
+      assertTrue(department == facade.getEmployeeDepartment(66),
+          "The department should be linked with its cached members");
+      assertEquals(loads, reloads[0], "Misses should not reload the organization");
+    } finally {
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(50)
+  public void testWritesWaitForReload() throws Exception {
+    CountDownLatch reading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger blockedLoads = new AtomicInteger();
+    HrDatabaseFacade.setConnection(new InmemConnection() {
+      @Override
+      public List<Employee> getEmployees(int orgId) {
+        List<Employee> employees = super.getEmployees(orgId);
+        if (blockedLoads.getAndDecrement() > 0) {
+          reading.countDown();
+          try {
+            release.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        return employees;
+      }
+    });
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      blockedLoads.set(1);
+      final Future<?> reload = pool.submit(facade::reconcile);
+      assertTrue(reading.await(5, TimeUnit.SECONDS));
+      Future<?> write = pool.submit(() -> new SetEmpSalCmd(testOrganizationId, 1, 4321).execute());
+      Thread.sleep(100);
+      assertFalse(write.isDone(), "Writes should wait until the reload is published");
+
+      release.countDown();
+      reload.get(5, TimeUnit.SECONDS);
+      write.get(5, TimeUnit.SECONDS);
+      assertEquals(4321, facade.getEmployee(1).getSalary(), "The write should not be lost");
+    } finally {
+      release.countDown();
+      pool.shutdownNow();
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(51)
+  public void testInvalidationOfColdOrganizationDoesNotBlock() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    InmemConnection slowConnection = new InmemConnection() {
+      @Override
+      public List<Employee> getEmployees(int orgId) {
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.getEmployees(orgId);
+      }
+    };
+    HrDatabaseFacade.setConnection(slowConnection);
+    HrDatabaseFacade.setLazyLoading(true);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    LoopbackInvalidationChannel channel = new LoopbackInvalidationChannel();
+    HrDatabaseFacade.setInvalidationChannel(channel);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      Employee changed = new Employee(1, "Changed Elsewhere", new Date());
+      slowConnection.getTestEmployees().get(testOrganizationId).set(0, changed);
+
+      // The receiver returns at once, the refresh waits for the warmup in the background
+      channel.publish(new CacheInvalidation("cold-node", testOrganizationId, 1L,
+          CacheInvalidation.Kind.EMPLOYEE, 1));
+      assertFalse(facade.isWarm());
+      assertFalse(facade.pendingRefreshes().isDone());
+
+      release.countDown();
+      facade.pendingRefreshes().get(5, TimeUnit.SECONDS);
+      assertEquals("Changed Elsewhere", facade.getEmployee(1).getName());
+    } finally {
+      release.countDown();
+      HrDatabaseFacade.setInvalidationChannel(null);
+      HrDatabaseFacade.setLazyLoading(false);
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(52)
+  public void testFailedLazyLoadIsNotRegistered() throws Exception {
+    AtomicInteger failures = new AtomicInteger(1);
+    HrDatabaseFacade.setConnection(new InmemConnection() {
+      @Override
+      public List<Department> getDepartments(int orgId) {
+        if (failures.getAndDecrement() > 0) {
+          throw new IllegalStateException("Connection lost");
+        }
+        return super.getDepartments(orgId);
+      }
+    });
+    HrDatabaseFacade.setLazyLoading(true);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      HrDatabaseFacade failed = HrDatabaseFacade.getInstance(testOrganizationId);
+      assertThrows(IllegalStateException.class, failed::getOrganization);
+      assertFalse(getInstancesMapViaReflection().containsValue(failed),
+          "A facade whose load failed should not stay registered");
+
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      assertTrue(failed != facade, "The next access should load the organization again");
+      assertEquals(2, facade.getEmployees().size());
+    } finally {
+      HrDatabaseFacade.setLazyLoading(false);
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(53)
+  public void testConcurrentWritesToDepartmentsAreAllPublished() throws Exception {
+    // The in-memory connection is not thread-safe, only the facade is exercised concurrently
+    HrDatabaseFacade.setConnection(new InmemConnection() {
+      @Override
+      public synchronized int addEmployeeToDepartment(int orgId, int deptId, Employee employee) {
+        return super.addEmployeeToDepartment(orgId, deptId, employee);
+      }
+
+      @Override
+      public synchronized Employee getEmployee(int orgId, int employeeId) {
+        return super.getEmployee(orgId, employeeId);
+      }
+    });
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      List<Future<?>> writers = new ArrayList<>();
+      // Writers publish by compare-and-set, they must not depend on the monitor of the facade
+      synchronized (facade) {
+        for (int i = 0; i < 4; i++) {
+          int departmentId = 1 + i % 2;
+          writers.add(pool.submit(() -> {
+            for (int j = 0; j < 25; j++) {
+              facade.addEmployeeToDepartment(departmentId, new Employee(0, "Writer", new Date()));
+              facade.getEmployee(9000 + j);
+            }
+          }));
+        }
+        for (Future<?> writer : writers) {
+          writer.get(10, TimeUnit.SECONDS);
+        }
+      }
+
+      assertEquals(102, facade.getEmployees().size(), "No concurrent write should be lost");
+      assertEquals(51, facade.getDepartment(1).getEmployees().size());
+      assertEquals(51, facade.getDepartment(2).getEmployees().size());
+    } finally {
+      pool.shutdownNow();
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
+  @Test
+  @Order(54)
+  public void testDepartmentWriteBeforeWarmupDoesNotDeadlock() throws Exception {
+    // Occupy every warmup thread so that the full load stays queued
+    Field executorField = HrDatabaseFacade.class.getDeclaredField("warmupExecutor");
+    executorField.setAccessible(true);
+    ThreadPoolExecutor warmupExecutor = (ThreadPoolExecutor) executorField.get(null);
+    CountDownLatch release = new CountDownLatch(1);
+    for (int i = 0; i < warmupExecutor.getCorePoolSize(); i++) {
+      warmupExecutor.execute(() -> {
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    }
+    HrDatabaseFacade.setConnection(new InmemConnection());
+    HrDatabaseFacade.setLazyLoading(true);
+    getInstancesMapViaReflection().remove(testOrganizationId);
+    try {
+      facade = HrDatabaseFacade.getInstance(testOrganizationId);
+      Thread writer = new Thread(() -> new SetDeptHeadCmd(testOrganizationId, 1, 2).execute());
+      writer.setDaemon(true);
+      writer.start();
+      // Let the write reach the facade before the full load starts
+      writer.join(200);
+      assertFalse(facade.isWarm(), "The full load should not have started");
+
+      release.countDown();
+      writer.join(5000);
+      assertFalse(writer.isAlive(), "The write should not deadlock with the full load");
+      assertTrue(facade.isWarm());
+      assertEquals(2, facade.getDepartment(1).getHead().getId());
+    } finally {
+      release.countDown();
+      HrDatabaseFacade.setLazyLoading(false);
+      getInstancesMapViaReflection().remove(testOrganizationId);
+    }
+  }
+
   /**
    * Helper method to access the private static 'instances' map via reflection.
    *
@@ -0,0 +1,97 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.utils.IndexedList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the IndexedList utility class.
+ */
+public class IndexedListTest {
+
+  @Test
+  public void testAddGetRemove() {
+    IndexedList<String> list = new IndexedList<>();
+    String first = new String("a");
+    String second = new String("b");
+    String third = new String("c");
+    list.add(first);
+    list.add(second);
+    list.add(third);
+
+    assertEquals(List.of("a", "b", "c"), list);
+    assertTrue(list.remove(second));
+    assertFalse(list.remove(second));
+    assertFalse(list.remove(new String("a")), "Elements should be removed by identity");
+    assertEquals(2, list.size());
+    assertSame(third, list.get(1));
+    assertEquals(1, list.indexOf(third));
+    assertTrue(list.contains(first));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.get(2));
+    assertThrows(IllegalArgumentException.class, () -> list.add(null));
+  }
+
+  @Test
+  public void testDuplicatesAreRemovedInOrder() {
+    IndexedList<String> list = new IndexedList<>();
+    String repeated = "x";
+    list.add(repeated);
+    list.add("y");
+    list.add(repeated);
+
+    assertTrue(list.remove(repeated));
+    assertEquals(List.of("y", "x"), list);
+    assertTrue(list.contains(repeated));
+    assertTrue(list.remove(repeated));
+    assertFalse(list.contains(repeated));
+    assertEquals(List.of("y"), list);
+  }
+
+  @Test
+  public void testSetKeepsIndexInSync() {
+    IndexedList<String> list = new IndexedList<>();
+    list.add("a");
+    list.add("b");
+    list.remove("a");
+    list.set(0, "c");
+
+    assertEquals(List.of("c"), list);
+    assertFalse(list.contains("b"));
+    assertEquals(0, list.indexOf("c"));
+  }
+
+  @Test
+  public void testMatchesArrayList() {
+    Random random = new Random(4156);
+    IndexedList<Integer> list = new IndexedList<>();
+    List<Integer> expected = new ArrayList<>();
+    Integer[] values = new Integer[200];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = Integer.valueOf(i + 1000);
+    }
+    for (int step = 0; step < 20000; step++) {
+      Integer value = values[random.nextInt(values.length)];
+      int action = random.nextInt(4);
+      if (action < 2) {
+        list.add(value);
+        expected.add(value);
+      } else if (action == 2) {
+        assertEquals(expected.remove(value), list.remove(value));
+      } else if (!expected.isEmpty()) {
+        int index = random.nextInt(expected.size());
+        assertSame(expected.get(index), list.get(index));
+        assertEquals(expected.indexOf(value), list.indexOf(value));
+      }
+    }
+    assertEquals(expected, list);
+    assertEquals(expected, new ArrayList<>(list));
+  }
+}
@@ -130,10 +130,7 @@ public class InmemConnectionTest {
 
   @Test
   public void testRemoveEmployeeFromDepartment() {
-    Employee newEmployee = new Employee(0, "Employee to Remove", new Date());
-    newEmployee.setPosition("Temp");
-    newEmployee.setSalary(40000);
-    newEmployee.setPerformance(70);
+    Employee newEmployee = new Employee(0, "Employee to Remove", new Date(), "Temp", 40000, 70);
 
     int departmentId = 1;
 
@@ -368,10 +365,7 @@ public class InmemConnectionTest {
 
   @Test
   public void testRemoveEmployeeFromDepartmentRemovingDepartmentHead() {
-    Employee newEmployee = new Employee(0, "Department Head", new Date());
-    newEmployee.setPosition("Manager");
-    newEmployee.setSalary(60000);
-    newEmployee.setPerformance(90);
+    Employee newEmployee = new Employee(0, "Department Head", new Date(), "Manager", 60000, 90);
 
     int departmentId = 1;
 
@@ -403,7 +397,7 @@ public class InmemConnectionTest {
 
     String originalPosition = employee.getPosition();
     try {
-      employee.setPosition("Updated Position");
+      employee = employee.withPosition("Updated Position");
 
       boolean updated = inmemConnection.updateEmployee(testOrganizationId, employee);
       assertTrue(updated, "Employee should be updated successfully");
@@ -413,7 +407,7 @@ public class InmemConnectionTest {
           "Employee position should be updated");
     } finally {
       // Restore the original employee position
-      employee.setPosition(originalPosition);
+      employee = employee.withPosition(originalPosition);
       inmemConnection.updateEmployee(testOrganizationId, employee);
     }
   }
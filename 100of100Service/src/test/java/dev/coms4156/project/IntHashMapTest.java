@@ -0,0 +1,69 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.utils.IntHashMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the IntHashMap utility class.
+ */
+public class IntHashMapTest {
+
+  @Test
+  public void testPutGetRemove() {
+    IntHashMap<String> map = new IntHashMap<>();
+    assertTrue(map.isEmpty());
+    assertNull(map.put(1, "one"));
+    assertNull(map.put(-7, "minus seven"));
+    assertEquals("one", map.put(1, "uno"));
+
+    assertEquals(2, map.size());
+    assertEquals("uno", map.get(1));
+    assertEquals("minus seven", map.get(-7));
+    assertNull(map.get(2));
+    assertTrue(map.containsKey(-7));
+
+    assertEquals("uno", map.remove(1));
+    assertNull(map.remove(1));
+    assertFalse(map.containsKey(1));
+    assertEquals(1, map.size());
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertNull(map.get(-7));
+  }
+
+  @Test
+  public void testNullValueRejected() {
+    IntHashMap<String> map = new IntHashMap<>();
+    assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+  }
+
+  @Test
+  public void testMatchesHashMapUnderRandomOperations() {
+    IntHashMap<Integer> map = new IntHashMap<>(4);
+    Map<Integer, Integer> reference = new HashMap<>();
+    Random random = new Random(4156);
+    for (int i = 0; i < 20000; i++) {
+      int key = random.nextInt(500);
+      if (random.nextInt(3) == 0) {
+        assertEquals(reference.remove(key), map.remove(key));
+      } else {
+        assertEquals(reference.put(key, i), map.put(key, i));
+      }
+    }
+    assertEquals(reference.size(), map.size());
+    for (int key = 0; key < 500; key++) {
+      assertEquals(reference.get(key), map.get(key));
+    }
+    assertEquals(reference.size(), map.values().size());
+  }
+}
@@ -180,8 +180,8 @@ public class InternalIntegrationTest {
   @Test
   @Order(6)
   public void testDepartmentEmployeePositionStatistic() {
-    employee1.setPosition("Engineer");
-    employee2.setPosition("Engineer");
+    employee1 = employee1.withPosition("Engineer");
+    employee2 = employee2.withPosition("Engineer");
     department1.addEmployee(employee1);
     department1.addEmployee(employee2);
     Map<String, Integer> positionStats = department1.getEmployeePositionStatisticMap();
@@ -197,8 +197,8 @@ public class InternalIntegrationTest {
   @Test
   @Order(7)
   public void testDepartmentEmployeeSalaryStatistic() {
-    employee1.setSalary(50000);
-    employee2.setSalary(60000);
+    employee1 = employee1.withSalary(50000);
+    employee2 = employee2.withSalary(60000);
     department1.addEmployee(employee1);
     department1.addEmployee(employee2);
     Map<String, Object> salaryStats = department1.getEmployeeSalaryStatisticMap();
@@ -215,8 +215,8 @@ public class InternalIntegrationTest {
   @Test
   @Order(8)
   public void testDepartmentEmployeePerformanceStatistic() {
-    employee1.setPerformance(85.0);
-    employee2.setPerformance(90.0);
+    employee1 = employee1.withPerformance(85.0);
+    employee2 = employee2.withPerformance(90.0);
     department1.addEmployee(employee1);
     department1.addEmployee(employee2);
     Map<String, Object> performanceStats = department1.getEmployeePerformanceStatisticMap();
@@ -311,9 +311,9 @@ public class InternalIntegrationTest {
   @Test
   @Order(13)
   public void testUpdateEmployeeDelegation() {
-    Employee updatedEmployee = new Employee(1, "John Doe", new Date());
-    updatedEmployee.setPosition("Senior Engineer");
-    updatedEmployee.setSalary(80000);
+    Employee updatedEmployee = new Employee(1, "John Doe", new Date())
+        .withPosition("Senior Engineer")
+        .withSalary(80000);
 
     when(mockDbConnection.updateEmployee(testOrganizationId, updatedEmployee))
         .thenReturn(true);
@@ -0,0 +1,116 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A test class for the cache invalidation channels.
+ */
+public class InvalidationChannelTest {
+
+  @Test
+  public void testEncodeAndDecode() {
+    CacheInvalidation invalidation =
+        new CacheInvalidation("node-a", 3, 42L, CacheInvalidation.Kind.DEPARTMENT, 7);
+    byte[] data = invalidation.encode();
+    CacheInvalidation decoded = CacheInvalidation.decode(data, data.length);
+
+    assertEquals("node-a", decoded.getNodeId());
+    assertEquals(3, decoded.getOrganizationId());
+    assertEquals(42L, decoded.getVersion());
+    assertEquals(CacheInvalidation.Kind.DEPARTMENT, decoded.getKind());
+    assertEquals(7, decoded.getEntityId());
+  }
+
+  @Test
+  public void testDecodeMalformed() {
+    byte[] data = "node-a|3|x|EMPLOYEE|1".getBytes(StandardCharsets.UTF_8);
+    assertThrows(IllegalArgumentException.class,
+        () -> CacheInvalidation.decode(data, data.length));
+    byte[] truncated = "node-a|3".getBytes(StandardCharsets.UTF_8);
+    assertThrows(IllegalArgumentException.class,
+        () -> CacheInvalidation.decode(truncated, truncated.length));
+  }
+
+  @Test
+  public void testLoopbackDeliversToAllListeners() {
+    LoopbackInvalidationChannel channel = new LoopbackInvalidationChannel();
+    List<CacheInvalidation> first = new ArrayList<>();
+    List<CacheInvalidation> second = new ArrayList<>();
+    channel.subscribe(first::add);
+    channel.subscribe(second::add);
+
+    CacheInvalidation invalidation =
+        new CacheInvalidation("node-a", 1, 1L, CacheInvalidation.Kind.EMPLOYEE, 2);
+    channel.publish(invalidation);
+    assertEquals(List.of(invalidation), first);
+    assertEquals(List.of(invalidation), second);
+
+    channel.close();
+    channel.publish(invalidation);
+    assertEquals(1, first.size(), "A closed channel should not deliver");
+  }
+
+  @Test
+  public void testUdpRoundTrip() throws Exception {
+    // Peers are accepted by host, the receiver never sends to the discard port
+    UdpInvalidationChannel receiver = new UdpInvalidationChannel(0,
+        List.of(new InetSocketAddress("127.0.0.1", 9)));
+    UdpInvalidationChannel sender = new UdpInvalidationChannel(0,
+        List.of(new InetSocketAddress("127.0.0.1", receiver.getLocalPort())));
+    try {
+      BlockingQueue<CacheInvalidation> received = new LinkedBlockingQueue<>();
+      receiver.subscribe(received::add);
+
+      sender.publish(new CacheInvalidation("node-a", 5, 9L, CacheInvalidation.Kind.EMPLOYEE, 4));
+      CacheInvalidation invalidation = received.poll(5, TimeUnit.SECONDS);
+      assertNotNull(invalidation, "The invalidation should be received");
+      assertEquals(5, invalidation.getOrganizationId());
+      assertEquals(9L, invalidation.getVersion());
+      assertEquals(4, invalidation.getEntityId());
+    } finally {
+      sender.close();
+      receiver.close();
+    }
+  }
+
+  @Test
+  public void testUdpDropsSendersThatAreNotPeers() throws Exception {
+    UdpInvalidationChannel receiver = new UdpInvalidationChannel(0,
+        List.of(new InetSocketAddress("192.0.2.1", 7000)));
+    UdpInvalidationChannel sender = new UdpInvalidationChannel(0,
+        List.of(new InetSocketAddress("127.0.0.1", receiver.getLocalPort())));
+    try {
+      BlockingQueue<CacheInvalidation> received = new LinkedBlockingQueue<>();
+      receiver.subscribe(received::add);
+
+      sender.publish(new CacheInvalidation("node-a", 5, 9L, CacheInvalidation.Kind.EMPLOYEE, 4));
+      assertNull(received.poll(300, TimeUnit.MILLISECONDS),
+          "Invalidations from other hosts should be dropped");
+    } finally {
+      sender.close();
+      receiver.close();
+    }
+  }
+
+  @Test
+  public void testParsePeers() {
+    List<InetSocketAddress> peers =
+        UdpInvalidationChannel.parsePeers("10.0.0.1:7000, node-b:7001,");
+    assertEquals(2, peers.size());
+    assertEquals(7000, peers.get(0).getPort());
+    assertEquals("node-b", peers.get(1).getHostString());
+    assertThrows(IllegalArgumentException.class, () -> UdpInvalidationChannel.parsePeers("x"));
+  }
+}
@@ -0,0 +1,106 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.utils.KllSketch;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the KllSketch utility class.
+ */
+public class KllSketchTest {
+  private static final double[] FRACTIONS = {0.01, 0.25, 0.5, 0.75, 0.99};
+
+  @Test
+  public void testQuantilesWithinRankError() {
+    KllSketch sketch = new KllSketch(KllSketch.accuracyForRankError(0.01));
+    double[] values = randomValues(100000, 1);
+    for (double value : values) {
+      sketch.update(value);
+    }
+    Arrays.sort(values);
+
+    assertEquals(values.length, sketch.getCount());
+    assertEquals(values[0], sketch.getMin());
+    assertEquals(values[values.length - 1], sketch.getMax());
+    assertQuantilesWithin(sketch, values, 0.01);
+  }
+
+  @Test
+  public void testMergedSketchesSummarizeTheUnion() {
+    double[] first = randomValues(60000, 2);
+    double[] second = randomValues(40000, 3);
+    KllSketch merged = new KllSketch(200);
+    KllSketch other = new KllSketch(200);
+    for (double value : first) {
+      merged.update(value);
+    }
+    for (double value : second) {
+      other.update(value);
+    }
+    merged.merge(other);
+    assertEquals(40000, other.getCount(), "The merged sketch should be left unchanged");
+
+    double[] union = new double[first.length + second.length];
+    System.arraycopy(first, 0, union, 0, first.length);
+    System.arraycopy(second, 0, union, first.length, second.length);
+    Arrays.sort(union);
+    assertEquals(union.length, merged.getCount());
+    assertQuantilesWithin(merged, union, merged.getRankError());
+  }
+
+  @Test
+  public void testCopiesAreUpdatedIndependently() {
+    double[] values = randomValues(50000, 4);
+    KllSketch sketch = new KllSketch(200);
+    for (double value : values) {
+      sketch.update(value);
+    }
+    KllSketch copy = sketch.copy();
+    for (double value : randomValues(50000, 5)) {
+      copy.update(value + 1000);
+    }
+    assertEquals(values.length, sketch.getCount());
+    assertEquals(2L * values.length, copy.getCount());
+    Arrays.sort(values);
+    assertEquals(values[values.length - 1], sketch.getMax());
+    assertQuantilesWithin(sketch, values, sketch.getRankError());
+    assertTrue(copy.getQuantile(0.75) > 900, "The copy should hold the added values");
+  }
+
+  @Test
+  public void testEmptySketchAndInvalidArguments() {
+    KllSketch sketch = new KllSketch(8);
+    assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+    assertThrows(IllegalArgumentException.class, () -> sketch.getQuantile(1.5));
+    assertThrows(IllegalArgumentException.class, () -> new KllSketch(4));
+    assertThrows(IllegalArgumentException.class, () -> KllSketch.accuracyForRankError(0));
+  }
+
+  private static double[] randomValues(int count, long seed) {
+    Random random = new Random(seed);
+    double[] values = new double[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = random.nextGaussian() * 15 + 70;
+    }
+    return values;
+  }
+
+  /**
+   * Asserts that the true rank of every estimated quantile is close to the requested one.
+   */
+  private static void assertQuantilesWithin(KllSketch sketch, double[] sorted, double error) {
+    for (double fraction : FRACTIONS) {
+      double estimate = sketch.getQuantile(fraction);
+      int rank = Arrays.binarySearch(sorted, estimate);
+      double normalizedRank = (double) rank / sorted.length;
+      // Allow twice the expected error, the bound only holds with high probability
+      assertTrue(Math.abs(normalizedRank - fraction) <= 2 * error,
+          "Quantile " + fraction + " was estimated at rank " + normalizedRank);
+    }
+  }
+}
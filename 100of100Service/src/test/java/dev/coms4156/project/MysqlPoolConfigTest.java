@@ -0,0 +1,53 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.zaxxer.hikari.HikariConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the connection pool configuration of MysqlConnection.
+ * These tests do not need a reachable database.
+ */
+public class MysqlPoolConfigTest {
+
+  /**
+   * Clears the pool properties set by the tests.
+   */
+  @AfterEach
+  public void tearDown() {
+    System.clearProperty("db.url");
+    System.clearProperty("db.pool.maxSize");
+    System.clearProperty("db.pool.minIdle");
+    System.clearProperty("db.pool.idleTimeoutMs");
+    System.clearProperty("db.pool.leakDetectionMs");
+  }
+
+  @Test
+  public void testDefaultPoolConfig() {
+    HikariConfig config = MysqlConnection.poolConfig();
+    assertEquals(10, config.getMaximumPoolSize());
+    assertEquals(2, config.getMinimumIdle());
+    assertEquals(600_000L, config.getIdleTimeout());
+    assertEquals(60_000L, config.getLeakDetectionThreshold());
+    assertEquals("true",
+        config.getDataSourceProperties().getProperty("rewriteBatchedStatements"));
+  }
+
+  @Test
+  public void testPoolConfigFromSystemProperties() {
+    System.setProperty("db.url", "jdbc:mysql://localhost:3306/test_db");
+    System.setProperty("db.pool.maxSize", "32");
+    System.setProperty("db.pool.minIdle", "4");
+    System.setProperty("db.pool.idleTimeoutMs", "120000");
+    System.setProperty("db.pool.leakDetectionMs", "5000");
+
+    HikariConfig config = MysqlConnection.poolConfig();
+    assertEquals("jdbc:mysql://localhost:3306/test_db", config.getJdbcUrl());
+    assertEquals(32, config.getMaximumPoolSize());
+    assertEquals(4, config.getMinimumIdle());
+    assertEquals(120_000L, config.getIdleTimeout());
+    assertEquals(5_000L, config.getLeakDetectionThreshold());
+  }
+}
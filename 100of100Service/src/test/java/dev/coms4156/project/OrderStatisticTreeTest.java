@@ -0,0 +1,107 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.utils.OrderStatisticTree;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the OrderStatisticTree utility class.
+ */
+public class OrderStatisticTreeTest {
+
+  @Test
+  public void testRanksAndTies() {
+    OrderStatisticTree<String> tree = new OrderStatisticTree<>(true);
+    tree.insert(50, "b");
+    final long handle = tree.insert(90, "a");
+    tree.insert(50, "c");
+    tree.insert(10, "d");
+
+    assertEquals(4, tree.size());
+    assertEquals(90, tree.keyAt(0));
+    assertEquals("b", tree.get(1), "Ties should keep the insertion order");
+    assertEquals("c", tree.get(2));
+    assertEquals(10, tree.keyAt(3));
+
+    assertFalse(tree.remove(50, handle), "The key and the handle should both match");
+    assertTrue(tree.remove(90, handle));
+    assertEquals("b", tree.get(0));
+    assertThrows(IndexOutOfBoundsException.class, () -> tree.get(3));
+  }
+
+  @Test
+  public void testChosenHandlesOrderTiesAndRankOfKey() {
+    OrderStatisticTree<String> tree = new OrderStatisticTree<>(true);
+    tree.insert(50, 7, "late");
+    tree.insert(90, 3, "top");
+    tree.insert(50, 2, "early");
+    tree.insert(10, 5, "bottom");
+
+    assertEquals(List.of("top", "early", "late", "bottom"), valuesOf(tree));
+    assertEquals(1, tree.rankOf(50));
+    assertEquals(3, tree.rankOf(10));
+    assertEquals(0, tree.rankOf(100));
+    assertEquals(4, tree.rankOf(0));
+    assertEquals(8, tree.insert(20, "next"), "Generated handles should follow chosen ones");
+
+    // An entry removed and inserted again with its handle keeps its place among ties
+    assertTrue(tree.remove(50, 2));
+    tree.insert(50, 2, "early again");
+    assertEquals("early again", tree.get(tree.rankOf(50)));
+  }
+
+  @Test
+  public void testCopyIsIndependentAndKeepsHandles() {
+    OrderStatisticTree<String> tree = new OrderStatisticTree<>(true);
+    final long first = tree.insert(50, "first");
+    tree.insert(50, "second");
+    tree.insert(70, "top");
+
+    OrderStatisticTree<String> copy = tree.copy();
+    assertTrue(copy.remove(50, first), "Handles of the tree should work on the copy");
+    copy.insert(50, "third");
+    assertEquals(List.of("top", "second", "third"), valuesOf(copy));
+    assertEquals(List.of("top", "first", "second"), valuesOf(tree));
+  }
+
+  private static List<String> valuesOf(OrderStatisticTree<String> tree) {
+    List<String> values = new ArrayList<>();
+    tree.forEachValue(values::add);
+    return values;
+  }
+
+  @Test
+  public void testMatchesSortedListUnderRandomOperations() {
+    OrderStatisticTree<Long> tree = new OrderStatisticTree<>(false);
+    List<double[]> reference = new ArrayList<>();
+    Random random = new Random(4156);
+    for (int i = 0; i < 5000; i++) {
+      if (!reference.isEmpty() && random.nextInt(3) == 0) {
+        double[] entry = reference.remove(random.nextInt(reference.size()));
+        assertTrue(tree.remove(entry[0], (long) entry[1]));
+      } else {
+        double key = random.nextInt(100);
+        long handle = tree.insert(key, (long) i);
+        reference.add(new double[] {key, handle});
+      }
+    }
+    reference.sort(Comparator.<double[]>comparingDouble(entry -> entry[0])
+        .thenComparingDouble(entry -> entry[1]));
+
+    assertEquals(reference.size(), tree.size());
+    for (int rank = 0; rank < reference.size(); rank++) {
+      assertEquals(reference.get(rank)[0], tree.keyAt(rank));
+    }
+    List<Long> values = new ArrayList<>();
+    tree.forEachValue(values::add);
+    assertEquals(reference.size(), values.size());
+  }
+}
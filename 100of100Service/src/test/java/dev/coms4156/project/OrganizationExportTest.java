@@ -0,0 +1,81 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the OrganizationExport class.
+ */
+public class OrganizationExportTest {
+  private static final int ORGANIZATION_ID = 2;
+
+  @BeforeAll
+  public static void setUp() {
+    HrDatabaseFacade.setConnection(new InmemConnection());
+  }
+
+  @Test
+  public void testNdjsonHasOneRowPerEmployee() throws Exception {
+    String body = export(OrganizationExport.Format.NDJSON);
+    String[] rows = body.split("\n");
+    assertEquals(countEmployees(), rows.length);
+    assertTrue(body.endsWith("}\n"));
+    for (String row : rows) {
+      JsonNode node = new ObjectMapper().readTree(row);
+      assertEquals(8, node.size());
+      assertTrue(node.get("id").isInt());
+      assertTrue(node.has("departmentId"));
+    }
+  }
+
+  @Test
+  public void testCsvHasHeaderAndRows() throws Exception {
+    String[] rows = export(OrganizationExport.Format.CSV).split("\r\n");
+    assertEquals(countEmployees() + 1, rows.length);
+    assertEquals("id,name,hireDate,position,salary,performance,departmentId,departmentName",
+        rows[0]);
+    for (int i = 1; i < rows.length; i++) {
+      assertEquals(8, rows[i].split(",", -1).length);
+    }
+  }
+
+  @Test
+  public void testCsvEscaping() {
+    assertEquals("plain", OrganizationExport.escapeCsv("plain"));
+    assertEquals("\"Doe, John\"", OrganizationExport.escapeCsv("Doe, John"));
+    assertEquals("\"say \"\"hi\"\"\"", OrganizationExport.escapeCsv("say \"hi\""));
+    assertEquals("", OrganizationExport.escapeCsv(null));
+  }
+
+  @Test
+  public void testFormats() {
+    assertEquals(OrganizationExport.Format.CSV, OrganizationExport.Format.of("csv"));
+    assertEquals(OrganizationExport.Format.NDJSON, OrganizationExport.Format.of("NDJSON"));
+    assertNull(OrganizationExport.Format.of("xml"));
+    assertEquals("", OrganizationExport.formatDate(null));
+    assertEquals(10, OrganizationExport.formatDate(new Date()).length());
+  }
+
+  private static int countEmployees() {
+    AtomicInteger count = new AtomicInteger();
+    HrDatabaseFacade.exportOrganization(ORGANIZATION_ID, (employee, department) ->
+        count.incrementAndGet());
+    return count.get();
+  }
+
+  private static String export(OrganizationExport.Format format) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new OrganizationExport(ORGANIZATION_ID, format).writeTo(out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+}
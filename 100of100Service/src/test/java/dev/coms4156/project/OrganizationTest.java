@@ -152,4 +152,79 @@ public class OrganizationTest {
       return new ArrayList<>();
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  @Order(9)
+  public void testApproximateStatisticsMergeDepartments() {
+    Organization merged = new Organization(2, "Merged Organization");
+    Department low = new Department(1, "Low");
+    Department high = new Department(2, "High");
+    for (int i = 0; i < 500; i++) {
+      low.addEmployee(new Employee(i, "Low " + i, new Date(), "Engineer", i, i % 50));
+      high.addEmployee(new Employee(500 + i, "High " + i, new Date(), "Engineer", 500 + i, 50));
+    }
+    merged.addDepartment(low);
+    merged.addDepartment(high);
+
+    Map<String, Object> performance = merged.getApproximatePerformanceStatisticMap();
+    assertEquals(1000L, performance.get("count"));
+    assertEquals(50.0, performance.get("highest"));
+    assertEquals(0.0, performance.get("lowest"));
+    assertEquals(50.0, (double) performance.get("percentile75"), 1);
+
+    Map<String, Object> salary = merged.getApproximateSalaryStatisticMap();
+    assertEquals(500.0, (double) salary.get("median"), 20);
+    assertEquals(999.0, salary.get("highest"));
+  }
+
+  @Test
+  @Order(10)
+  public void testStatisticRollupMatchesDepartments() {
+    Organization large = new Organization(3, "Large Organization");
+    List<Department> departments = new ArrayList<>();
+    int id = 0;
+    for (int d = 0; d < 100; d++) {
+      Department department = new Department(d, "Department " + d);
+      for (int i = 0; i < 10; i++, id++) {
+        String position = i % 2 == 0 ? "Engineer" : "Manager";
+        department.addEmployee(new Employee(id, "Employee " + id, new Date(), position, id, i));
+      }
+      departments.add(department);
+      large.addDepartment(department);
+    }
+
+    Map<String, Object> rollup = large.getStatisticRollupMap();
+    assertEquals(100, rollup.get("departmentCount"));
+    assertEquals(1000L, rollup.get("employeeCount"));
+    Map<?, ?> budget = (Map<?, ?>) rollup.get("budget");
+    assertEquals(999.0 * 1000 / 2, budget.get("total"));
+    assertEquals(999.0, budget.get("highest"));
+    assertEquals(999, budget.get("highestEmployee"));
+    assertEquals(0.0, budget.get("lowest"));
+    assertEquals(499.5, (double) budget.get("median"), 20);
+    Map<?, ?> performance = (Map<?, ?>) rollup.get("performance");
+    assertEquals(4.5, (double) performance.get("average"), 1e-9);
+    assertEquals(9.0, performance.get("highest"));
+    assertEquals(Map.of("engineer", 500, "manager", 500), rollup.get("positions"));
+
+    // Changes to the departments are picked up
+    Department changed = departments.get(42);
+    changed.addEmployee(new Employee(id, "Employee " + id, new Date(), "Intern", 5000, 20));
+    rollup = large.getStatisticRollupMap();
+    assertEquals(1001L, rollup.get("employeeCount"));
+    assertEquals(5000.0, ((Map<?, ?>) rollup.get("budget")).get("highest"));
+    assertEquals(20.0, ((Map<?, ?>) rollup.get("performance")).get("highest"));
+    assertEquals(1, ((Map<?, ?>) rollup.get("positions")).get("intern"));
+    assertEquals(id, ((Map<?, ?>) rollup.get("budget")).get("highestEmployee"));
+  }
+
+  @Test
+  @Order(11)
+  public void testStatisticRollupOfEmptyOrganization() {
+    Map<String, Object> rollup = new Organization(4, "Empty Organization").getStatisticRollupMap();
+    assertEquals(0, rollup.get("departmentCount"));
+    assertEquals(0L, rollup.get("employeeCount"));
+    assertEquals(0.0, ((Map<?, ?>) rollup.get("budget")).get("highest"));
+    assertEquals(0.0, ((Map<?, ?>) rollup.get("performance")).get("average"));
+  }
+}
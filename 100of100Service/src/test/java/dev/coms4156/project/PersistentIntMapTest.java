@@ -0,0 +1,104 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.utils.PersistentIntMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the PersistentIntMap utility class.
+ */
+public class PersistentIntMapTest {
+
+  @Test
+  public void testPutGetRemove() {
+    PersistentIntMap<String> empty = PersistentIntMap.empty();
+    PersistentIntMap<String> map = empty.with(1, "one").with(40000, "forty thousand");
+
+    assertTrue(empty.isEmpty());
+    assertEquals(2, map.size());
+    assertEquals("one", map.get(1));
+    assertEquals("forty thousand", map.get(40000));
+    assertNull(map.get(2));
+    assertNull(map.get(-1));
+    assertEquals(List.of("one", "forty thousand"), map.values());
+
+    PersistentIntMap<String> removed = map.without(1);
+    assertFalse(removed.containsKey(1));
+    assertEquals(1, removed.size());
+    assertSame(removed, removed.without(1));
+    assertTrue(removed.without(40000).isEmpty());
+  }
+
+  @Test
+  public void testUpdatesLeaveEarlierMapsUnchanged() {
+    PersistentIntMap.Builder<String> builder = new PersistentIntMap.Builder<>();
+    builder.put(7, "seven");
+    builder.put(8, "eight");
+    PersistentIntMap<String> first = builder.build();
+
+    builder.put(7, "sept");
+    builder.remove(8);
+    PersistentIntMap<String> second = builder.build();
+
+    assertEquals(List.of("seven", "eight"), first.values());
+    assertEquals(List.of("sept"), second.values());
+    assertEquals(List.of("eight", "nine"), first.with(9, "nine").without(7).values());
+    assertEquals(2, first.size());
+  }
+
+  @Test
+  public void testInvalidEntriesRejected() {
+    PersistentIntMap.Builder<String> builder = new PersistentIntMap.Builder<>();
+    assertThrows(IllegalArgumentException.class, () -> builder.put(-1, "negative"));
+    assertThrows(IllegalArgumentException.class, () -> builder.put(1, null));
+    assertThrows(IndexOutOfBoundsException.class, () -> builder.build().values().get(0));
+  }
+
+  @Test
+  public void testMatchesTreeMapUnderRandomOperations() {
+    TreeMap<Integer, Integer> reference = new TreeMap<>();
+    PersistentIntMap<Integer> map = PersistentIntMap.empty();
+    List<PersistentIntMap<Integer>> snapshots = new ArrayList<>();
+    List<List<Integer>> expected = new ArrayList<>();
+    Random random = new Random(4156);
+    for (int i = 0; i < 5000; i++) {
+      PersistentIntMap.Builder<Integer> builder = map.builder();
+      for (int j = random.nextInt(4); j >= 0; j--) {
+        int key = random.nextInt(1 << (5 * (1 + random.nextInt(4))));
+        if (random.nextInt(3) == 0) {
+          assertEquals(reference.remove(key), builder.remove(key));
+        } else {
+          assertEquals(reference.put(key, i), builder.put(key, i));
+        }
+      }
+      map = builder.build();
+      if (i % 500 == 0) {
+        snapshots.add(map);
+        expected.add(new ArrayList<>(reference.values()));
+      }
+    }
+
+    assertEquals(reference.size(), map.size());
+    List<Integer> values = new ArrayList<>(reference.values());
+    assertEquals(values, map.values());
+    for (int i = 0; i < values.size(); i += 17) {
+      assertEquals(values.get(i), map.values().get(i));
+    }
+    for (int key : reference.keySet()) {
+      assertEquals(reference.get(key), map.get(key));
+    }
+    for (int i = 0; i < snapshots.size(); i++) {
+      assertEquals(expected.get(i), snapshots.get(i).values());
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the PositionDictionary class.
+ */
+public class PositionDictionaryTest {
+
+  @Test
+  public void testNormalize() {
+    assertEquals("software engineer", PositionDictionary.normalize("  Software Engineer "));
+    assertEquals("unassigned", PositionDictionary.normalize(null));
+    assertEquals("unassigned", PositionDictionary.normalize("   "));
+  }
+
+  @Test
+  public void testCodesAreStable() {
+    PositionDictionary dictionary = new PositionDictionary();
+    assertEquals(0, dictionary.codeOf("engineer"));
+    assertEquals(1, dictionary.codeOf("manager"));
+    assertEquals(0, dictionary.codeOf("engineer"));
+    assertEquals(2, dictionary.size());
+    assertEquals("manager", dictionary.positionOf(1));
+  }
+
+  @Test
+  public void testConcurrentCodesAreUnique() throws Exception {
+    PositionDictionary dictionary = new PositionDictionary();
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(pool.submit(() -> {
+          for (int i = 0; i < 1000; i++) {
+            String position = "position " + i;
+            assertEquals(position, dictionary.positionOf(dictionary.codeOf(position)));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(1000, dictionary.size());
+  }
+}
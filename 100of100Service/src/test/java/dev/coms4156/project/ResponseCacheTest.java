@@ -0,0 +1,49 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.exception.NotFoundException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the ResponseCache class.
+ */
+public class ResponseCacheTest {
+
+  @Test
+  public void testBodiesAreReusedPerVersion() {
+    ResponseCache cache = new ResponseCache(1024);
+    AtomicInteger encodings = new AtomicInteger();
+    byte[] body =
+        cache.get(1, "getOrgInfo", 5, () -> new byte[] {(byte) encodings.incrementAndGet()});
+    assertArrayEquals(body, cache.get(1, "getOrgInfo", 5, () -> new byte[] {0}));
+    assertEquals(1, encodings.get());
+
+    cache.get(1, "getOrgInfo", 6, () -> new byte[] {(byte) encodings.incrementAndGet()});
+    cache.get(2, "getOrgInfo", 5, () -> new byte[] {(byte) encodings.incrementAndGet()});
+    cache.get(1, "getDeptInfo?did=1", 5, () -> new byte[] {(byte) encodings.incrementAndGet()});
+    assertEquals(4, encodings.get());
+  }
+
+  @Test
+  public void testFailuresAreNotCached() {
+    ResponseCache cache = new ResponseCache(1024);
+    assertThrows(NotFoundException.class, () -> cache.get(1, "getDeptInfo?did=9", 1, () -> {
+      throw new NotFoundException("Department [9] not found");
+    }));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testCacheIsBoundedByBytes() {
+    ResponseCache cache = new ResponseCache(100);
+    for (int version = 0; version < 50; version++) {
+      cache.get(1, "getOrgInfo", version, () -> new byte[10]);
+    }
+    assertTrue(cache.size() <= 10);
+  }
+}
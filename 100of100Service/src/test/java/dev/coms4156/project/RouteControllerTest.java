@@ -1,9 +1,11 @@
 package dev.coms4156.project;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import org.junit.jupiter.api.Assertions;
@@ -50,6 +52,24 @@ public class RouteControllerTest {
     inmemConnection.resetTestData();
   }
 
+  @Test
+  public void testReady() throws Exception {
+    MvcResult mvcResult = mockMvc.perform(get("/ready")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    Assertions.assertTrue(mvcResult.getResponse().getContentAsString().contains("ready"));
+  }
+
+  @Test
+  public void testQueueDepth() throws Exception {
+    MvcResult mvcResult = mockMvc.perform(get("/queueDepth")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    Assertions.assertTrue(mvcResult.getResponse().getContentAsString().contains("queueDepth"));
+  }
+
   @Test
   public void testGetEmployeeInfo() throws Exception {
     MvcResult mvcResult1 = mockMvc.perform(get("/getEmpInfo")
@@ -106,6 +126,25 @@ public class RouteControllerTest {
         .andExpect(status().isNotFound()).andReturn();
   }
 
+  @Test
+  public void testGetOrganizationStatistic() throws Exception {
+    MvcResult mvcResult1 = mockMvc.perform(get("/statOrg")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+
+    String res = mvcResult1.getResponse().getContentAsString();
+    Assertions.assertTrue(res.contains("departmentCount"));
+    Assertions.assertTrue(res.contains("positions"));
+
+    mockMvc.perform(get("/statOrg")
+            .header("Authorization", CLIENT_KEY_99)
+            .param("cid", CLIENT_ID_99)
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound()).andReturn();
+  }
+
   @Test
   public void testSetDeptHead() throws Exception {
     // patch for test
@@ -323,6 +362,155 @@ public class RouteControllerTest {
     Assertions.assertTrue(content.contains("5000.05"));
   }
 
+  @Test
+  public void testConditionalGet() throws Exception {
+    MvcResult first = mockMvc.perform(get("/statDeptBudget")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    String etag = first.getResponse().getHeader("ETag");
+    Assertions.assertNotNull(etag);
+
+    MvcResult unchanged = mockMvc.perform(get("/statDeptBudget")
+            .header("Authorization", CLIENT_KEY_1)
+            .header("If-None-Match", etag)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotModified()).andReturn();
+    Assertions.assertEquals("", unchanged.getResponse().getContentAsString());
+
+    mockMvc.perform(patch("/setEmpSalary")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("eid", "1")
+            .param("salary", "4156.5")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    MvcResult changed = mockMvc.perform(get("/statDeptBudget")
+            .header("Authorization", CLIENT_KEY_1)
+            .header("If-None-Match", etag)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    Assertions.assertNotEquals(etag, changed.getResponse().getHeader("ETag"));
+    Assertions.assertTrue(changed.getResponse().getContentAsString().contains("4156.5"));
+  }
+
+  @Test
+  public void testConditionalGetOfMissingIdIsNotFound() throws Exception {
+    MvcResult first = mockMvc.perform(get("/statDeptBudget")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    String etag = first.getResponse().getHeader("ETag");
+
+    for (String ifNoneMatch : new String[] {etag, "*"}) {
+      mockMvc.perform(get("/statDeptBudget")
+              .header("Authorization", CLIENT_KEY_1)
+              .header("If-None-Match", ifNoneMatch)
+              .param("cid", CLIENT_ID_1)
+              .param("did", "99")
+              .accept(MediaType.APPLICATION_JSON))
+          .andExpect(status().isNotFound());
+    }
+    mockMvc.perform(get("/statDeptBudget")
+            .header("Authorization", CLIENT_KEY_1)
+            .header("If-None-Match", "*")
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  public void testGetDeptInfoPage() throws Exception {
+    MvcResult projected = mockMvc.perform(get("/getDeptInfo")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .param("limit", "1")
+            .param("fields", "id,name")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    String body = projected.getResponse().getContentAsString();
+    Assertions.assertTrue(body.contains("\"employees\":[{"));
+    Assertions.assertTrue(body.contains("\"employeeCount\""));
+    Assertions.assertFalse(body.contains("salary"));
+    Assertions.assertFalse(body.contains("position"));
+
+    MvcResult summary = mockMvc.perform(get("/getDeptInfo")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .param("includeEmployees", "false")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk()).andReturn();
+    Assertions.assertFalse(summary.getResponse().getContentAsString().contains("employees"));
+
+    mockMvc.perform(get("/getDeptInfo")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .param("fields", "ssn")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/getDeptInfo")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("did", "1")
+            .param("limit", "0")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void testExportOrganization() throws Exception {
+    MvcResult started = mockMvc.perform(get("/exportOrg")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("format", "csv"))
+        .andExpect(request().asyncStarted()).andReturn();
+    MvcResult exported = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk()).andReturn();
+    Assertions.assertTrue(exported.getResponse().getContentType().startsWith("text/csv"));
+    Assertions.assertTrue(exported.getResponse().getContentAsString()
+        .startsWith("id,name,hireDate,position,salary,performance,departmentId,departmentName"));
+
+    mockMvc.perform(get("/exportOrg")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("format", "xml"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void testImportEmployees() throws Exception {
+    MvcResult imported = mockMvc.perform(post("/importEmps")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .param("format", "csv")
+            .contentType("text/csv")
+            .content("departmentId,name,hireDate,salary\n1,Ann,2024-01-15,100\n1,Ben,bad,100\n"))
+        .andExpect(status().isCreated()).andReturn();
+    String body = imported.getResponse().getContentAsString();
+    Assertions.assertTrue(body.contains("\"imported\":1"));
+    Assertions.assertTrue(body.contains("\"line\":3"));
+
+    mockMvc.perform(post("/importEmps")
+            .header("Authorization", CLIENT_KEY_1)
+            .param("cid", CLIENT_ID_1)
+            .contentType("application/x-ndjson")
+            .content("{\"departmentId\":99,\"name\":\"Cat\",\"hireDate\":\"2024-01-15\"}\n"))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   public void testSetEmpSalaryNotExist() throws Exception {
     mockMvc.perform(patch("/setEmpSalary")
@@ -0,0 +1,61 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Date;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * A test class for the StreamingJson class.
+ * The streamed responses must be byte-compatible with the serialized toJson() maps.
+ */
+@SpringBootTest
+public class StreamingJsonTest {
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Test
+  public void testEmployeeMatchesMap() throws Exception {
+    Employee employee = new Employee(7, "Alice \"Al\"", new Date(1700000000000L),
+        "Engineer", 1234.5, 88);
+    assertSameJson(employee.toJson(), StreamingJson.of(employee));
+    Employee unnamed = new Employee(8, null, new Date(0));
+    assertSameJson(unnamed.toJson(), StreamingJson.of(unnamed));
+  }
+
+  @Test
+  public void testDepartmentMatchesMap() throws Exception {
+    Department department = new Department(3, "Research");
+    assertSameJson(department.toJson(), StreamingJson.of(department));
+
+    Employee head = new Employee(1, "Bob", new Date(), "Manager", 200, 70.25);
+    department.addEmployee(head);
+    department.addEmployee(new Employee(2, "Carol", new Date(), "Engineer", 100, 90));
+    department.setHead(head);
+    assertSameJson(department.toJson(), StreamingJson.of(department));
+  }
+
+  @Test
+  public void testOrganizationMatchesMap() throws Exception {
+    Organization organization = new Organization(1, "Org");
+    assertSameJson(organization.toJson(), StreamingJson.of(organization));
+
+    Department research = new Department(3, "Research");
+    Employee head = new Employee(1, "Bob", new Date());
+    research.addEmployee(head);
+    research.setHead(head);
+    organization.addDepartment(research);
+    organization.addDepartment(new Department(4, null));
+    organization.addEmployee(head);
+    assertSameJson(organization.toJson(), StreamingJson.of(organization));
+  }
+
+  private void assertSameJson(Object expected, StreamingJson actual) throws Exception {
+    assertEquals(this.objectMapper.writeValueAsString(expected),
+        this.objectMapper.writeValueAsString(actual));
+  }
+}
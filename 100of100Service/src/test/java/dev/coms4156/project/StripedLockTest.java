@@ -0,0 +1,69 @@
+package dev.coms4156.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.utils.StripedLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A unit test class for the StripedLock utility class.
+ */
+public class StripedLockTest {
+
+  @Test
+  public void testDifferentStripesDoNotBlock() throws Exception {
+    StripedLock locks = new StripedLock(4);
+    assertEquals(locks.stripeOf(1), locks.stripeOf(5));
+    assertEquals(3, locks.stripeOf(-1));
+
+    try (StripedLock.Handle ignored = locks.lock(1)) {
+      CompletableFuture<Void> other = CompletableFuture.runAsync(() -> locks.lock(2).close());
+      other.get(5, TimeUnit.SECONDS);
+    }
+    assertEquals(0, locks.getContention()[locks.stripeOf(1)]);
+    assertEquals(0, locks.getContention()[locks.stripeOf(2)]);
+  }
+
+  @Test
+  public void testSameStripeWaitsAndCountsContention() throws Exception {
+    StripedLock locks = new StripedLock(4);
+    CompletableFuture<Void> other;
+    try (StripedLock.Handle ignored = locks.lock(1)) {
+      // The lock is reentrant for the holder
+      locks.lock(5).close();
+      other = CompletableFuture.runAsync(() -> locks.lock(5).close());
+      Thread.sleep(100);
+      assertFalse(other.isDone(), "The stripe should be held");
+    }
+    other.get(5, TimeUnit.SECONDS);
+    assertEquals(1, locks.getContention()[locks.stripeOf(5)]);
+  }
+
+  @Test
+  public void testLockAllExcludesStripeHolders() throws Exception {
+    StripedLock locks = new StripedLock(4);
+    CountDownLatch locked = new CountDownLatch(1);
+    CompletableFuture<Void> global;
+    try (StripedLock.Handle ignored = locks.lock(3)) {
+      global = CompletableFuture.runAsync(() -> {
+        try (StripedLock.Handle all = locks.lockAll()) {
+          locked.countDown();
+        }
+      });
+      assertFalse(locked.await(100, TimeUnit.MILLISECONDS), "Stripe holders should be awaited");
+    }
+    global.get(5, TimeUnit.SECONDS);
+    assertTrue(locks.getGlobalContention() >= 1);
+  }
+
+  @Test
+  public void testInvalidStripeCount() {
+    assertThrows(IllegalArgumentException.class, () -> new StripedLock(0));
+  }
+}